@@ -0,0 +1,40 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.exceptions;
+
+/**
+ * Exception thrown when a page of results could not be fetched while iterating
+ * over the pages of a listing. The cause is the exception thrown by the
+ * request of the page.
+ * 
+ * @author Pedro Cruz
+ */
+public class PagingException extends RuntimeException {
+	private static final long serialVersionUID = -2405876327468512984L;
+
+	public PagingException(String arg0, Throwable arg1) {
+		super(arg0, arg1);
+	}
+
+	public PagingException(Throwable arg0) {
+		super(arg0);
+	}
+}
@@ -20,8 +20,6 @@
  */
 package citysdk.tourism.client.parser;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -34,6 +32,8 @@ import citysdk.tourism.client.parser.data.LineContent;
 import citysdk.tourism.client.parser.data.LocationContent;
 import citysdk.tourism.client.parser.data.PointContent;
 import citysdk.tourism.client.parser.data.PolygonContent;
+import citysdk.tourism.client.poi.base.Geometry;
+import citysdk.tourism.client.poi.base.LanguageIndex;
 import citysdk.tourism.client.poi.base.Line;
 import citysdk.tourism.client.poi.base.Location;
 import citysdk.tourism.client.poi.base.POIBaseType;
@@ -52,6 +52,12 @@ import citysdk.tourism.client.terms.Term;
  * parsing of data and gets the information needed specified by the application
  * using a given set of terms or languages. In case a given language is not
  * found, it defaults to en_GB.
+ * <p>
+ * Labels, descriptions and categories are read through the
+ * {@link citysdk.tourism.client.poi.base.POIType#getLanguageIndex() language
+ * index} of the POI, which is only rebuilt when values are added through the
+ * POI or its language is set. Values changed directly in the lists of the POI
+ * after it was first read here may not be reflected.
  * 
  * @author Pedro Cruz
  * 
@@ -93,13 +99,10 @@ public class DataReader {
 			return null;
 
 		Map<String, Locale> languages = new HashMap<String, Locale>();
-		List<? extends POIBaseType> fields = invokeMethod(poi, field);
-		if (field != null) {
-			for (POIBaseType base : fields) {
-				if (!base.getLang().equals("")) {
-					Locale locale = parseLocale(base.getLang());
-					languages.put(locale.getLanguage(), locale);
-				}
+		for (POIBaseType base : field.getValues(poi)) {
+			if (base.getLang() != null && !base.getLang().equals("")) {
+				Locale locale = parseLocale(base.getLang());
+				languages.put(locale.getLanguage(), locale);
 			}
 		}
 
@@ -107,70 +110,10 @@ public class DataReader {
 	}
 
 	/*
-	 * Invokes the respective method from the field
-	 */
-	@SuppressWarnings("unchecked")
-	private static List<? extends POIBaseType> invokeMethod(POI poi, Field field) {
-		Class<?>[] params = { POI.class };
-		try {
-			Method method = DataReader.class.getDeclaredMethod(
-					field.getField(), params);
-			return (List<? extends POIBaseType>) method.invoke(null,
-					new Object[] { poi });
-		} catch (SecurityException e) {
-			e.printStackTrace();
-		} catch (NoSuchMethodException e) {
-			e.printStackTrace();
-		} catch (IllegalArgumentException e) {
-			e.printStackTrace();
-		} catch (IllegalAccessException e) {
-			e.printStackTrace();
-		} catch (InvocationTargetException e) {
-			e.printStackTrace();
-		}
-
-		return null;
-	}
-
-	/*
-	 * Gets the labels field of a POI
-	 */
-	@SuppressWarnings("unused")
-	private static List<? extends POIBaseType> getLabels(POI poi) {
-		return poi.getLabel();
-	}
-
-	/*
-	 * Gets the descriptions field of a POI
-	 */
-	@SuppressWarnings("unused")
-	private static List<? extends POIBaseType> getDescriptions(POI poi) {
-		return poi.getDescription();
-	}
-	
-	/*
-	 * Gets the categories field of a POI
-	 */
-	@SuppressWarnings("unused")
-	private static List<? extends POIBaseType> getCategories(POI poi) {
-		return poi.getCategory();
-	}
-
-	/*
-	 * Parses the locale of a given string
+	 * Parses the locale of a given string, each string being parsed only once
 	 */
 	private static Locale parseLocale(String locale) {
-		String[] parts = locale.replace('-', '_').split("_");
-		switch (parts.length) {
-		case 3:
-			return new Locale(parts[0], parts[1], parts[2]);
-		case 2:
-			return new Locale(parts[0], parts[1]);
-		case 1:
-			return new Locale(parts[0]);
-		default:
-			throw new IllegalArgumentException("Invalid locale: " + locale);
-		}
+		return LanguageIndex.toLocale(locale);
 	}
 
 	/**
@@ -193,28 +136,12 @@ public class DataReader {
 				|| lang == null)
 			return null;
 
-		Locale labelLang;
-		Locale poiLang = parseLocale(poi.getLang());
-
-		String defaultValue = null;
-		List<POITermType> labels = poi.getLabel();
-		for (POITermType label : labels) {
-			if (label.getLang().equals(""))
-				labelLang = poiLang;
-			else
-				labelLang = parseLocale(label.getLang());
-
-			if (label.getTerm().equals(term.getTerm())
-					&& labelLang.getLanguage()
-							.equals(defaultLang.getLanguage())) {
-				defaultValue = label.getValue();
-			} else if (label.getTerm().equals(term.getTerm())
-					&& labelLang.getLanguage().equals(lang.getLanguage())) {
-				return label.getValue();
-			}
-		}
+		LanguageIndex index = poi.getLanguageIndex();
+		String value = index.getLabel(term.getTerm(), lang.getLanguage());
+		if (value == null)
+			value = index.getLabel(term.getTerm(), defaultLang.getLanguage());
 
-		return defaultValue;
+		return value;
 	}
 
 	/**
@@ -234,26 +161,14 @@ public class DataReader {
 				|| lang == null)
 			return null;
 
-		Locale descriptionLang;
-		Locale poiLang = parseLocale(poi.getLang());
-
-		String defaultValue = null;
-		List<POIBaseType> descriptions = poi.getDescription();
-		for (POIBaseType description : descriptions) {
-			if (description.getLang().equals(""))
-				descriptionLang = poiLang;
-			else
-				descriptionLang = parseLocale(description.getLang());
-
-			if (descriptionLang.getLanguage().equals(defaultLang.getLanguage())) {
-				defaultValue = description.getValue();
-			} else if (descriptionLang.getLanguage().equals(lang.getLanguage())) {
-				return description.getValue();
-			}
-		}
+		LanguageIndex index = poi.getLanguageIndex();
+		String value = index.getDescription(lang.getLanguage());
+		if (value == null)
+			value = index.getDescription(defaultLang.getLanguage());
 
-		return defaultValue;
+		return value;
 	}
+
 	
 	/**
 	 * Gets the categories in a given language.
@@ -266,27 +181,11 @@ public class DataReader {
 	 *         desired language if none found or empty.
 	 */
 	public static List<String> getCategories(POI poi, Locale lang) {
-		List<String> poiCategories = new ArrayList<String>();
 		if (poi == null
 				|| lang == null)
-			return poiCategories;
+			return new ArrayList<String>();
 
-		Locale categoryLang;
-		Locale poiLang = parseLocale(poi.getLang());
-
-		List<POITermType> categories = poi.getCategory();
-		for (POITermType category : categories) {
-			if (category.getLang().equals(""))
-				categoryLang = poiLang;
-			else
-				categoryLang = parseLocale(category.getLang());
-
-			if (categoryLang.getLanguage().equals(lang.getLanguage())) {
-				poiCategories.add(category.getValue());
-			}
-		}
-
-		return poiCategories;
+		return new ArrayList<String>(poi.getLanguageIndex().getCategories(lang.getLanguage()));
 	}
 
 	/**
@@ -333,36 +232,15 @@ public class DataReader {
 		if (poi == null)
 			return null;
 
-		Locale descriptionLang;
-		Locale poiLang = parseLocale(poi.getLang());
-
-		String defaultValue = null;
-		List<POIBaseType> descriptions = poi.getDescription();
-		for (POIBaseType description : descriptions) {
-			if (description.getLang().equals(""))
-				descriptionLang = poiLang;
-			else
-				descriptionLang = parseLocale(description.getLang());
-
-			if (description.getType().equals(tag)) {
-				if (lang != null
-						&& descriptionLang.getLanguage().equals(
-								defaultLang.getLanguage()))
-					defaultValue = description.getValue();
-				else if (lang == null)
-					defaultValue = description.getValue();
-
-			} else if (description.getType().equals(tag)) {
-				if (lang != null
-						&& descriptionLang.getLanguage().equals(
-								lang.getLanguage()))
-					return description.getValue();
-				else if (lang == null)
-					return description.getValue();
-			}
-		}
+		LanguageIndex index = poi.getLanguageIndex();
+		if (lang == null)
+			return index.getDescription(tag, null);
+
+		String value = index.getDescription(tag, lang.getLanguage());
+		if (value == null)
+			value = index.getDescription(tag, defaultLang.getLanguage());
 
-		return defaultValue;
+		return value;
 	}
 
 	/**
@@ -444,10 +322,11 @@ public class DataReader {
 			List<Point> points = location.getPoint();
 
 			for (Point p : points) {
-				if (p.getTerm().equals(term.getTerm())) {
-					String data[] = p.getPoint().getPosList().split(" ");
-					point = new PointContent(new String(data[0]),
-							new String(data[1]));
+				Geometry geometry = p.getPoint();
+				if (p.getTerm().equals(term.getTerm()) && geometry != null
+						&& geometry.hasCoordinates()) {
+					point = new PointContent(geometry.getLatitude(0),
+							geometry.getLongitude(0));
 					list.add(point);
 				}
 			}
@@ -478,14 +357,13 @@ public class DataReader {
 			List<Line> lines = location.getLine();
 
 			for (Line l : lines) {
-				if (l.getTerm().equals(term.getTerm())) {
-					String data[] = l.getLineString().getPosList().split(",");
-					String point1[] = data[0].split(" ");
-					String point2[] = data[1].split(" ");
-					line = new LineContent(new LocationContent(new String(
-							point1[0]), new String(point1[1])),
-							new LocationContent(new String(point2[2]),
-									new String(point2[3])));
+				Geometry geometry = l.getLineString();
+				if (l.getTerm().equals(term.getTerm()) && geometry != null
+						&& geometry.getNumCoordinates() >= 2) {
+					line = new LineContent(new LocationContent(
+							geometry.getLatitude(0), geometry.getLongitude(0)),
+							new LocationContent(geometry.getLatitude(1),
+									geometry.getLongitude(1)));
 					list.add(line);
 				}
 			}
@@ -517,15 +395,13 @@ public class DataReader {
 			List<Polygon> polygons = location.getPolygon();
 
 			for (Polygon p : polygons) {
-				if (p.getTerm().equals(term.getTerm())) {
+				Geometry geometry = p.getSimplePolygon();
+				if (p.getTerm().equals(term.getTerm()) && geometry != null
+						&& geometry.hasCoordinates()) {
 					polygon = new PolygonContent();
-					String data[] = p.getSimplePolygon().getPosList()
-							.split(",");
-					for (int i = 0; i < data.length; i++) {
-						String posList[] = data[i].split(" ");
+					for (int i = 0; i < geometry.getNumCoordinates(); i++) {
 						polygon.addLocation(new LocationContent(
-								new String(posList[0]), new String(
-										posList[1])));
+								geometry.getLatitude(i), geometry.getLongitude(i)));
 					}
 					list.add(polygon);
 				}
@@ -547,7 +423,7 @@ public class DataReader {
 			return null;
 
 		POIBaseType address = poi.getLocation().getAddress();
-		if (address.getValue().equals(""))
+		if (address == null || address.getValue() == null || address.getValue().equals(""))
 			return null;
 		else 
 			return address.getValue();
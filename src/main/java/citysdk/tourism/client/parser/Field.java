@@ -20,16 +20,37 @@
  */
 package citysdk.tourism.client.parser;
 
+import java.util.List;
+
+import citysdk.tourism.client.poi.base.POIBaseType;
+import citysdk.tourism.client.poi.single.POI;
+
 /**
  * An enum containing each language-supported field of a {@link citysdk.tourism.client.poi.single.POI}.
+ * Each field reads its values from a POI directly through {@link #getValues(POI)}.
  * 
  * @author Pedro Cruz
  *
  */
 public enum Field {
-	FIELD_LABEL("getLabels"),
-	FIELD_DESCRIPTION("getDescriptions"),
-	FIELD_CATEGORY("getCategories");
+	FIELD_LABEL("getLabels") {
+		@Override
+		public List<? extends POIBaseType> getValues(POI poi) {
+			return poi.getLabel();
+		}
+	},
+	FIELD_DESCRIPTION("getDescriptions") {
+		@Override
+		public List<? extends POIBaseType> getValues(POI poi) {
+			return poi.getDescription();
+		}
+	},
+	FIELD_CATEGORY("getCategories") {
+		@Override
+		public List<? extends POIBaseType> getValues(POI poi) {
+			return poi.getCategory();
+		}
+	};
 	
 	private final String name;
 	
@@ -37,7 +58,21 @@ public enum Field {
         name = s;
     }
 
-    public String getField(){
-       return name;
-    }
+	/**
+	 * Gets the name of the method that used to read this field reflectively.
+	 * @return the name of the method.
+	 * @deprecated fields are no longer read through reflection; use 
+	 * {@link #getValues(POI)} instead.
+	 */
+	@Deprecated
+	public String getField(){
+		return name;
+	}
+
+	/**
+	 * Gets the values of this field in a POI.
+	 * @param poi the POI.
+	 * @return the values of the field.
+	 */
+	public abstract List<? extends POIBaseType> getValues(POI poi);
 }
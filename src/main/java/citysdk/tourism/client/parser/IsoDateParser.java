@@ -0,0 +1,128 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.parser;
+
+/*
+ * Parser of the UTC timestamps sent by the server, in the ISO-8601 format
+ * yyyy-MM-dd'T'HH:mm:ss.SSS'Z'. The fraction of a second may have any number
+ * of digits or be absent, and the zone may also be given as an offset such
+ * as +01:00. Parsing reads the characters in place, so it does not allocate
+ * and can be used by any number of threads.
+ */
+final class IsoDateParser {
+	static final long INVALID = Long.MIN_VALUE;
+
+	private static final long MILLIS_PER_DAY = 86400000L;
+	private static final int[] DAYS_IN_MONTH = { 31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+	private IsoDateParser() {
+	}
+
+	/*
+	 * Gets the milliseconds since the epoch of a timestamp, or INVALID if it
+	 * is not in the expected format.
+	 */
+	static long parse(String date) {
+		int length = date.length();
+		if (length < 20 || date.charAt(4) != '-' || date.charAt(7) != '-' || date.charAt(10) != 'T'
+				|| date.charAt(13) != ':' || date.charAt(16) != ':')
+			return INVALID;
+
+		int year = digits(date, 0, 4);
+		int month = digits(date, 5, 2);
+		int day = digits(date, 8, 2);
+		int hour = digits(date, 11, 2);
+		int minute = digits(date, 14, 2);
+		int second = digits(date, 17, 2);
+		if (year < 0 || month < 1 || month > 12 || day < 1 || day > DAYS_IN_MONTH[month - 1]
+				|| (month == 2 && day == 29 && !isLeap(year))
+				|| hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59)
+			return INVALID;
+
+		int i = 19;
+		int millis = 0;
+		if (date.charAt(i) == '.') {
+			int scale = 100;
+			for (i++; i < length && isDigit(date.charAt(i)); i++) {
+				millis += (date.charAt(i) - '0') * scale;
+				scale /= 10;
+			}
+			if (scale == 100)
+				return INVALID;
+		}
+
+		int offset;
+		if (i == length - 1 && date.charAt(i) == 'Z') {
+			offset = 0;
+		} else if (i + 6 == length && (date.charAt(i) == '+' || date.charAt(i) == '-')
+				&& date.charAt(i + 3) == ':') {
+			int hours = digits(date, i + 1, 2);
+			int minutes = digits(date, i + 4, 2);
+			if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59)
+				return INVALID;
+
+			offset = (hours * 60 + minutes) * 60000;
+			if (date.charAt(i) == '-')
+				offset = -offset;
+		} else {
+			return INVALID;
+		}
+
+		long time = daysFromCivil(year, month, day) * MILLIS_PER_DAY;
+		time += ((hour * 60L + minute) * 60L + second) * 1000L + millis;
+		return time - offset;
+	}
+
+	/*
+	 * Days since 1970-01-01 of a date of the proleptic Gregorian calendar.
+	 */
+	private static long daysFromCivil(int year, int month, int day) {
+		year -= month <= 2 ? 1 : 0;
+		int era = (year >= 0 ? year : year - 399) / 400;
+		int yearOfEra = year - era * 400;
+		int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097L + dayOfEra - 719468L;
+	}
+
+	private static boolean isLeap(int year) {
+		return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/*
+	 * Reads a fixed number of digits, or returns -1 if any is not a digit.
+	 */
+	private static int digits(String date, int start, int count) {
+		int value = 0;
+		for (int i = start; i < start + count; i++) {
+			char c = date.charAt(i);
+			if (!isDigit(c))
+				return -1;
+			value = value * 10 + (c - '0');
+		}
+
+		return value;
+	}
+}
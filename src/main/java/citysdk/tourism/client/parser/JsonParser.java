@@ -20,6 +20,8 @@
  */
 package citysdk.tourism.client.parser;
 
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
 
@@ -52,7 +54,24 @@ import com.google.gson.GsonBuilder;
  * 
  */
 public class JsonParser {
-	private String json;
+	private static final Logger logger = LogManager.getLogManager().getLogger(Logger.GLOBAL_LOGGER_NAME);
+
+	/*
+	 * Every type that can be deserialized by the POIDeserializer. Gson is
+	 * immutable and thread-safe once created, so a single instance (and its
+	 * adapter cache) is shared by all parsers.
+	 */
+	private static final Class<?>[] TYPES = {
+		POI.class, PointOfInterest.class, Event.class, Route.class, Category.class,
+		ListPointOfInterest.class, ListEvent.class, ListRoute.class, ListTag.class,
+		ListPOIS.class, Resources.class
+	};
+	private static final Gson gson = createGson();
+	private static final POIStreamDeserializer streamDeserializer = new POIStreamDeserializer();
+	private static volatile boolean defaultStreaming = true;
+
+	private volatile String json;
+	private volatile boolean streaming = defaultStreaming;
 
 	/**
 	 * Initializes a JsonParser with the given json string. Such JSON can 
@@ -71,13 +90,42 @@ public class JsonParser {
 		this.json = json;
 	}
 
+	/**
+	 * Checks whether this parser uses the streaming deserializer.
+	 * @return <code>true</code> if the {@link POIStreamDeserializer} is used, 
+	 * <code>false</code> if the tree-based {@link POIDeserializer} is used.
+	 */
+	public boolean isStreaming() {
+		return streaming;
+	}
+
+	/**
+	 * Sets whether this parser uses the streaming deserializer or falls back
+	 * to the tree-based one.
+	 * @param streaming <code>true</code> to use the {@link POIStreamDeserializer}, 
+	 * <code>false</code> to use the {@link POIDeserializer}.
+	 */
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
+	/**
+	 * Sets whether parsers created from now on, and {@link #parse(Reader, Class)}, 
+	 * use the streaming deserializer (the default) or the tree-based one.
+	 * @param streaming <code>true</code> to use the {@link POIStreamDeserializer}, 
+	 * <code>false</code> to use the {@link POIDeserializer}.
+	 */
+	public static void setDefaultStreaming(boolean streaming) {
+		defaultStreaming = streaming;
+	}
+
 	/**
 	 * Parses the JSON as a {@link citysdk.tourism.client.poi.single.PointOfInterest}.
 	 * @return a {@link citysdk.tourism.client.poi.single.PointOfInterest} containing the content of the JSON message.
 	 * @throws UnknownErrorException thrown in case of unforeseen errors.
 	 */
 	public PointOfInterest parseJsonAsPointOfInterest() throws UnknownErrorException {
-		return (PointOfInterest) parseJson(PointOfInterest.class);
+		return parseJson(PointOfInterest.class);
 	}
 
 	/**
@@ -86,7 +134,7 @@ public class JsonParser {
 	 * @throws UnknownErrorException thrown in case of unforeseen errors. 
 	 */
 	public Event parseJsonAsEvent() throws UnknownErrorException {
-		return (Event) parseJson(Event.class);
+		return parseJson(Event.class);
 	}
 
 	/**
@@ -95,7 +143,7 @@ public class JsonParser {
 	 * @throws UnknownErrorException thrown in case of unforeseen errors.
 	 */
 	public Route parseJsonAsRoute() throws UnknownErrorException {
-		return (Route) parseJson(Route.class);
+		return parseJson(Route.class);
 	}
 
 	/**
@@ -104,7 +152,7 @@ public class JsonParser {
 	 * @throws UnknownErrorException thrown in case of unforeseen errors.
 	 */
 	public ListPointOfInterest parseJsonAsListOfPois() throws UnknownErrorException {
-		return (ListPointOfInterest) parseJson(ListPointOfInterest.class);
+		return parseJson(ListPointOfInterest.class);
 	}
 
 	/**
@@ -113,7 +161,7 @@ public class JsonParser {
 	 * @throws UnknownErrorException thrown in case of unforeseen errors.
 	 */
 	public ListEvent parseJsonAsListOfEvents() throws UnknownErrorException {
-		return (ListEvent) parseJson(ListEvent.class);
+		return parseJson(ListEvent.class);
 	}
 
 	/**
@@ -122,7 +170,7 @@ public class JsonParser {
 	 * @throws UnknownErrorException thrown in case of unforeseen errors.
 	 */
 	public ListRoute parseJsonAsListOfRoutes() throws UnknownErrorException {
-		return (ListRoute) parseJson(ListRoute.class);
+		return parseJson(ListRoute.class);
 	}
 
 	/**
@@ -131,7 +179,7 @@ public class JsonParser {
 	 * @throws UnknownErrorException thrown in case of unforeseen errors. 
 	 */
 	public Resources parseJsonAsResources() throws UnknownErrorException {
-		return (Resources) parseJson(Resources.class);
+		return parseJson(Resources.class);
 	}
 
 	/**
@@ -140,7 +188,7 @@ public class JsonParser {
 	 * @throws UnknownErrorException thrown in case of unforeseen errors. 
 	 */
 	public Category parseJsonAsCategory() throws UnknownErrorException {
-		return (Category) parseJson(Category.class);
+		return parseJson(Category.class);
 	}
 
 	/**
@@ -149,7 +197,7 @@ public class JsonParser {
 	 * @throws UnknownErrorException thrown in case of unforeseen errors. 
 	 */
 	public ListTag parseJsonAsTags() throws UnknownErrorException {
-		return (ListTag) parseJson(ListTag.class);
+		return parseJson(ListTag.class);
 	}
 	
 	/**
@@ -158,7 +206,7 @@ public class JsonParser {
 	 * @throws UnknownErrorException thrown in case of unforeseen errors. 
 	 */
 	public ListPOIS parseJsonAsListPOIS() throws UnknownErrorException {
-		return (ListPOIS) parseJson(ListPOIS.class);
+		return parseJson(ListPOIS.class);
 	}
 
 	/**
@@ -170,25 +218,92 @@ public class JsonParser {
 		return parseJson(POI.class);
 	}
 
+	/**
+	 * Parses the JSON as the given class.
+	 * @param clazz the class of the object described by the JSON message.
+	 * @return an object of the given class containing the content of the JSON message.
+	 * @throws UnknownErrorException thrown in case of unforeseen errors.
+	 */
+	public <T extends Deserializable> T parseJsonAs(Class<T> clazz) throws UnknownErrorException {
+		return parseJson(clazz);
+	}
+
+	/**
+	 * Parses the JSON message read from the given reader as the given class,
+	 * without buffering the whole message. The reader is not closed.
+	 * @param reader the reader containing the JSON message.
+	 * @param clazz the class of the object described by the JSON message.
+	 * @return an object of the given class containing the content of the JSON message, 
+	 * or <code>null</code> if the reader is <code>null</code> or empty.
+	 * @throws UnknownErrorException thrown in case of unforeseen errors.
+	 */
+	public static <T extends Deserializable> T parse(Reader reader, Class<T> clazz) throws UnknownErrorException {
+		if (reader == null)
+			return null;
+
+		logger.fine("Deserializing for " + clazz);
+		T deserialize;
+		try {
+			if (defaultStreaming)
+				deserialize = streamDeserializer.deserialize(reader, clazz);
+			else
+				deserialize = gson.fromJson(reader, clazz);
+		} catch (Exception e) {
+			throw new UnknownErrorException("There was an error handling the request: " + e.getMessage(), e);
+		}
+
+		logger.fine("Done deserialization");
+		return deserialize;
+	}
+
+	/**
+	 * Lazily iterates over the {@link citysdk.tourism.client.poi.single.PointOfInterest} 
+	 * of a listing read from the given reader.
+	 * @param reader the reader containing the JSON message, closed by the iterator.
+	 * @return an iterator over the points of interest of the listing.
+	 */
+	public static POIIterator<PointOfInterest> iteratePois(Reader reader) {
+		return new POIIterator<PointOfInterest>(reader, POIDeserializer.POI, PointOfInterest.class);
+	}
+
+	/**
+	 * Lazily iterates over the {@link citysdk.tourism.client.poi.single.Event} 
+	 * of a listing read from the given reader.
+	 * @param reader the reader containing the JSON message, closed by the iterator.
+	 * @return an iterator over the events of the listing.
+	 */
+	public static POIIterator<Event> iterateEvents(Reader reader) {
+		return new POIIterator<Event>(reader, POIDeserializer.EVENT, Event.class);
+	}
+
+	/**
+	 * Lazily iterates over the {@link citysdk.tourism.client.poi.single.Route} 
+	 * of a listing read from the given reader.
+	 * @param reader the reader containing the JSON message, closed by the iterator.
+	 * @return an iterator over the routes of the listing.
+	 */
+	public static POIIterator<Route> iterateRoutes(Reader reader) {
+		return new POIIterator<Route>(reader, POIDeserializer.ROUTES, Route.class);
+	}
+
 	/*
 	 * Parses the JSON message taking into account the class specified by each
-	 * of the public methods. It will return a W3C object, in which, each method
-	 * can cast to its own Object.
+	 * of the public methods. The message is read only once, so a parser can be
+	 * shared by several threads as long as it is not changed by setJson.
 	 */
-	private Deserializable parseJson(Class<? extends Deserializable> clazz) throws UnknownErrorException {
+	private <T extends Deserializable> T parseJson(Class<T> clazz) throws UnknownErrorException {
+		String json = this.json;
 		if (json == null)
 			return null;
 
-		Logger logger = LogManager.getLogManager().getLogger(Logger.GLOBAL_LOGGER_NAME);
 		logger.fine("Deserializing for " + clazz);
 		logger.finest("JSON is: " + json);
-		Deserializable deserialize;
-		GsonBuilder builder = new GsonBuilder();
-		builder.registerTypeAdapter(clazz, new POIDeserializer());
-
-		Gson gson = builder.create();
+		T deserialize;
 		try {
-			deserialize = gson.fromJson(json, clazz);
+			if (streaming)
+				deserialize = streamDeserializer.deserialize(new StringReader(json), clazz);
+			else
+				deserialize = gson.fromJson(json, clazz);
 		} catch (Exception e) {
 			throw new UnknownErrorException("There was an error handling the request: " + e.getMessage(), e);
 		}
@@ -196,4 +311,17 @@ public class JsonParser {
 		logger.fine("Done deserialization");
 		return deserialize;
 	}
+
+	/*
+	 * Builds the shared Gson instance with the POIDeserializer registered for
+	 * each of the supported types.
+	 */
+	private static Gson createGson() {
+		POIDeserializer deserializer = new POIDeserializer();
+		GsonBuilder builder = new GsonBuilder();
+		for (Class<?> type : TYPES)
+			builder.registerTypeAdapter(type, deserializer);
+
+		return builder.create();
+	}
 }
@@ -21,9 +21,7 @@
 package citysdk.tourism.client.parser;
 
 import java.lang.reflect.Type;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Locale;
+import java.util.Date;
 import java.util.Map.Entry;
 import java.util.Set;
 
@@ -66,48 +64,47 @@ import com.google.gson.JsonParseException;
  * 
  */
 public class POIDeserializer implements JsonDeserializer<Deserializable> {
-	private static final String TOURISM = "citysdk-tourism";
-	private static final String EVENT = "event";
-	private static final String POI = "poi";
-	private static final String ROUTES = "routes";
-	private static final String POIS = "pois";
-	private static final String _LINK = "_links";
-	private static final String CATEGORIES = "categories";
-	private static final String VERSION = "version";
-	private static final String TEMPLATED = "templated";
-	private static final String TAGS = "tags";
-	private static final String TAG = "tag";
-	private static final String ID = "id";
-	private static final String VALUE = "value";
-	private static final String HREF = "href";
-	private static final String TYPE = "type";
-	private static final String LANG = "lang";
-	private static final String BASE = "base";
-	private static final String CREATED = "created";
-	private static final String UPDATED = "updated";
-	private static final String DELETED = "deleted";
-	private static final String AUTHOR = "author";
-	private static final String LICENSE = "license";
-	private static final String TERM = "term";
-	private static final String DESCRIPTION = "description";
-	private static final String LABEL = "label";
-	private static final String CATEGORY = "category";
-	private static final String LOCATION = "location";
-	private static final String POINT_P = "Point";
-	private static final String POINT = "point";
-	private static final String LINE_STRING = "LineString";
-	private static final String LINE = "line";
-	private static final String SIMPLE_POLYGON = "SimplePolygon";
-	private static final String POLYGON = "polygon";
-	private static final String POS_LIST = "posList";
-	private static final String ADDRESS = "address";
-	private static final String RELATIONSHIP = "relationship";
-	private static final String TARGET_POI = "targetPOI";
-	private static final String TARGET_EVENT = "targetEVENT";
-	private static final String TIME = "time";
-	private static final String LINK = "link";
-	private static final String SCHEME = "scheme";
-	private static final String FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
+	static final String TOURISM = "citysdk-tourism";
+	static final String EVENT = "event";
+	static final String POI = "poi";
+	static final String ROUTES = "routes";
+	static final String POIS = "pois";
+	static final String _LINK = "_links";
+	static final String CATEGORIES = "categories";
+	static final String VERSION = "version";
+	static final String TEMPLATED = "templated";
+	static final String TAGS = "tags";
+	static final String TAG = "tag";
+	static final String ID = "id";
+	static final String VALUE = "value";
+	static final String HREF = "href";
+	static final String TYPE = "type";
+	static final String LANG = "lang";
+	static final String BASE = "base";
+	static final String CREATED = "created";
+	static final String UPDATED = "updated";
+	static final String DELETED = "deleted";
+	static final String AUTHOR = "author";
+	static final String LICENSE = "license";
+	static final String TERM = "term";
+	static final String DESCRIPTION = "description";
+	static final String LABEL = "label";
+	static final String CATEGORY = "category";
+	static final String LOCATION = "location";
+	static final String POINT_P = "Point";
+	static final String POINT = "point";
+	static final String LINE_STRING = "LineString";
+	static final String LINE = "line";
+	static final String SIMPLE_POLYGON = "SimplePolygon";
+	static final String POLYGON = "polygon";
+	static final String POS_LIST = "posList";
+	static final String ADDRESS = "address";
+	static final String RELATIONSHIP = "relationship";
+	static final String TARGET_POI = "targetPOI";
+	static final String TARGET_EVENT = "targetEVENT";
+	static final String TIME = "time";
+	static final String LINK = "link";
+	static final String SCHEME = "scheme";
 
 	protected POIDeserializer() {
 	}
@@ -118,9 +115,10 @@ public class POIDeserializer implements JsonDeserializer<Deserializable> {
 	 * fields: - the id as an Integer; - value as a String; - href as a String;
 	 * - type as a String; - lang as a String; - base as a String; - created,
 	 * updated and deleted as a Date; - author and license as POITermType.
+	 * The fields are set directly on the given object, so no intermediate 
+	 * base type has to be built and copied over.
 	 */
-	private POIBaseType getPOIBaseType(JsonObject json) {
-		POIBaseType base = new POIBaseType();
+	private <T extends POIBaseType> T getPOIBaseType(JsonObject json, T base) {
 		if (json.has(ID) && !json.get(ID).isJsonNull())
 			base.setId(json.get(ID).getAsString());
 
@@ -139,34 +137,49 @@ public class POIDeserializer implements JsonDeserializer<Deserializable> {
 		if (json.has(BASE) && !json.get(BASE).isJsonNull())
 			base.setBase(json.get(BASE).getAsString());
 
-		try {
-			if (json.has(CREATED) && !json.get(CREATED).isJsonNull())
-				base.setCreated(new SimpleDateFormat(FORMAT, Locale.ENGLISH)
-						.parse(json.get(CREATED).getAsString()));
-
-			if (json.has(UPDATED) && !json.get(UPDATED).isJsonNull())
-				base.setCreated(new SimpleDateFormat(FORMAT, Locale.ENGLISH)
-						.parse(json.get(UPDATED).getAsString()));
-
-			if (json.has(DELETED) && !json.get(DELETED).isJsonNull())
-				base.setCreated(new SimpleDateFormat(FORMAT, Locale.ENGLISH)
-						.parse(json.get(DELETED).getAsString()));
-
-		} catch (ParseException e) {
-			e.printStackTrace();
-		}
+		setDates(base, getString(json, CREATED), getString(json, UPDATED),
+				getString(json, DELETED));
 
 		if (json.has(AUTHOR) && !json.get(AUTHOR).isJsonNull()) {
 			base.setAuthor(getPOITermType(json.get(AUTHOR).getAsJsonObject()));
 		}
 
 		if (json.has(LICENSE) && !json.get(LICENSE).isJsonNull()) {
-			base.setAuthor(getPOITermType(json.get(LICENSE).getAsJsonObject()));
+			base.setLicense(getPOITermType(json.get(LICENSE).getAsJsonObject()));
 		}
 
 		return base;
 	}
 
+	/*
+	 * Gets the value of the given member as a String, or null if it is absent
+	 * or null.
+	 */
+	private static String getString(JsonObject json, String member) {
+		if (json.has(member) && !json.get(member).isJsonNull())
+			return json.get(member).getAsString();
+
+		return null;
+	}
+
+	/*
+	 * Parses the created, updated and deleted timestamps (null when absent)
+	 * unto the respective fields of the base type, leaving the fields with 
+	 * invalid timestamps untouched. Shared by the tree and the streaming 
+	 * deserializers so both produce the same values.
+	 */
+	static void setDates(POIBaseType base, String created, String updated, String deleted) {
+		long time;
+		if (created != null && (time = IsoDateParser.parse(created)) != IsoDateParser.INVALID)
+			base.setCreated(new Date(time));
+
+		if (updated != null && (time = IsoDateParser.parse(updated)) != IsoDateParser.INVALID)
+			base.setUpdated(new Date(time));
+
+		if (deleted != null && (time = IsoDateParser.parse(deleted)) != IsoDateParser.INVALID)
+			base.setDeleted(new Date(time));
+	}
+
 	/*
 	 * Deserializes the POITermType JSON Object Its fields values will depend on
 	 * the type of message it it being parsed and it parses the following
@@ -177,28 +190,7 @@ public class POIDeserializer implements JsonDeserializer<Deserializable> {
 		if (json.has(TERM) && !json.get(TERM).isJsonNull())
 			termType.setTerm(json.get(TERM).getAsString());
 
-		if (json.has(VALUE) && !json.get(VALUE).isJsonNull())
-			termType.setValue(json.get(VALUE).getAsString());
-
-		copyTo(termType, getPOIBaseType(json));
-		return termType;
-	}
-
-	/*
-	 * Copies the content of the base type to the term type.
-	 */
-	private void copyTo(POIBaseType to, POIBaseType from) {
-		to.setBase(from.getBase());
-		to.setCreated(from.getCreated());
-		to.setDeleted(from.getDeleted());
-		to.setHref(from.getHref());
-		to.setAuthor(from.getAuthor());
-		to.setId(from.getId());
-		to.setLang(from.getLang());
-		to.setLicense(from.getLicense());
-		to.setType(from.getType());
-		to.setUpdated(from.getUpdated());
-		to.setValue(from.getValue());
+		return getPOIBaseType(json, termType);
 	}
 
 	/*
@@ -251,7 +243,7 @@ public class POIDeserializer implements JsonDeserializer<Deserializable> {
 		for (int i = 0; i < jArray.size(); i++) {
 			JsonElement e = jArray.get(i);
 			JsonObject o = e.getAsJsonObject();
-			poi.addDescription(getPOIBaseType(o));
+			poi.addDescription(getPOIBaseType(o, new POIBaseType()));
 		}
 	}
 
@@ -375,7 +367,7 @@ public class POIDeserializer implements JsonDeserializer<Deserializable> {
 		}
 
 		if (json.has(ADDRESS))
-			location.setAddress(getPOIBaseType(json.getAsJsonObject(ADDRESS)));
+			location.setAddress(getPOIBaseType(json.getAsJsonObject(ADDRESS), new POIBaseType()));
 
 		if (json.has(RELATIONSHIP)) {
 			array = json.getAsJsonArray(RELATIONSHIP);
@@ -419,7 +411,7 @@ public class POIDeserializer implements JsonDeserializer<Deserializable> {
 	 * Deserializes the JSON Object as a POI, Event or Route
 	 */
 	private void getSinglePOI(POI poi, JsonObject jObject) {
-		copyTo(poi, getPOIBaseType(jObject));
+		getPOIBaseType(jObject, poi);
 		if (jObject.has(LABEL))
 			getLabels(poi, jObject);
 
@@ -473,7 +465,7 @@ public class POIDeserializer implements JsonDeserializer<Deserializable> {
 		JsonArray jArray = jElement.getAsJsonArray();
 		for (int i = 0; i < jArray.size(); i++) {
 			Route route = new Route();
-			getSinglePOI(route, jArray.get(i).getAsJsonObject());
+			deserializePoiBased(route, jArray.get(i).getAsJsonObject());
 			list.addRoute(route);
 		}
 	}
@@ -591,16 +583,10 @@ public class POIDeserializer implements JsonDeserializer<Deserializable> {
 	/*
 	 * Infers the class that should be instantiated
 	 */
-	@SuppressWarnings({ "unchecked" })
 	private Object inferType(Type typeOfT) {
 		Object poi = null;
 		try {
-			String className = typeOfT.toString().split(" ")[1];
-			Class<? extends POI> classDefinition = 
-					(Class<? extends citysdk.tourism.client.poi.single.POI>) Class.forName(className);
-			poi = classDefinition.newInstance();
-		} catch (ClassNotFoundException e) {
-			e.printStackTrace();
+			poi = ((Class<?>) typeOfT).newInstance();
 		} catch (InstantiationException e) {
 			e.printStackTrace();
 		} catch (IllegalAccessException e) {
@@ -0,0 +1,182 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.parser;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import citysdk.tourism.client.poi.single.POI;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * Lazily iterates over the elements of a listing (points of interest, events
+ * or routes), deserializing a single element at a time as it is read from the
+ * underlying reader. Only the current element is kept in memory, and the first
+ * elements can be used before the whole message is received.
+ * <p>
+ * The iterator should be closed if it is not read until the end, so that the
+ * underlying reader (and connection) is released. It is closed automatically
+ * once the last element is read. Reading errors are thrown as a
+ * {@link com.google.gson.JsonIOException} or, for malformed messages, as a
+ * {@link com.google.gson.JsonSyntaxException}.
+ * 
+ * @author Pedro Cruz
+ *
+ * @param <T> the type of the elements.
+ */
+public class POIIterator<T extends POI> implements Iterator<T>, Closeable {
+	private static final POIStreamDeserializer deserializer = new POIStreamDeserializer();
+
+	private final Reader in;
+	private final JsonReader reader;
+	private final String member;
+	private final Class<T> clazz;
+	private boolean started;
+	private boolean finished;
+
+	/*
+	 * Iterates over the array under the given member of the JSON object read
+	 * from the given reader.
+	 */
+	POIIterator(Reader in, String member, Class<T> clazz) {
+		this.in = in;
+		this.member = member;
+		this.clazz = clazz;
+		if (in != null) {
+			reader = new JsonReader(in);
+			reader.setLenient(true);
+		} else {
+			reader = null;
+			finished = true;
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (finished)
+			return false;
+
+		try {
+			if (!started) {
+				started = true;
+				if (!seek()) {
+					close();
+					return false;
+				}
+			}
+
+			if (reader.hasNext())
+				return true;
+
+			reader.endArray();
+			close();
+			return false;
+		} catch (IOException e) {
+			throw failure(e);
+		} catch (IllegalStateException e) {
+			throw failure(e);
+		}
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+
+		try {
+			T poi = POIStreamDeserializer.newPOI(clazz);
+			deserializer.readSinglePOI(reader, poi);
+			return poi;
+		} catch (IOException e) {
+			throw failure(e);
+		} catch (IllegalStateException e) {
+			throw failure(e);
+		}
+	}
+
+	/**
+	 * Not supported.
+	 */
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Closes the underlying reader. No more elements will be returned.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (in != null)
+			in.close();
+
+		finished = true;
+	}
+
+	/*
+	 * Skips the members of the message until the beginning of the array with
+	 * the elements. Returns false if there is no such array.
+	 */
+	private boolean seek() throws IOException {
+		try {
+			if (reader.peek() != JsonToken.BEGIN_OBJECT)
+				return false;
+		} catch (EOFException e) {
+			return false;
+		}
+
+		reader.beginObject();
+		while (reader.hasNext()) {
+			if (member.equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+				reader.beginArray();
+				return true;
+			}
+
+			reader.skipValue();
+		}
+
+		return false;
+	}
+
+	/*
+	 * Closes the iterator and wraps the given error.
+	 */
+	private RuntimeException failure(Exception e) {
+		try {
+			close();
+		} catch (IOException ignored) {
+		}
+
+		if (e instanceof MalformedJsonException || e instanceof IllegalStateException)
+			return new JsonSyntaxException(e);
+
+		return new JsonIOException(e);
+	}
+}
@@ -0,0 +1,657 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.parser;
+
+import static citysdk.tourism.client.parser.POIDeserializer.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import citysdk.tourism.client.poi.Deserializable;
+import citysdk.tourism.client.poi.base.Geometry;
+import citysdk.tourism.client.poi.base.Line;
+import citysdk.tourism.client.poi.base.Location;
+import citysdk.tourism.client.poi.base.POIBaseType;
+import citysdk.tourism.client.poi.base.POITermType;
+import citysdk.tourism.client.poi.base.Point;
+import citysdk.tourism.client.poi.base.Polygon;
+import citysdk.tourism.client.poi.base.Relationship;
+import citysdk.tourism.client.poi.lists.ListEvent;
+import citysdk.tourism.client.poi.lists.ListPOIS;
+import citysdk.tourism.client.poi.lists.ListPointOfInterest;
+import citysdk.tourism.client.poi.lists.ListRoute;
+import citysdk.tourism.client.poi.lists.ListTag;
+import citysdk.tourism.client.poi.lists.Resources;
+import citysdk.tourism.client.poi.single.Category;
+import citysdk.tourism.client.poi.single.Event;
+import citysdk.tourism.client.poi.single.Hypermedia;
+import citysdk.tourism.client.poi.single.HypermediaLink;
+import citysdk.tourism.client.poi.single.POI;
+import citysdk.tourism.client.poi.single.PointOfInterest;
+import citysdk.tourism.client.poi.single.Route;
+import citysdk.tourism.client.poi.single.Tag;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Token-streaming deserializer for the message formats involved in the
+ * CitySDK Tourism WP. It fills the objects directly from a
+ * {@link com.google.gson.stream.JsonReader}, without building the
+ * intermediate JSON tree used by {@link POIDeserializer}, and produces the
+ * same objects as the latter.
+ * <p>
+ * Instances hold no state and can be shared by several threads.
+ * 
+ * @author Pedro Cruz
+ * 
+ */
+public class POIStreamDeserializer {
+	private static final int CREATED_DATE = 0;
+	private static final int UPDATED_DATE = 1;
+	private static final int DELETED_DATE = 2;
+
+	/**
+	 * Deserializes the UTF-8 JSON message read from the given stream as the
+	 * given class. The stream is not closed.
+	 * @param in the stream containing the JSON message.
+	 * @param clazz the class of the object described by the JSON message.
+	 * @return an object of the given class containing the content of the JSON message.
+	 * @throws IOException if the stream could not be read or the JSON is malformed.
+	 */
+	public <T extends Deserializable> T deserialize(InputStream in, Class<T> clazz) throws IOException {
+		return deserialize(new InputStreamReader(in, "UTF-8"), clazz);
+	}
+
+	/**
+	 * Deserializes the JSON message read from the given reader as the given
+	 * class. The reader is not closed.
+	 * @param in the reader containing the JSON message.
+	 * @param clazz the class of the object described by the JSON message.
+	 * @return an object of the given class containing the content of the JSON message.
+	 * @throws IOException if the reader could not be read or the JSON is malformed.
+	 */
+	public <T extends Deserializable> T deserialize(Reader in, Class<T> clazz) throws IOException {
+		JsonReader reader = new JsonReader(in);
+		reader.setLenient(true);
+		try {
+			reader.peek();
+		} catch (EOFException e) {
+			// an empty document, as with Gson
+			return null;
+		}
+
+		if (reader.peek() == JsonToken.NULL) {
+			reader.nextNull();
+			return null;
+		}
+
+		Deserializable deserializable;
+		if (clazz == ListPOIS.class) {
+			deserializable = readListOfLists(reader);
+		} else if (clazz == ListPointOfInterest.class) {
+			deserializable = readList(reader, new ListPointOfInterest(), new ListPointOfInterest(), POI);
+		} else if (clazz == ListEvent.class) {
+			deserializable = readList(reader, new ListEvent(), new ListEvent(), EVENT);
+		} else if (clazz == ListRoute.class) {
+			deserializable = readList(reader, new ListRoute(), new ListRoute(), ROUTES);
+		} else if (clazz == ListTag.class) {
+			deserializable = readList(reader, new ListTag(), new ListTag(), TAGS);
+		} else if (clazz == Category.class) {
+			deserializable = readList(reader, new Category(), new Category(), CATEGORIES);
+		} else if (clazz == Resources.class) {
+			deserializable = readResources(reader);
+		} else {
+			deserializable = newPOI(clazz);
+			readSinglePOI(reader, (POI) deserializable);
+		}
+
+		return clazz.cast(deserializable);
+	}
+
+	/*
+	 * Creates an empty object of one of the single POI classes. The set of
+	 * classes is closed, so they are built directly instead of reflectively.
+	 */
+	static <T extends Deserializable> T newPOI(Class<T> clazz) {
+		POI poi;
+		if (clazz == PointOfInterest.class)
+			poi = new PointOfInterest();
+		else if (clazz == Event.class)
+			poi = new Event();
+		else if (clazz == Route.class)
+			poi = new Route();
+		else if (clazz == POI.class)
+			poi = new POI();
+		else
+			throw new IllegalArgumentException("Cannot deserialize " + clazz);
+
+		return clazz.cast(poi);
+	}
+
+	/*
+	 * Reads a top-level listing. As in the tree deserializer, the items under
+	 * the given member are added to the list and the remaining members are
+	 * ignored; when there is no such member the object is read as a single POI.
+	 */
+	private POI readList(JsonReader reader, POI list, POI single, String member) throws IOException {
+		boolean found = false;
+		String[] dates = new String[3];
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if (member.equals(name)) {
+				found = true;
+				readItems(reader, list, member);
+			} else if (!readPOIField(reader, name, single, dates)) {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		if (found)
+			return list;
+
+		setDates(single, dates[CREATED_DATE], dates[UPDATED_DATE], dates[DELETED_DATE]);
+		return single;
+	}
+
+	/*
+	 * Reads the array of items of a listing.
+	 */
+	private void readItems(JsonReader reader, POI list, String member) throws IOException {
+		reader.beginArray();
+		while (reader.hasNext()) {
+			if (list instanceof ListPointOfInterest) {
+				PointOfInterest poi = new PointOfInterest();
+				readSinglePOI(reader, poi);
+				((ListPointOfInterest) list).addPoi(poi);
+			} else if (list instanceof ListEvent) {
+				Event event = new Event();
+				readSinglePOI(reader, event);
+				((ListEvent) list).addEvent(event);
+			} else if (list instanceof ListRoute) {
+				Route route = new Route();
+				readSinglePOI(reader, route);
+				((ListRoute) list).addRoute(route);
+			} else if (list instanceof ListTag) {
+				((ListTag) list).addTag(readTag(reader));
+			} else {
+				((Category) list).addCategory(readCategory(reader));
+			}
+		}
+		reader.endArray();
+	}
+
+	/*
+	 * Reads a list of lists, containing points of interest, events and routes.
+	 */
+	private ListPOIS readListOfLists(JsonReader reader) throws IOException {
+		ListPOIS list = new ListPOIS();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if (POI.equals(name)) {
+				ListPointOfInterest pois = new ListPointOfInterest();
+				readItems(reader, pois, name);
+				list.setListPoi(pois);
+			} else if (EVENT.equals(name)) {
+				ListEvent events = new ListEvent();
+				readItems(reader, events, name);
+				list.setListEvent(events);
+			} else if (ROUTES.equals(name)) {
+				ListRoute routes = new ListRoute();
+				readItems(reader, routes, name);
+				list.setListRoute(routes);
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		return list;
+	}
+
+	/*
+	 * Reads the resources description of a server.
+	 */
+	private Resources readResources(JsonReader reader) throws IOException {
+		Resources resources = new Resources();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			if (TOURISM.equals(reader.nextName())) {
+				reader.beginArray();
+				while (reader.hasNext())
+					resources.addResource(readResource(reader));
+				reader.endArray();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		return resources;
+	}
+
+	/*
+	 * Reads a single version of the resources and its links.
+	 */
+	private HypermediaLink readResource(JsonReader reader) throws IOException {
+		HypermediaLink hypermediaLink = new HypermediaLink();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if (VERSION.equals(name)) {
+				hypermediaLink.setVersion(readString(reader));
+			} else if (_LINK.equals(name)) {
+				reader.beginObject();
+				while (reader.hasNext()) {
+					String media = reader.nextName();
+					hypermediaLink.addHypermedia(media, readHypermedia(reader));
+				}
+				reader.endObject();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		return hypermediaLink;
+	}
+
+	/*
+	 * Reads a single link of a resource.
+	 */
+	private Hypermedia readHypermedia(JsonReader reader) throws IOException {
+		Hypermedia link = new Hypermedia();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if (HREF.equals(name)) {
+				link.setHref(readString(reader));
+			} else if (TEMPLATED.equals(name)) {
+				link.setTemplated(readBoolean(reader));
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		return link;
+	}
+
+	/*
+	 * Reads a category and, recursively, its sub-categories.
+	 */
+	private Category readCategory(JsonReader reader) throws IOException {
+		Category category = new Category();
+		String[] dates = new String[3];
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if (CATEGORIES.equals(name)) {
+				reader.beginArray();
+				while (reader.hasNext())
+					category.addCategory(readCategory(reader));
+				reader.endArray();
+			} else if (!readPOIField(reader, name, category, dates)) {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		setDates(category, dates[CREATED_DATE], dates[UPDATED_DATE], dates[DELETED_DATE]);
+		return category;
+	}
+
+	/*
+	 * Reads a group of tags. Only its tag member is read.
+	 */
+	private Tag readTag(JsonReader reader) throws IOException {
+		Tag tag = new Tag();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			if (TAG.equals(reader.nextName())) {
+				reader.beginArray();
+				while (reader.hasNext()) {
+					Tag single = new Tag();
+					readSinglePOI(reader, single);
+					tag.addTag(single);
+				}
+				reader.endArray();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		return tag;
+	}
+
+	/*
+	 * Reads a POI, Event or Route. The pois member is only read for routes.
+	 */
+	void readSinglePOI(JsonReader reader, POI poi) throws IOException {
+		String[] dates = new String[3];
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if (poi instanceof Route && POIS.equals(name)) {
+				ListPointOfInterest list = ((Route) poi).getListPoi();
+				reader.beginArray();
+				while (reader.hasNext()) {
+					PointOfInterest rPoi = new PointOfInterest();
+					readSinglePOI(reader, rPoi);
+					list.addPoi(rPoi);
+				}
+				reader.endArray();
+			} else if (!readPOIField(reader, name, poi, dates)) {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		setDates(poi, dates[CREATED_DATE], dates[UPDATED_DATE], dates[DELETED_DATE]);
+	}
+
+	/*
+	 * Reads the member with the given name unto the POI, if it is one of the
+	 * members of a POI, Event or Route.
+	 */
+	private boolean readPOIField(JsonReader reader, String name, POI poi, String[] dates)
+			throws IOException {
+		if (readBaseField(reader, name, poi, dates))
+			return true;
+
+		if (reader.peek() == JsonToken.NULL) {
+			if (!LABEL.equals(name) && !DESCRIPTION.equals(name) && !CATEGORY.equals(name)
+					&& !LOCATION.equals(name) && !TIME.equals(name) && !LINK.equals(name))
+				return false;
+
+			reader.nextNull();
+			return true;
+		}
+
+		if (LABEL.equals(name)) {
+			reader.beginArray();
+			while (reader.hasNext())
+				poi.addLabel(readTermType(reader, new POITermType(), false));
+			reader.endArray();
+		} else if (DESCRIPTION.equals(name)) {
+			reader.beginArray();
+			while (reader.hasNext())
+				poi.addDescription(readBaseType(reader));
+			reader.endArray();
+		} else if (CATEGORY.equals(name)) {
+			reader.beginArray();
+			while (reader.hasNext())
+				poi.addCategory(readTermType(reader, new POITermType(), false));
+			reader.endArray();
+		} else if (LOCATION.equals(name)) {
+			poi.setLocation(readLocation(reader));
+		} else if (TIME.equals(name)) {
+			reader.beginArray();
+			while (reader.hasNext())
+				poi.addTime(readTermType(reader, new POITermType(), true));
+			reader.endArray();
+		} else if (LINK.equals(name)) {
+			reader.beginArray();
+			while (reader.hasNext())
+				poi.addLink(readTermType(reader, new POITermType(), false));
+			reader.endArray();
+		} else {
+			return false;
+		}
+
+		return true;
+	}
+
+	/*
+	 * Reads the member with the given name unto the base type, if it is one of
+	 * the members of a POIBaseType. Timestamps are kept in the given array and
+	 * only parsed once the object is read, as the tree deserializer does.
+	 */
+	private boolean readBaseField(JsonReader reader, String name, POIBaseType base, String[] dates)
+			throws IOException {
+		int date = -1;
+		if (CREATED.equals(name))
+			date = CREATED_DATE;
+		else if (UPDATED.equals(name))
+			date = UPDATED_DATE;
+		else if (DELETED.equals(name))
+			date = DELETED_DATE;
+
+		if (date >= 0) {
+			dates[date] = readString(reader);
+			return true;
+		}
+
+		if (AUTHOR.equals(name) || LICENSE.equals(name)) {
+			if (reader.peek() == JsonToken.NULL) {
+				reader.nextNull();
+			} else if (AUTHOR.equals(name)) {
+				base.setAuthor(readTermType(reader, new POITermType(), false));
+			} else {
+				base.setLicense(readTermType(reader, new POITermType(), false));
+			}
+
+			return true;
+		}
+
+		if (!ID.equals(name) && !VALUE.equals(name) && !HREF.equals(name)
+				&& !TYPE.equals(name) && !LANG.equals(name) && !BASE.equals(name))
+			return false;
+
+		String value = readString(reader);
+		if (value == null)
+			return true;
+
+		if (ID.equals(name))
+			base.setId(value);
+		else if (VALUE.equals(name))
+			base.setValue(value);
+		else if (HREF.equals(name))
+			base.setHref(value);
+		else if (TYPE.equals(name))
+			base.setType(value);
+		else if (LANG.equals(name))
+			base.setLang(value);
+		else
+			base.setBase(value);
+
+		return true;
+	}
+
+	/*
+	 * Reads a POIBaseType object.
+	 */
+	private POIBaseType readBaseType(JsonReader reader) throws IOException {
+		POIBaseType base = new POIBaseType();
+		String[] dates = new String[3];
+		reader.beginObject();
+		while (reader.hasNext()) {
+			if (!readBaseField(reader, reader.nextName(), base, dates))
+				reader.skipValue();
+		}
+		reader.endObject();
+
+		setDates(base, dates[CREATED_DATE], dates[UPDATED_DATE], dates[DELETED_DATE]);
+		return base;
+	}
+
+	/*
+	 * Reads a POITermType object. The scheme is only read for times.
+	 */
+	private POITermType readTermType(JsonReader reader, POITermType term, boolean scheme)
+			throws IOException {
+		String[] dates = new String[3];
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if (TERM.equals(name)) {
+				String value = readString(reader);
+				if (value != null)
+					term.setTerm(value);
+			} else if (scheme && SCHEME.equals(name)) {
+				term.setScheme(readString(reader));
+			} else if (!readBaseField(reader, name, term, dates)) {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		setDates(term, dates[CREATED_DATE], dates[UPDATED_DATE], dates[DELETED_DATE]);
+		return term;
+	}
+
+	/*
+	 * Reads the location of a POI: its points, lines, polygons, address and
+	 * relationships.
+	 */
+	private Location readLocation(JsonReader reader) throws IOException {
+		Location location = new Location();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if (reader.peek() == JsonToken.NULL) {
+				reader.nextNull();
+			} else if (POINT.equals(name)) {
+				reader.beginArray();
+				while (reader.hasNext()) {
+					Point point = new Point();
+					point.setPoint(readGeometry(reader, point, POINT_P));
+					location.addPoint(point);
+				}
+				reader.endArray();
+			} else if (LINE.equals(name)) {
+				reader.beginArray();
+				while (reader.hasNext()) {
+					Line line = new Line();
+					line.setLineString(readGeometry(reader, line, LINE_STRING));
+					location.addLine(line);
+				}
+				reader.endArray();
+			} else if (POLYGON.equals(name)) {
+				reader.beginArray();
+				while (reader.hasNext()) {
+					Polygon polygon = new Polygon();
+					polygon.setSimplePolygon(readGeometry(reader, polygon, SIMPLE_POLYGON));
+					location.addPolygon(polygon);
+				}
+				reader.endArray();
+			} else if (ADDRESS.equals(name)) {
+				location.setAddress(readBaseType(reader));
+			} else if (RELATIONSHIP.equals(name)) {
+				reader.beginArray();
+				while (reader.hasNext())
+					location.addRelationship(readRelationship(reader));
+				reader.endArray();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		return location;
+	}
+
+	/*
+	 * Reads a point, line or polygon entry: its term and the posList of the
+	 * geometry under the given member.
+	 */
+	private Geometry readGeometry(JsonReader reader, POITermType term, String member)
+			throws IOException {
+		Geometry geometry = new Geometry();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if (TERM.equals(name)) {
+				term.setTerm(readString(reader));
+			} else if (member.equals(name)) {
+				reader.beginObject();
+				while (reader.hasNext()) {
+					if (POS_LIST.equals(reader.nextName()))
+						geometry.setPosList(readString(reader));
+					else
+						reader.skipValue();
+				}
+				reader.endObject();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		return geometry;
+	}
+
+	/*
+	 * Reads a relationship: its term, base and targets.
+	 */
+	private Relationship readRelationship(JsonReader reader) throws IOException {
+		Relationship relationship = new Relationship();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if (TERM.equals(name))
+				relationship.setTerm(readString(reader));
+			else if (BASE.equals(name))
+				relationship.setBase(readString(reader));
+			else if (TARGET_POI.equals(name))
+				relationship.setTargetPOI(readString(reader));
+			else if (TARGET_EVENT.equals(name))
+				relationship.setTargetEvent(readString(reader));
+			else
+				reader.skipValue();
+		}
+		reader.endObject();
+
+		return relationship;
+	}
+
+	/*
+	 * Reads a primitive value as a String, or null for a JSON null.
+	 */
+	private static String readString(JsonReader reader) throws IOException {
+		JsonToken token = reader.peek();
+		if (token == JsonToken.NULL) {
+			reader.nextNull();
+			return null;
+		} else if (token == JsonToken.BOOLEAN) {
+			return Boolean.toString(reader.nextBoolean());
+		}
+
+		return reader.nextString();
+	}
+
+	/*
+	 * Reads a primitive value as a boolean.
+	 */
+	private static boolean readBoolean(JsonReader reader) throws IOException {
+		if (reader.peek() == JsonToken.BOOLEAN)
+			return reader.nextBoolean();
+
+		return Boolean.parseBoolean(readString(reader));
+	}
+}
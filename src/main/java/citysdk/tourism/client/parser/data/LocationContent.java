@@ -21,25 +21,55 @@
 package citysdk.tourism.client.parser.data;
 
 /**
- * Container of a location.
+ * Container of a location. The coordinates are kept as numbers, and the 
+ * text getters give their decimal representation.
  * 
  * @author Pedro Cruz
  *
  */
 public class LocationContent {
-	private String latitude;
-	private String longitude;
+	private final double latitude;
+	private final double longitude;
 	
-	public LocationContent(String latitude, String longitude) {
+	public LocationContent(double latitude, double longitude) {
 		this.latitude = latitude;
 		this.longitude = longitude;
 	}
 	
+	/**
+	 * Parses the given coordinates. Values that are not numbers are kept as 
+	 * {@link Double#NaN}.
+	 * @param latitude the latitude
+	 * @param longitude the longitude
+	 */
+	public LocationContent(String latitude, String longitude) {
+		this(parse(latitude), parse(longitude));
+	}
+	
 	public String getLatitude() {
-		return latitude;
+		return Double.toString(latitude);
 	}
 
 	public String getLongitude() {
+		return Double.toString(longitude);
+	}
+	
+	public double getLatitudeValue() {
+		return latitude;
+	}
+	
+	public double getLongitudeValue() {
 		return longitude;
 	}
+	
+	private static double parse(String value) {
+		if (value == null)
+			return Double.NaN;
+
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			return Double.NaN;
+		}
+	}
 }
@@ -32,6 +32,10 @@ public class PointContent implements GeometryContent {
 	public PointContent(String latitude, String longitude) {
 		location = new LocationContent(latitude, longitude);
 	}
+	
+	public PointContent(double latitude, double longitude) {
+		location = new LocationContent(latitude, longitude);
+	}
 
 	@Override
 	public int getNumGeo() {
@@ -0,0 +1,254 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.poi;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Estimates the heap retained by the objects of the model, such as a 
+ * {@link citysdk.tourism.client.poi.single.PointOfInterest} or a whole 
+ * {@link citysdk.tourism.client.poi.lists.ListPointOfInterest}.
+ * 
+ * <p>The estimate walks the object graph, counting each object once, and assumes 
+ * the layout of a 64-bit HotSpot VM with compressed references: a 12 byte object 
+ * header, 16 byte array header, 4 byte references and 8 byte alignment. Strings 
+ * are counted as UTF-16 characters, collections and maps through their elements, 
+ * and any other object of the Java platform (such as a {@link java.util.Date}) 
+ * by its own fields only. Enum constants and classes are shared by every 
+ * instance and are not counted.</p>
+ * 
+ * <p>The values are meant for comparing representations and finding the cost per 
+ * {@link POI}, not as an exact measure of a particular VM.</p>
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public final class MemoryFootprint {
+	private static final int OBJECT_HEADER = 12;
+	private static final int ARRAY_HEADER = 16;
+	private static final int REFERENCE = 4;
+	private static final int ALIGNMENT = 8;
+	private static final int MAP_ENTRY = 32;
+	private static final ConcurrentMap<Class<?>, Layout> LAYOUTS = new ConcurrentHashMap<Class<?>, Layout>();
+
+	private MemoryFootprint() {
+	}
+
+	/**
+	 * Estimates the number of bytes retained by the given object and every 
+	 * object reachable from it.
+	 * 
+	 * @param root
+	 *            the object to measure.
+	 * @return the estimated size, in bytes, or 0 if <code>root</code> is <code>null</code>.
+	 */
+	public static long estimate(Object root) {
+		return walk(root, new IdentityHashMap<Object, Boolean>());
+	}
+
+	/**
+	 * Estimates the average number of bytes retained by each element of the 
+	 * given collection. Objects shared between elements, such as the same 
+	 * string or category, are counted only once, so this is the cost of 
+	 * keeping each element of a list in memory.
+	 * 
+	 * @param elements
+	 *            the elements to measure.
+	 * @return the estimated size per element, in bytes, or 0 if there are none.
+	 */
+	public static long estimatePerElement(Collection<?> elements) {
+		if (elements == null || elements.isEmpty())
+			return 0;
+
+		Map<Object, Boolean> visited = new IdentityHashMap<Object, Boolean>();
+		long size = 0;
+		for (Object element : elements)
+			size += walk(element, visited);
+
+		return size / elements.size();
+	}
+
+	private static long walk(Object root, Map<Object, Boolean> visited) {
+		Deque<Object> pending = new ArrayDeque<Object>();
+		if (root != null)
+			pending.push(root);
+
+		long size = 0;
+		while (!pending.isEmpty()) {
+			Object object = pending.pop();
+			if (visited.put(object, Boolean.TRUE) != null || isShared(object))
+				continue;
+
+			size += measure(object, pending);
+		}
+
+		return size;
+	}
+
+	private static boolean isShared(Object object) {
+		return object instanceof Class || object instanceof Enum;
+	}
+
+	/*
+	 * Gets the size of the object alone and queues the objects it refers to.
+	 */
+	private static long measure(Object object, Deque<Object> pending) {
+		Class<?> clazz = object.getClass();
+		if (clazz.isArray())
+			return measureArray(object, clazz.getComponentType(), pending);
+
+		Layout layout = layout(clazz);
+		if (object instanceof String)
+			return layout.size + align(ARRAY_HEADER + 2L * ((String) object).length());
+
+		if (object instanceof Collection && isPlatform(clazz)) {
+			Collection<?> collection = (Collection<?>) object;
+			for (Object element : collection)
+				push(pending, element);
+
+			return layout.size + align(ARRAY_HEADER + (long) REFERENCE * collection.size());
+		}
+
+		if (object instanceof Map && isPlatform(clazz)) {
+			Map<?, ?> map = (Map<?, ?>) object;
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				push(pending, entry.getKey());
+				push(pending, entry.getValue());
+			}
+
+			return layout.size + align(ARRAY_HEADER + (long) REFERENCE * capacity(map.size()))
+					+ (long) MAP_ENTRY * map.size();
+		}
+
+		for (Field field : layout.references) {
+			try {
+				push(pending, field.get(object));
+			} catch (IllegalAccessException e) {
+				// the layout only keeps the fields that were made accessible
+			}
+		}
+
+		return layout.size;
+	}
+
+	private static long measureArray(Object array, Class<?> component, Deque<Object> pending) {
+		int length = Array.getLength(array);
+		if (!component.isPrimitive()) {
+			for (Object element : (Object[]) array)
+				push(pending, element);
+		}
+
+		return align(ARRAY_HEADER + (long) sizeOf(component) * length);
+	}
+
+	private static void push(Deque<Object> pending, Object object) {
+		if (object != null)
+			pending.push(object);
+	}
+
+	/*
+	 * Gets the number of buckets a hash table needs for the given number of 
+	 * entries with the default load factor.
+	 */
+	private static int capacity(int size) {
+		int capacity = 16;
+		while (capacity * 3 < size * 4)
+			capacity <<= 1;
+
+		return capacity;
+	}
+
+	private static long align(long size) {
+		return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+	}
+
+	private static int sizeOf(Class<?> type) {
+		if (type == long.class || type == double.class)
+			return 8;
+		else if (type == int.class || type == float.class)
+			return 4;
+		else if (type == short.class || type == char.class)
+			return 2;
+		else if (type == byte.class || type == boolean.class)
+			return 1;
+		else
+			return REFERENCE;
+	}
+
+	/*
+	 * The classes of the platform are measured by their fields but never 
+	 * followed through reflection, which newer runtimes do not allow.
+	 */
+	private static boolean isPlatform(Class<?> clazz) {
+		String name = clazz.getName();
+		return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("sun.");
+	}
+
+	private static Layout layout(Class<?> clazz) {
+		Layout layout = LAYOUTS.get(clazz);
+		if (layout == null) {
+			layout = new Layout(clazz);
+			LAYOUTS.putIfAbsent(clazz, layout);
+		}
+
+		return layout;
+	}
+
+	/*
+	 * The shallow size of the instances of a class and the reference fields 
+	 * to follow.
+	 */
+	private static final class Layout {
+		private final long size;
+		private final Field[] references;
+
+		Layout(Class<?> clazz) {
+			long fields = 0;
+			List<Field> references = new ArrayList<Field>();
+			for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+				for (Field field : c.getDeclaredFields()) {
+					if (Modifier.isStatic(field.getModifiers()))
+						continue;
+
+					fields += sizeOf(field.getType());
+					if (!field.getType().isPrimitive() && !isPlatform(c)) {
+						field.setAccessible(true);
+						references.add(field);
+					}
+				}
+			}
+
+			this.size = align(OBJECT_HEADER + fields);
+			this.references = references.toArray(new Field[references.size()]);
+		}
+	}
+}
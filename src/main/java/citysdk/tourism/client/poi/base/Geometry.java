@@ -20,22 +20,30 @@
  */
 package citysdk.tourism.client.poi.base;
 
+import java.util.Arrays;
+
 /**
  * Representation of the GML_CE_GEOMETRY class of the UML diagram found in:
  * <a href="http://www.w3.org/2010/POI/documents/Core/core-20111216.html#poi-data-model">http://www.w3.org/2010/POI/documents/Core/core-20111216.html#poi-data-model.</a>
  * 
  * <p>A {@link Geometry} is composed of one coordinate or a list of coordinates.</p>
  * 
+ * <p>The position list is parsed once, when it is set, into a packed array of 
+ * coordinate pairs that can be read through {@link #getLatitude(int)} and 
+ * {@link #getLongitude(int)} without splitting or parsing the text again.</p>
+ * 
  * @author Pedro Cruz
  *
  */
 public class Geometry {
 	private static final String srsName = "http://www.opengis.net/def/crs/EPSG/0/4326";
+	private static final double[] NO_COORDINATES = new double[0];
 	private String posList;
+	private double[] coordinates = NO_COORDINATES;
 	
 	/**
 	 * Gets the coordinates of the geometry. A base position list (a pair of coordinates)
-	 * will be in the format <longitude latitude>.
+	 * will be in the format <latitude longitude>, as in EPSG:4326.
 	 * @return postList the coordinates of the geometry.
 	 */
 	public String getPosList() {
@@ -44,10 +52,122 @@ public class Geometry {
 	
 	/**
 	 * Sets the given coordinates as the list of coordinates.
-	 * @param posList the list of coordinates. It should be in the form of <longitude latitude>.
+	 * @param posList the list of coordinates. It should be in the form of <latitude longitude>.
 	 */
 	public void setPosList(String posList) {
 		this.posList = posList;
+		this.coordinates = parse(posList);
+	}
+	
+	/**
+	 * Sets the list of coordinates together with the coordinates it was 
+	 * already parsed into, such as the ones kept in a 
+	 * {@link citysdk.tourism.client.snapshot.Snapshot}, without parsing it again.
+	 * The array is kept, not copied.
+	 * @param posList the list of coordinates.
+	 * @param coordinates the coordinates of the list, packed as consecutive 
+	 * pairs of <code>latitude, longitude</code>.
+	 * @throws IllegalArgumentException if there is an odd number of coordinates.
+	 */
+	public void setPosList(String posList, double[] coordinates) {
+		if (coordinates.length % 2 != 0)
+			throw new IllegalArgumentException("Coordinates should come in pairs");
+		
+		this.posList = posList;
+		this.coordinates = coordinates.length == 0 ? NO_COORDINATES : coordinates;
+	}
+	
+	/**
+	 * Checks whether the position list could be parsed into coordinates.
+	 * @return <code>true</code> if there is at least one pair of coordinates, <code>false</code> otherwise.
+	 */
+	public boolean hasCoordinates() {
+		return coordinates.length > 0;
+	}
+	
+	/**
+	 * Gets the number of coordinate pairs of the geometry.
+	 * @return the number of pairs, 0 if the position list is missing or malformed.
+	 */
+	public int getNumCoordinates() {
+		return coordinates.length / 2;
+	}
+	
+	/**
+	 * Gets the first value of the given coordinate pair.
+	 * @param index the index of the pair.
+	 * @return the latitude of the pair.
+	 * @throws IndexOutOfBoundsException if there is no pair with the given index.
+	 */
+	public double getLatitude(int index) {
+		return coordinates[checkIndex(index) * 2];
+	}
+	
+	/**
+	 * Gets the second value of the given coordinate pair.
+	 * @param index the index of the pair.
+	 * @return the longitude of the pair.
+	 * @throws IndexOutOfBoundsException if there is no pair with the given index.
+	 */
+	public double getLongitude(int index) {
+		return coordinates[checkIndex(index) * 2 + 1];
+	}
+	
+	/**
+	 * Gets a copy of the coordinates, packed as consecutive pairs of 
+	 * <code>latitude, longitude</code>.
+	 * @return the packed coordinates, empty if there are none.
+	 */
+	public double[] getCoordinates() {
+		return coordinates.clone();
+	}
+	
+	private int checkIndex(int index) {
+		if (index < 0 || index >= coordinates.length / 2)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + coordinates.length / 2);
+		
+		return index;
+	}
+	
+	/*
+	 * Parses a position list, with values separated by white space and 
+	 * optionally pairs separated by commas, into the packed coordinates. 
+	 * Lists that are missing, malformed or with an odd number of values 
+	 * have no coordinates.
+	 */
+	private static double[] parse(String posList) {
+		if (posList == null)
+			return NO_COORDINATES;
+		
+		int length = posList.length();
+		double[] values = new double[8];
+		int count = 0;
+		int i = 0;
+		while (i < length) {
+			char c = posList.charAt(i);
+			if (c == ',' || Character.isWhitespace(c)) {
+				i++;
+				continue;
+			}
+			
+			int start = i;
+			while (i < length && (c = posList.charAt(i)) != ',' && !Character.isWhitespace(c))
+				i++;
+			
+			if (count == values.length)
+				values = Arrays.copyOf(values, count * 2);
+			
+			try {
+				values[count++] = Double.parseDouble(posList.substring(start, i));
+			} catch (NumberFormatException e) {
+				return NO_COORDINATES;
+			}
+		}
+		
+		if (count == 0 || count % 2 != 0)
+			return NO_COORDINATES;
+		
+		return count == values.length ? values : Arrays.copyOf(values, count);
 	}
 	
 	/**
@@ -0,0 +1,190 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.poi.base;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An index of the language-dependent values of a {@link POIType}: its labels
+ * by language and term, its descriptions by language and type, and its 
+ * categories by language. Values without a language are indexed in the 
+ * language of the POI itself. When a language has several values for the
+ * same term or type, the first one is kept.
+ * 
+ * <p>Indexes are immutable and reflect the POI at the time they were built.
+ * They are built through {@link POIType#getLanguageIndex()}.</p>
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public final class LanguageIndex {
+	private static final int MAX_LOCALES = 1024;
+	private static final ConcurrentMap<String, Locale> locales = new ConcurrentHashMap<String, Locale>();
+
+	private final Map<String, Map<String, String>> labels;
+	private final Map<String, String> descriptions;
+	private final Map<String, Map<String, String>> types;
+	private final Map<String, String> anyLanguage;
+	private final Map<String, List<String>> categories;
+
+	LanguageIndex(POIType poi) {
+		String poiLang = toLocale(poi.getLang()).getLanguage();
+		labels = new HashMap<String, Map<String, String>>();
+		for (POITermType label : poi.getLabel())
+			put(labels, language(label, poiLang), label.getTerm(), label.getValue());
+
+		descriptions = new HashMap<String, String>();
+		types = new HashMap<String, Map<String, String>>();
+		anyLanguage = new HashMap<String, String>();
+		for (POIBaseType description : poi.getDescription()) {
+			String language = language(description, poiLang);
+			if (!descriptions.containsKey(language))
+				descriptions.put(language, description.getValue());
+
+			put(types, language, description.getType(), description.getValue());
+			if (!anyLanguage.containsKey(description.getType()))
+				anyLanguage.put(description.getType(), description.getValue());
+		}
+
+		categories = new HashMap<String, List<String>>();
+		for (POITermType category : poi.getCategory()) {
+			String language = language(category, poiLang);
+			List<String> values = categories.get(language);
+			if (values == null)
+				categories.put(language, values = new ArrayList<String>());
+			values.add(category.getValue());
+		}
+		for (Map.Entry<String, List<String>> entry : categories.entrySet())
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+	}
+
+	/**
+	 * Parses a language tag, such as <code>pt-PT</code> or <code>en_GB</code>, 
+	 * into a {@link Locale}. Parsed tags are cached, so each tag is only 
+	 * parsed once and the same {@link Locale} is returned for it.
+	 * 
+	 * @param tag the language tag.
+	 * @return the {@link Locale} of the tag.
+	 * @throws IllegalArgumentException if the tag has more than three parts.
+	 */
+	public static Locale toLocale(String tag) {
+		if (tag == null)
+			tag = "";
+
+		Locale locale = locales.get(tag);
+		if (locale == null) {
+			locale = parse(tag);
+			if (locales.size() < MAX_LOCALES) {
+				Locale previous = locales.putIfAbsent(tag, locale);
+				if (previous != null)
+					locale = previous;
+			}
+		}
+
+		return locale;
+	}
+
+	private static Locale parse(String tag) {
+		String[] parts = tag.replace('-', '_').split("_");
+		switch (parts.length) {
+		case 3:
+			return new Locale(parts[0], parts[1], parts[2]);
+		case 2:
+			return new Locale(parts[0], parts[1]);
+		case 1:
+			return new Locale(parts[0]);
+		default:
+			throw new IllegalArgumentException("Invalid locale: " + tag);
+		}
+	}
+
+	private static String language(POIBaseType value, String poiLang) {
+		String lang = value.getLang();
+		return lang == null || lang.equals("") ? poiLang : toLocale(lang).getLanguage();
+	}
+
+	private static void put(Map<String, Map<String, String>> index, String language,
+			String key, String value) {
+		Map<String, String> values = index.get(language);
+		if (values == null)
+			index.put(language, values = new HashMap<String, String>());
+
+		if (!values.containsKey(key))
+			values.put(key, value);
+	}
+
+	private static String get(Map<String, Map<String, String>> index, String language, String key) {
+		Map<String, String> values = index.get(language);
+		return values == null ? null : values.get(key);
+	}
+
+	/**
+	 * Gets the label with the given term in a language.
+	 * 
+	 * @param term the term of the label.
+	 * @param language the language code, as in {@link Locale#getLanguage()}.
+	 * @return the value of the label, or <code>null</code> if there is none.
+	 */
+	public String getLabel(String term, String language) {
+		return get(labels, language, term);
+	}
+
+	/**
+	 * Gets the first description in a language.
+	 * 
+	 * @param language the language code, as in {@link Locale#getLanguage()}.
+	 * @return the value of the description, or <code>null</code> if there is none.
+	 */
+	public String getDescription(String language) {
+		return descriptions.get(language);
+	}
+
+	/**
+	 * Gets the description with the given type in a language.
+	 * 
+	 * @param type the type of the description.
+	 * @param language the language code, as in {@link Locale#getLanguage()}, 
+	 * or <code>null</code> for any language.
+	 * @return the value of the description, or <code>null</code> if there is none.
+	 */
+	public String getDescription(String type, String language) {
+		return language == null ? anyLanguage.get(type) : get(types, language, type);
+	}
+
+	/**
+	 * Gets the categories in a language.
+	 * 
+	 * @param language the language code, as in {@link Locale#getLanguage()}.
+	 * @return an unmodifiable list with the categories, which is empty if there 
+	 * are none.
+	 */
+	public List<String> getCategories(String language) {
+		List<String> values = categories.get(language);
+		return values == null ? Collections.<String>emptyList() : values;
+	}
+}
@@ -31,7 +31,7 @@ import java.util.List;
  * <ul>
  * <li>a group of {@link Point}, {@link Line}, {@link Polygon} representing the {@link Location}'s Geometry (such as: entry/exit points);</li>
  * <li>a group of {@link Relationship} representing the relationship of this {@link Location} with other {@link citysdk.tourism.client.poi.single.PointOfInterest} or {@link citysdk.tourism.client.poi.single.Event};</li>
- * <li>address representing the civic address of the {@link Location} in vCard format.</li>
+ * <li>address representing the civic address of the {@link Location} in vCard format, if any.</li>
  * </ul>
  * 
  * @author Pedro Cruz
@@ -51,7 +51,7 @@ public class Location extends POIBaseType {
 		point = new ArrayList<Point>();
 		line = new ArrayList<Line>();
 		polygon = new ArrayList<Polygon>();
-		address = new POIBaseType();
+		address = null;
 		relationship = new ArrayList<Relationship>();
 	}
 	
@@ -121,7 +121,7 @@ public class Location extends POIBaseType {
 
 	/**
 	 * Gets the address of the {@link Location}.
-	 * @return the address of the {@link Location}.
+	 * @return the address of the {@link Location} or <code>null</code> if it has none.
 	 */
 	public POIBaseType getAddress() {
 		return address;
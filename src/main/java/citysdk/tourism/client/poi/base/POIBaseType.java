@@ -34,17 +34,26 @@ import java.util.Date;
  * <li>href - an absolute reference to the content type;</li>
  * <li>type - MIME type [<a href="http://www.ietf.org/rfc/rfc2046.txt">RFC2046</a>];</li>
  * <li>lang - language type[<a href="http://www.ietf.org/rfc/rfc3066.txt">RFC3066</a>];</li>
- * <li>created - time at which this POIBaseType was created;</li>
- * <li>updated - time at which this POIBaseType was updated;</li>
- * <li>deleted - time at which this POIBaseType was deleted;</li>
+ * <li>created - time at which this POIBaseType was created, or <code>null</code> if unknown;</li>
+ * <li>updated - time at which this POIBaseType was updated, or <code>null</code> if unknown;</li>
+ * <li>deleted - time at which this POIBaseType was deleted, or <code>null</code> if it was not;</li>
  * <li>author - the author of this POIBaseType. Represented by a {@link POITermType};</li>
  * <li>license - the license restrictions of this information. Represented by a {@link POITermType}.</li>
  * </ul>
  * 
+ * <p>Absent text fields all share the {@link #EMPTY} constant instead of a 
+ * new string each, and absent timestamps, author and license are kept as 
+ * <code>null</code>, so an empty instance costs no more than its own fields.</p>
+ * 
  * @author Pedro Cruz
  *
  */
 public class POIBaseType {
+	/**
+	 * The value of the text fields that were not set.
+	 */
+	public static final String EMPTY = "";
+	
 	private String id;
 	private String value;
 	private String href;
@@ -61,15 +70,15 @@ public class POIBaseType {
 	 * Creates an empty POIBaseType.
 	 */
 	public POIBaseType() {
-		id = new String("");
-		value = new String("");
-		href = new String("");
-		type = new String("");
-		lang = new String("");
-		base = new String("");
-		created = new Date();
-		updated = new Date();
-		deleted = new Date();
+		id = EMPTY;
+		value = EMPTY;
+		href = EMPTY;
+		type = EMPTY;
+		lang = EMPTY;
+		base = EMPTY;
+		created = null;
+		updated = null;
+		deleted = null;
 		author = null;
 		license = null;
 	}
@@ -44,8 +44,8 @@ public class POITermType extends POIBaseType {
 	
 	public POITermType() {
 		super();
-		term = new String("");
-		scheme = new String("");
+		term = EMPTY;
+		scheme = EMPTY;
 	}
 
 	public String getTerm() {
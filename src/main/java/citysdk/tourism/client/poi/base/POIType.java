@@ -50,6 +50,7 @@ public class POIType extends POIBaseType {
 	private List<POITermType> category;
 	private List<POITermType> time;
 	private List<POITermType> link;
+	private transient volatile LanguageIndex languageIndex;
 	
 	/**
 	 * Creates an empty POIType.
@@ -69,6 +70,7 @@ public class POIType extends POIBaseType {
 	 */
 	public void addCategory(POITermType category) {
 		this.category.add(category);
+		languageIndex = null;
 	}
 	
 	/**
@@ -77,6 +79,7 @@ public class POIType extends POIBaseType {
 	 */
 	public void addLabel(POITermType label) {
 		this.label.add(label);
+		languageIndex = null;
 	}
 	
 	/**
@@ -85,6 +88,7 @@ public class POIType extends POIBaseType {
 	 */
 	public void addDescription(POIBaseType description) {
 		this.description.add(description);
+		languageIndex = null;
 	}
 	
 	/**
@@ -143,6 +147,36 @@ public class POIType extends POIBaseType {
 		return category;
 	}
 	
+	/**
+	 * Gets the index of the labels, descriptions and categories of this 
+	 * object by language. The index is built on the first call and kept 
+	 * until a label, description or category is added or the language of 
+	 * this object is set. Changes made through the lists returned by 
+	 * {@link #getLabel()}, {@link #getDescription()} and 
+	 * {@link #getCategory()}, or to the values in them, are not seen by an 
+	 * index that was already built.
+	 * @return the {@link LanguageIndex} of this object.
+	 */
+	public LanguageIndex getLanguageIndex() {
+		LanguageIndex index = languageIndex;
+		if (index == null)
+			languageIndex = index = new LanguageIndex(this);
+
+		return index;
+	}
+
+	/**
+	 * Sets the language of the POIType. Values without a language of their
+	 * own are indexed in this language, so the language index is rebuilt
+	 * on its next use.
+	 * @param lang the language of the POIType.
+	 */
+	@Override
+	public void setLang(String lang) {
+		super.setLang(lang);
+		languageIndex = null;
+	}
+	
 	/**
 	 * Checks if there are labels in the POIType.
 	 * @return <code>true</code> if there are labels in the POIType, <code>false</code> otherwise
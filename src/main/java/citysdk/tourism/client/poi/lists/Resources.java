@@ -28,7 +28,7 @@ import java.util.Set;
 import citysdk.tourism.client.poi.Deserializable;
 import citysdk.tourism.client.poi.single.Hypermedia;
 import citysdk.tourism.client.poi.single.HypermediaLink;
-import citysdk.tourism.client.requests.uri.UriTemplate;
+import citysdk.tourism.client.requests.uri.CompiledUriTemplate;
 import citysdk.tourism.client.terms.ParameterTerms;
 import citysdk.tourism.client.terms.ResourceTerms;
 
@@ -117,7 +117,7 @@ public class Resources implements Deserializable {
 			Hypermedia hypermedia;
 			if ((hypermedia = links.get(resource.getTerm())) != null
 					&& hypermedia.isTemplated()) {
-				return UriTemplate.fromTemplate(hypermedia.getHref()).hasParameter(
+				return CompiledUriTemplate.compile(hypermedia.getHref()).hasParameter(
 						parameter.getTerm());
 			}
 		}
@@ -22,6 +22,7 @@ package citysdk.tourism.client.poi.single;
 
 import citysdk.tourism.client.poi.Deserializable;
 import citysdk.tourism.client.poi.base.Location;
+import citysdk.tourism.client.poi.base.POIBaseType;
 import citysdk.tourism.client.poi.base.POIType;
 
 /**
@@ -55,7 +56,9 @@ public class POI extends POIType implements Deserializable {
 	 * @return <code>true</code> if it has an address, <code>false</code> otherwise
 	 */
 	public boolean hasAddress() {
-		return (location.getAddress().getType() != null 
-				&& location.getAddress().getValue() != null);
+		POIBaseType address = (location == null ? null : location.getAddress());
+		return (address != null 
+				&& address.getType() != null
+				&& address.getValue() != null);
 	}
 }
@@ -0,0 +1,413 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.requests;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import citysdk.tourism.client.poi.lists.ListEvent;
+import citysdk.tourism.client.poi.lists.ListPOIS;
+import citysdk.tourism.client.poi.lists.ListPointOfInterest;
+import citysdk.tourism.client.poi.lists.ListRoute;
+import citysdk.tourism.client.poi.lists.ListTag;
+import citysdk.tourism.client.poi.single.Category;
+import citysdk.tourism.client.poi.single.Event;
+import citysdk.tourism.client.poi.single.POI;
+import citysdk.tourism.client.poi.single.PointOfInterest;
+import citysdk.tourism.client.poi.single.Route;
+import citysdk.tourism.client.terms.Term;
+
+/**
+ * Asynchronous version of the {@link TourismClient} stub. Each method submits
+ * the request to the given {@link Executor} and returns immediately with a
+ * {@link Future} of the result, allowing a single thread to issue many
+ * requests at once. The exceptions thrown by the {@link TourismClient} are
+ * given as the cause of the {@link java.util.concurrent.ExecutionException}
+ * thrown by {@link Future#get()}.
+ * 
+ * <p>Any {@link Executor} can be used. In JVMs supporting virtual threads, an
+ * executor creating a virtual thread per task avoids holding a platform 
+ * thread while waiting for the server.</p>
+ * 
+ * @author Pedro Cruz
+ * 
+ */
+public class AsyncTourismClient {
+	private final TourismClient client;
+	private final Executor executor;
+
+	/**
+	 * Creates an asynchronous stub for the given client. The version used is 
+	 * the one set in the client at the time of each request.
+	 * 
+	 * @param client
+	 *            the {@link TourismClient} performing the requests.
+	 * @param executor
+	 *            the {@link Executor} running the requests.
+	 */
+	public AsyncTourismClient(TourismClient client, Executor executor) {
+		if (client == null || executor == null)
+			throw new IllegalArgumentException("Client and executor cannot be null");
+
+		this.client = client;
+		this.executor = executor;
+	}
+
+	public TourismClient getClient() {
+		return client;
+	}
+
+	/**
+	 * Asynchronous version of {@link TourismClient#getPois(ParameterList)}.
+	 * 
+	 * @param parameterList
+	 *            the parameters that should be followed.
+	 * @return a {@link Future} of the
+	 *         {@link citysdk.tourism.client.poi.lists.ListPointOfInterest}.
+	 */
+	public Future<ListPointOfInterest> getPois(final ParameterList parameterList) {
+		return submit(new Callable<ListPointOfInterest>() {
+			@Override
+			public ListPointOfInterest call() throws Exception {
+				return client.getPois(parameterList);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous version of {@link TourismClient#getEvents(ParameterList)}.
+	 * 
+	 * @param parameterList
+	 *            the parameters that should be followed.
+	 * @return a {@link Future} of the
+	 *         {@link citysdk.tourism.client.poi.lists.ListEvent}.
+	 */
+	public Future<ListEvent> getEvents(final ParameterList parameterList) {
+		return submit(new Callable<ListEvent>() {
+			@Override
+			public ListEvent call() throws Exception {
+				return client.getEvents(parameterList);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous version of {@link TourismClient#getRoutes(ParameterList)}.
+	 * 
+	 * @param parameterList
+	 *            the parameters that should be followed.
+	 * @return a {@link Future} of the
+	 *         {@link citysdk.tourism.client.poi.lists.ListRoute}.
+	 */
+	public Future<ListRoute> getRoutes(final ParameterList parameterList) {
+		return submit(new Callable<ListRoute>() {
+			@Override
+			public ListRoute call() throws Exception {
+				return client.getRoutes(parameterList);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous version of
+	 * {@link TourismClient#getCategories(ParameterList)}.
+	 * 
+	 * @param list
+	 *            the parameters that should be followed.
+	 * @return a {@link Future} of the
+	 *         {@link citysdk.tourism.client.poi.single.Category}.
+	 */
+	public Future<Category> getCategories(final ParameterList list) {
+		return submit(new Callable<Category>() {
+			@Override
+			public Category call() throws Exception {
+				return client.getCategories(list);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous version of {@link TourismClient#getTags(ParameterList)}.
+	 * 
+	 * @param list
+	 *            the parameters that should be followed.
+	 * @return a {@link Future} of the
+	 *         {@link citysdk.tourism.client.poi.lists.ListTag}.
+	 */
+	public Future<ListTag> getTags(final ParameterList list) {
+		return submit(new Callable<ListTag>() {
+			@Override
+			public ListTag call() throws Exception {
+				return client.getTags(list);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous version of {@link TourismClient#getPoi(String, String)}.
+	 * 
+	 * @param poiBase
+	 *            the base URL of the POI.
+	 * @param poiId
+	 *            the ID of the POI.
+	 * @return a {@link Future} of the
+	 *         {@link citysdk.tourism.client.poi.single.PointOfInterest}.
+	 */
+	public Future<PointOfInterest> getPoi(final String poiBase, final String poiId) {
+		return submit(new Callable<PointOfInterest>() {
+			@Override
+			public PointOfInterest call() throws Exception {
+				return client.getPoi(poiBase, poiId);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous version of {@link TourismClient#getEvent(String, String)}.
+	 * 
+	 * @param eventBase
+	 *            the base URL of the Event.
+	 * @param eventId
+	 *            the ID of the Event.
+	 * @return a {@link Future} of the
+	 *         {@link citysdk.tourism.client.poi.single.Event}.
+	 */
+	public Future<Event> getEvent(final String eventBase, final String eventId) {
+		return submit(new Callable<Event>() {
+			@Override
+			public Event call() throws Exception {
+				return client.getEvent(eventBase, eventId);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous version of {@link TourismClient#getRoute(String, String)}.
+	 * 
+	 * @param routeBase
+	 *            the base URL of the Route.
+	 * @param routeId
+	 *            the ID of the Route.
+	 * @return a {@link Future} of the
+	 *         {@link citysdk.tourism.client.poi.single.Route}.
+	 */
+	public Future<Route> getRoute(final String routeBase, final String routeId) {
+		return submit(new Callable<Route>() {
+			@Override
+			public Route call() throws Exception {
+				return client.getRoute(routeBase, routeId);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous version of {@link TourismClient#getGeneric(String, String)}.
+	 * 
+	 * @param base
+	 *            the base URI of the POI object
+	 * @param id
+	 *            the id of the POI object
+	 * @return a {@link Future} of the generic POI object.
+	 */
+	public Future<POI> getGeneric(final String base, final String id) {
+		return submit(new Callable<POI>() {
+			@Override
+			public POI call() throws Exception {
+				return client.getGeneric(base, id);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous version of
+	 * {@link TourismClient#getPoiRelation(String, Term)}.
+	 * 
+	 * @param id
+	 *            the id of the poi to find the relations
+	 * @param relation
+	 *            the wanted relation with the poi
+	 * @return a {@link Future} of the
+	 *         {@link citysdk.tourism.client.poi.lists.ListPointOfInterest}.
+	 */
+	public Future<ListPointOfInterest> getPoiRelation(final String id, final Term relation) {
+		return submit(new Callable<ListPointOfInterest>() {
+			@Override
+			public ListPointOfInterest call() throws Exception {
+				return client.getPoiRelation(id, relation);
+			}
+		});
+	}
+
+	/**
+	 * Asynchronous version of
+	 * {@link TourismClient#getEventRelation(String, Term)}.
+	 * 
+	 * @param id
+	 *            the id of the event to find the relations
+	 * @param relation
+	 *            the wanted relation with the related event
+	 * @return a {@link Future} of the
+	 *         {@link citysdk.tourism.client.poi.lists.ListEvent}.
+	 */
+	public Future<ListEvent> getEventRelation(final String id, final Term relation) {
+		return submit(new Callable<ListEvent>() {
+			@Override
+			public ListEvent call() throws Exception {
+				return client.getEventRelation(id, relation);
+			}
+		});
+	}
+
+	/**
+	 * Version of {@link TourismClient#pagePois(ParameterList, int)} fetching
+	 * the pages in this stub's executor.
+	 * 
+	 * @param parameterList
+	 *            the parameters that should be followed.
+	 * @param pageSize
+	 *            the number of POIs requested in each page.
+	 * @return a {@link Pager} of
+	 *         {@link citysdk.tourism.client.poi.single.PointOfInterest}.
+	 */
+	public Pager<PointOfInterest> pagePois(ParameterList parameterList, int pageSize) {
+		return new Pager<PointOfInterest>(client.poiPages(), parameterList, pageSize, executor);
+	}
+
+	/**
+	 * Version of {@link TourismClient#pageEvents(ParameterList, int)} fetching
+	 * the pages in this stub's executor.
+	 * 
+	 * @param parameterList
+	 *            the parameters that should be followed.
+	 * @param pageSize
+	 *            the number of events requested in each page.
+	 * @return a {@link Pager} of
+	 *         {@link citysdk.tourism.client.poi.single.Event}.
+	 */
+	public Pager<Event> pageEvents(ParameterList parameterList, int pageSize) {
+		return new Pager<Event>(client.eventPages(), parameterList, pageSize, executor);
+	}
+
+	/**
+	 * Version of {@link TourismClient#pageRoutes(ParameterList, int)} fetching
+	 * the pages in this stub's executor.
+	 * 
+	 * @param parameterList
+	 *            the parameters that should be followed.
+	 * @param pageSize
+	 *            the number of routes requested in each page.
+	 * @return a {@link Pager} of
+	 *         {@link citysdk.tourism.client.poi.single.Route}.
+	 */
+	public Pager<Route> pageRoutes(ParameterList parameterList, int pageSize) {
+		return new Pager<Route>(client.routePages(), parameterList, pageSize, executor);
+	}
+
+	/**
+	 * Version of {@link TourismClient#bulkPois(ParameterList, int, int, boolean)}
+	 * fetching the pages in this stub's executor.
+	 * 
+	 * @param parameterList
+	 *            the parameters that should be followed.
+	 * @param pageSize
+	 *            the number of POIs requested in each page.
+	 * @param parallelism
+	 *            the maximum number of pages requested at once.
+	 * @param ordered
+	 *            <code>true</code> to return the POIs in offset order,
+	 *            <code>false</code> to return them as the pages arrive.
+	 * @return a {@link BulkFetcher} of
+	 *         {@link citysdk.tourism.client.poi.single.PointOfInterest}.
+	 */
+	public BulkFetcher<PointOfInterest> bulkPois(ParameterList parameterList, int pageSize,
+			int parallelism, boolean ordered) {
+		return new BulkFetcher<PointOfInterest>(client.poiPages(), parameterList, pageSize,
+				parallelism, ordered, executor);
+	}
+
+	/**
+	 * Version of {@link TourismClient#bulkEvents(ParameterList, int, int, boolean)}
+	 * fetching the pages in this stub's executor.
+	 * 
+	 * @param parameterList
+	 *            the parameters that should be followed.
+	 * @param pageSize
+	 *            the number of events requested in each page.
+	 * @param parallelism
+	 *            the maximum number of pages requested at once.
+	 * @param ordered
+	 *            <code>true</code> to return the events in offset order,
+	 *            <code>false</code> to return them as the pages arrive.
+	 * @return a {@link BulkFetcher} of
+	 *         {@link citysdk.tourism.client.poi.single.Event}.
+	 */
+	public BulkFetcher<Event> bulkEvents(ParameterList parameterList, int pageSize,
+			int parallelism, boolean ordered) {
+		return new BulkFetcher<Event>(client.eventPages(), parameterList, pageSize,
+				parallelism, ordered, executor);
+	}
+
+	/**
+	 * Version of {@link TourismClient#bulkRoutes(ParameterList, int, int, boolean)}
+	 * fetching the pages in this stub's executor.
+	 * 
+	 * @param parameterList
+	 *            the parameters that should be followed.
+	 * @param pageSize
+	 *            the number of routes requested in each page.
+	 * @param parallelism
+	 *            the maximum number of pages requested at once.
+	 * @param ordered
+	 *            <code>true</code> to return the routes in offset order,
+	 *            <code>false</code> to return them as the pages arrive.
+	 * @return a {@link BulkFetcher} of
+	 *         {@link citysdk.tourism.client.poi.single.Route}.
+	 */
+	public BulkFetcher<Route> bulkRoutes(ParameterList parameterList, int pageSize,
+			int parallelism, boolean ordered) {
+		return new BulkFetcher<Route>(client.routePages(), parameterList, pageSize,
+				parallelism, ordered, executor);
+	}
+
+	/**
+	 * Asynchronous version of {@link TourismClient#getByCode(String)}.
+	 * 
+	 * @param code
+	 *            a link to search for POI-based objects
+	 * @return a {@link Future} of all the POI-based objects matching the code.
+	 */
+	public Future<ListPOIS> getByCode(final String code) {
+		return submit(new Callable<ListPOIS>() {
+			@Override
+			public ListPOIS call() throws Exception {
+				return client.getByCode(code);
+			}
+		});
+	}
+
+	private <T> Future<T> submit(Callable<T> callable) {
+		FutureTask<T> task = new FutureTask<T>(callable);
+		executor.execute(task);
+		return task;
+	}
+}
@@ -0,0 +1,143 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.requests;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import citysdk.tourism.client.poi.Deserializable;
+import citysdk.tourism.client.requests.cache.ResponseCache;
+import citysdk.tourism.client.terms.ResourceTerms;
+
+/*
+ * Fetches the objects of several references with a bounded number of 
+ * requests at once. Repeated references are fetched only once, and each
+ * request goes through the cache and the coalescing of requests in flight
+ * like single requests do. The calling thread takes part in the fetching.
+ */
+final class BatchRequest<T extends Deserializable> {
+	private final ResponseCache cache;
+	private final ResourceTerms resource;
+	private final Class<T> clazz;
+	private final List<PoiRef> unique;
+	private final Object[] values;
+	private final Exception[] errors;
+	private final AtomicInteger next;
+	private volatile boolean cancelled;
+
+	private BatchRequest(ResponseCache cache, ResourceTerms resource, Class<T> clazz,
+			List<PoiRef> unique) {
+		this.cache = cache;
+		this.resource = resource;
+		this.clazz = clazz;
+		this.unique = unique;
+		this.values = new Object[unique.size()];
+		this.errors = new Exception[unique.size()];
+		this.next = new AtomicInteger();
+	}
+
+	static <T extends Deserializable> BatchResult<T> fetch(ResponseCache cache, ResourceTerms resource,
+			Class<T> clazz, Collection<PoiRef> refs, int parallelism, Executor executor)
+			throws InterruptedIOException {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("Parallelism must be positive");
+
+		List<PoiRef> input = new ArrayList<PoiRef>(refs);
+		Map<PoiRef, Integer> positions = new HashMap<PoiRef, Integer>();
+		List<PoiRef> unique = new ArrayList<PoiRef>();
+		for (PoiRef ref : input) {
+			if (!positions.containsKey(ref)) {
+				positions.put(ref, unique.size());
+				unique.add(ref);
+			}
+		}
+
+		BatchRequest<T> request = new BatchRequest<T>(cache, resource, clazz, unique);
+		request.run(Math.min(parallelism, unique.size()),
+				executor == null ? BackgroundExecutor.INSTANCE : executor);
+
+		List<T> values = new ArrayList<T>(input.size());
+		List<Exception> errors = new ArrayList<Exception>(input.size());
+		for (PoiRef ref : input) {
+			int position = positions.get(ref);
+			values.add(clazz.cast(request.values[position]));
+			errors.add(request.errors[position]);
+		}
+
+		return new BatchResult<T>(input, values, errors);
+	}
+
+	private void run(int workers, Executor executor) throws InterruptedIOException {
+		if (workers == 0)
+			return;
+
+		final CountDownLatch done = new CountDownLatch(workers - 1);
+		for (int i = 1; i < workers; i++) {
+			try {
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							work();
+						} finally {
+							done.countDown();
+						}
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				done.countDown();
+			}
+		}
+
+		work();
+		try {
+			done.await();
+		} catch (InterruptedException e) {
+			cancelled = true;
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while fetching " + unique.size() + " objects");
+		}
+	}
+
+	private void work() {
+		int i;
+		while (!cancelled && (i = next.getAndIncrement()) < unique.size()) {
+			try {
+				values[i] = TourismClient.query(cache, resource, unique.get(i).getUrl(), clazz);
+			} catch (Exception e) {
+				errors[i] = e;
+			} catch (Throwable t) {
+				// keep the slot from passing for a successful null value
+				errors[i] = new ExecutionException(t);
+				throw t;
+			}
+		}
+	}
+}
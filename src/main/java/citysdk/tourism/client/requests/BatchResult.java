@@ -0,0 +1,131 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.requests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of fetching several objects at once, such as with
+ * {@link TourismClient#getPoisByRef(java.util.Collection)}. Each requested 
+ * reference has either the fetched object or the exception thrown when
+ * fetching it, in the order the references were given.
+ * 
+ * @author Pedro Cruz
+ *
+ * @param <T> the type of the fetched objects.
+ */
+public class BatchResult<T> {
+	private final List<PoiRef> refs;
+	private final List<T> values;
+	private final List<Exception> errors;
+	private final int failures;
+
+	BatchResult(List<PoiRef> refs, List<T> values, List<Exception> errors) {
+		this.refs = Collections.unmodifiableList(refs);
+		this.values = Collections.unmodifiableList(values);
+		this.errors = Collections.unmodifiableList(errors);
+
+		int failures = 0;
+		for (Exception error : errors) {
+			if (error != null)
+				failures++;
+		}
+		this.failures = failures;
+	}
+
+	/**
+	 * Gets the number of requested references.
+	 * @return the number of references.
+	 */
+	public int size() {
+		return refs.size();
+	}
+
+	/**
+	 * Gets a requested reference.
+	 * @param i the position of the reference.
+	 * @return the reference.
+	 */
+	public PoiRef getRef(int i) {
+		return refs.get(i);
+	}
+
+	/**
+	 * Gets the object fetched for a reference.
+	 * @param i the position of the reference.
+	 * @return the object, or <code>null</code> if it could not be fetched.
+	 */
+	public T get(int i) {
+		return values.get(i);
+	}
+
+	/**
+	 * Gets the exception thrown when fetching the object of a reference.
+	 * @param i the position of the reference.
+	 * @return the exception, or <code>null</code> if the object was fetched.
+	 */
+	public Exception getError(int i) {
+		return errors.get(i);
+	}
+
+	/**
+	 * Checks whether the object of a reference was fetched.
+	 * @param i the position of the reference.
+	 * @return <code>true</code> if the object was fetched, <code>false</code>
+	 * otherwise.
+	 */
+	public boolean isSuccess(int i) {
+		return errors.get(i) == null;
+	}
+
+	/**
+	 * Checks whether any object could not be fetched.
+	 * @return <code>true</code> if there was at least one error.
+	 */
+	public boolean hasErrors() {
+		return failures > 0;
+	}
+
+	/**
+	 * Gets the number of objects that could not be fetched.
+	 * @return the number of errors.
+	 */
+	public int getErrorCount() {
+		return failures;
+	}
+
+	/**
+	 * Gets all the fetched objects, in the order of the references, leaving
+	 * out the ones that could not be fetched.
+	 * @return the fetched objects.
+	 */
+	public List<T> getValues() {
+		List<T> fetched = new ArrayList<T>(values.size());
+		for (int i = 0; i < values.size(); i++) {
+			if (errors.get(i) == null)
+				fetched.add(values.get(i));
+		}
+
+		return fetched;
+	}
+}
@@ -0,0 +1,323 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.requests;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+import citysdk.tourism.client.exceptions.PagingException;
+import citysdk.tourism.client.exceptions.ServerErrorException;
+
+/**
+ * Fetches all the pages of a listing (points of interest, events or routes)
+ * with several requests at once, using the
+ * {@link citysdk.tourism.client.terms.ParameterTerms#LIMIT} and
+ * {@link citysdk.tourism.client.terms.ParameterTerms#OFFSET} parameters. The
+ * elements are returned in offset order or, if so requested, in the order the
+ * pages arrive. The fetching stops once a page shorter than the page size is
+ * returned.
+ * 
+ * <p>At most the given number of pages are requested at once. The number of
+ * concurrent requests adapts to the server: it grows by one with each page
+ * fetched and is halved when a request fails, and the failed page is
+ * requested again after an exponentially growing delay. Pages failing with
+ * errors other than socket or server errors, or failing more than
+ * {@link #MAX_RETRIES} times, stop the fetching with a {@link PagingException}
+ * whose cause is the exception thrown by the request.</p>
+ * 
+ * <p>Fetchers are created by the {@link TourismClient} and the requests are
+ * only made while the elements are being read. A fetcher should be closed if
+ * it is not read until the end, cancelling the pending requests.</p>
+ * 
+ * @author Pedro Cruz
+ *
+ * @param <T> the type of the elements.
+ */
+public class BulkFetcher<T> implements Iterator<T>, Closeable {
+	/**
+	 * Number of times a page is requested again before giving up.
+	 */
+	public static final int MAX_RETRIES = 5;
+	private static final long INITIAL_BACKOFF = 250;
+	private static final long MAX_BACKOFF = 16000;
+
+	private final PageSource<T> source;
+	private final ParameterList parameterList;
+	private final int pageSize;
+	private final int maxParallelism;
+	private final boolean ordered;
+	private final int startOffset;
+	private final CompletionService<Page<T>> completion;
+	private final Map<Integer, Future<Page<T>>> running;
+	private final Map<Integer, List<T>> fetched;
+	private int parallelism;
+	private int nextPage;
+	private int lastPage;
+	private int nextOrderedPage;
+	private Iterator<T> current;
+	private boolean finished;
+	private int retries;
+
+	/*
+	 * Fetches the pages of the given source, starting at the offset of the
+	 * given parameters, if any, using a shared pool of daemon threads when no
+	 * executor is given. The workers only read a copy of the parameters, 
+	 * taken here.
+	 */
+	BulkFetcher(PageSource<T> source, ParameterList parameterList, int pageSize,
+			int maxParallelism, boolean ordered, Executor executor) {
+		if (pageSize <= 0 || maxParallelism <= 0)
+			throw new IllegalArgumentException("Page size and parallelism must be positive");
+
+		this.source = source;
+		this.parameterList = parameterList == null ? null : new ParameterList(parameterList);
+		this.pageSize = pageSize;
+		this.maxParallelism = maxParallelism;
+		this.ordered = ordered;
+		this.startOffset = Pager.getOffset(this.parameterList);
+		this.completion = new ExecutorCompletionService<Page<T>>(
+				executor != null ? executor : BackgroundExecutor.INSTANCE);
+		this.running = new HashMap<Integer, Future<Page<T>>>();
+		this.fetched = new HashMap<Integer, List<T>>();
+		this.parallelism = 1;
+		this.lastPage = Integer.MAX_VALUE;
+		this.current = Collections.<T>emptyList().iterator();
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	public int getMaxParallelism() {
+		return maxParallelism;
+	}
+
+	public boolean isOrdered() {
+		return ordered;
+	}
+
+	/**
+	 * Gets the current number of concurrent requests allowed.
+	 * @return the current parallelism, between 1 and the maximum parallelism.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Gets the number of pages requested again after failing.
+	 * @return the number of retries so far.
+	 */
+	public int getRetries() {
+		return retries;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!current.hasNext()) {
+			if (finished)
+				return false;
+
+			if (ordered) {
+				List<T> page = fetched.remove(nextOrderedPage);
+				if (page != null) {
+					nextOrderedPage++;
+					current = page.iterator();
+					continue;
+				}
+
+				if (nextOrderedPage > lastPage) {
+					close();
+					return false;
+				}
+			}
+
+			schedule();
+			if (running.isEmpty()) {
+				close();
+				return false;
+			}
+
+			receive();
+		}
+
+		return true;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+
+		return current.next();
+	}
+
+	/**
+	 * Not supported.
+	 */
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Stops the fetching, cancelling the pending requests.
+	 */
+	@Override
+	public void close() {
+		finished = true;
+		current = Collections.<T>emptyList().iterator();
+		fetched.clear();
+		for (Future<Page<T>> future : running.values())
+			future.cancel(true);
+		running.clear();
+	}
+
+	/*
+	 * Requests the following pages, as long as the current parallelism allows
+	 * it. When ordered, pages too far ahead of the one being read are not
+	 * requested, bounding the pages kept in memory.
+	 */
+	private void schedule() {
+		while (running.size() < parallelism && nextPage <= lastPage
+				&& (!ordered || nextPage - nextOrderedPage < 2 * maxParallelism)) {
+			submit(nextPage++, 0);
+		}
+	}
+
+	/*
+	 * Requests the given page, waiting for the backoff delay of the given
+	 * attempt first.
+	 */
+	private void submit(final int index, final int attempt) {
+		final long delay = attempt == 0 ? 0 : Math.min(MAX_BACKOFF, INITIAL_BACKOFF << (attempt - 1));
+		final int offset = startOffset + index * pageSize;
+		running.put(index, completion.submit(new Callable<Page<T>>() {
+			@Override
+			public Page<T> call() throws Exception {
+				if (delay > 0)
+					Thread.sleep(delay);
+
+				Page<T> page = new Page<T>(index, attempt);
+				try {
+					page.items = source.fetch(Pager.page(parameterList, pageSize, offset));
+				} catch (Exception e) {
+					page.error = e;
+				}
+
+				return page;
+			}
+		}));
+	}
+
+	/*
+	 * Waits for the next request to finish and handles its page.
+	 */
+	private void receive() {
+		Page<T> page;
+		try {
+			Future<Page<T>> future = completion.take();
+			try {
+				page = future.get();
+			} catch (CancellationException e) {
+				return;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			close();
+			throw new PagingException("Interrupted while fetching pages", e);
+		} catch (ExecutionException e) {
+			close();
+			throw new PagingException("Could not fetch pages", e.getCause());
+		}
+
+		running.remove(page.index);
+		if (page.index > lastPage)
+			return;
+
+		if (page.error != null) {
+			if (!isRetriable(page.error) || page.attempt >= MAX_RETRIES) {
+				close();
+				throw new PagingException("Could not fetch page at offset "
+						+ (startOffset + page.index * pageSize), page.error);
+			}
+
+			retries++;
+			parallelism = Math.max(1, parallelism / 2);
+			submit(page.index, page.attempt + 1);
+			return;
+		}
+
+		parallelism = Math.min(maxParallelism, parallelism + 1);
+		List<T> items = page.items != null ? page.items : Collections.<T>emptyList();
+		if (items.size() < pageSize && page.index < lastPage) {
+			lastPage = page.index;
+			Iterator<Map.Entry<Integer, Future<Page<T>>>> iterator = running.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<Integer, Future<Page<T>>> entry = iterator.next();
+				if (entry.getKey() > lastPage) {
+					entry.getValue().cancel(true);
+					iterator.remove();
+				}
+			}
+		}
+
+		if (ordered)
+			fetched.put(page.index, items);
+		else
+			current = items.iterator();
+	}
+
+	/*
+	 * Only socket and server errors are worth retrying.
+	 */
+	private static boolean isRetriable(Exception e) {
+		return e instanceof IOException || e instanceof ServerErrorException;
+	}
+
+	/*
+	 * The result of a single page request.
+	 */
+	private static class Page<T> {
+		private final int index;
+		private final int attempt;
+		private List<T> items;
+		private Exception error;
+
+		Page(int index, int attempt) {
+			this.index = index;
+			this.attempt = attempt;
+		}
+	}
+}
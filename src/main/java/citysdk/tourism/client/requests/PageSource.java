@@ -0,0 +1,40 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.requests;
+
+import java.io.IOException;
+import java.util.List;
+
+import citysdk.tourism.client.exceptions.InvalidParameterException;
+import citysdk.tourism.client.exceptions.ResourceNotAllowedException;
+import citysdk.tourism.client.exceptions.ServerErrorException;
+import citysdk.tourism.client.exceptions.UnknownErrorException;
+import citysdk.tourism.client.exceptions.VersionNotAvailableException;
+
+/*
+ * Fetches a single page of a listing, given the parameters already holding
+ * its limit and offset.
+ */
+interface PageSource<T> {
+	List<T> fetch(ParameterList parameterList) throws InvalidParameterException,
+			IOException, ResourceNotAllowedException, UnknownErrorException,
+			ServerErrorException, VersionNotAvailableException;
+}
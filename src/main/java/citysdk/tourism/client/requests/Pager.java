@@ -0,0 +1,207 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.requests;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import citysdk.tourism.client.exceptions.InvalidParameterException;
+import citysdk.tourism.client.exceptions.InvalidValueException;
+import citysdk.tourism.client.exceptions.PagingException;
+import citysdk.tourism.client.terms.ParameterTerms;
+
+/**
+ * Lazily walks the pages of a listing (points of interest, events or routes)
+ * using the {@link ParameterTerms#LIMIT} and {@link ParameterTerms#OFFSET}
+ * parameters, returning the elements of each page in order. While a page is
+ * being consumed the next one is already being fetched in the background. The
+ * iteration stops once a page shorter than the page size is returned.
+ * 
+ * <p>Pagers are created by the {@link TourismClient}. Errors while fetching a
+ * page are thrown as a {@link PagingException} whose cause is the exception
+ * thrown by the request. A pager should be closed if it is not read until the
+ * end, so that a pending prefetch is cancelled.</p>
+ * 
+ * @author Pedro Cruz
+ *
+ * @param <T> the type of the elements.
+ */
+public class Pager<T> implements Iterator<T>, Closeable {
+	private final PageSource<T> source;
+	private final ParameterList parameterList;
+	private final int pageSize;
+	private final Executor executor;
+	private int offset;
+	private List<T> page;
+	private int index;
+	private FutureTask<List<T>> next;
+	private boolean loaded;
+	private boolean finished;
+
+	/*
+	 * Walks the pages of the given source starting at the offset of the given
+	 * parameters, if any, using a shared pool of daemon threads when no
+	 * executor is given. The parameters are copied, so later changes to them
+	 * do not reach the pages fetched in the background.
+	 */
+	Pager(PageSource<T> source, ParameterList parameterList, int pageSize, Executor executor) {
+		if (pageSize <= 0)
+			throw new IllegalArgumentException("Page size must be positive");
+
+		this.source = source;
+		this.parameterList = parameterList == null ? null : new ParameterList(parameterList);
+		this.pageSize = pageSize;
+		this.executor = executor != null ? executor : BackgroundExecutor.INSTANCE;
+		this.offset = getOffset(this.parameterList);
+		this.page = Collections.emptyList();
+		this.next = prefetch(offset);
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Gets the offset of the page currently being read.
+	 * @return the offset of the current page.
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (index < page.size())
+			return true;
+
+		if (finished)
+			return false;
+
+		if (next == null) {
+			finished = true;
+			return false;
+		}
+
+		try {
+			page = next.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			close();
+			throw new PagingException("Interrupted while waiting for page at offset " + offset, e);
+		} catch (ExecutionException e) {
+			close();
+			throw new PagingException("Could not fetch page at offset " + offset, e.getCause());
+		}
+
+		if (page == null)
+			page = Collections.emptyList();
+
+		if (loaded)
+			offset += pageSize;
+
+		loaded = true;
+		index = 0;
+		next = page.size() < pageSize ? null : prefetch(offset + pageSize);
+		if (page.isEmpty()) {
+			finished = true;
+			return false;
+		}
+
+		return true;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+
+		return page.get(index++);
+	}
+
+	/**
+	 * Not supported.
+	 */
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Stops the iteration, cancelling the fetch of the next page.
+	 */
+	@Override
+	public void close() {
+		finished = true;
+		page = Collections.emptyList();
+		if (next != null) {
+			next.cancel(true);
+			next = null;
+		}
+	}
+
+	/*
+	 * Starts fetching the page at the given offset.
+	 */
+	private FutureTask<List<T>> prefetch(final int offset) {
+		FutureTask<List<T>> task = new FutureTask<List<T>>(new Callable<List<T>>() {
+			@Override
+			public List<T> call() throws Exception {
+				return source.fetch(page(parameterList, pageSize, offset));
+			}
+		});
+		executor.execute(task);
+		return task;
+	}
+
+	/*
+	 * Copies the given parameters replacing its limit and offset.
+	 */
+	static ParameterList page(ParameterList parameterList, int limit, int offset)
+			throws InvalidParameterException, InvalidValueException {
+		ParameterList page = parameterList == null ? new ParameterList() : new ParameterList(parameterList);
+		page.replace(new Parameter(ParameterTerms.LIMIT, limit));
+		page.replace(new Parameter(ParameterTerms.OFFSET, offset));
+		return page;
+	}
+
+	/*
+	 * Gets the offset set in the given parameters, or 0.
+	 */
+	static int getOffset(ParameterList parameterList) {
+		Parameter parameter;
+		if (parameterList == null
+				|| (parameter = parameterList.getWithTerm(ParameterTerms.OFFSET)) == null)
+			return 0;
+
+		try {
+			return Integer.parseInt(String.valueOf(parameter.getValue()).trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid offset " + parameter.getValue(), e);
+		}
+	}
+}
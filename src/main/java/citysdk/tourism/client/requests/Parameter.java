@@ -115,6 +115,11 @@ public class Parameter {
 			return false;
 	}
 
+	@Override
+	public int hashCode() {
+		return getTerm().hashCode();
+	}
+
 	public ParameterTerms getParameterTerm() {
 		return term;
 	}
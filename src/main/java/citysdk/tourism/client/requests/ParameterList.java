@@ -20,34 +20,60 @@
  */
 package citysdk.tourism.client.requests;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
 
+import citysdk.tourism.client.exceptions.InvalidParameterException;
+import citysdk.tourism.client.exceptions.InvalidValueException;
 import citysdk.tourism.client.terms.ParameterTerms;
 
 /**
  * A list of {@link Parameter} used for the {@link TourismClient} stub when performing HTTP requests.
+ * There is at most one {@link Parameter} for each term, and adding, replacing or 
+ * getting a parameter by its term takes constant time. Parameters are kept in 
+ * the order the terms are declared in {@link ParameterTerms}.
  * 
  * @author Pedro Cruz
  *
  */
-public class ParameterList {
-	private List<Parameter> parameters;
+public class ParameterList implements Iterable<Parameter> {
+	private final EnumMap<ParameterTerms, Parameter> parameters;
+	private Parameter[] array;
 	
 	/**
 	 * Initializes an empty list of {@link Parameter}.
 	 */
 	public ParameterList() {
-		this.parameters = new ArrayList<Parameter>();
+		this.parameters = new EnumMap<ParameterTerms, Parameter>(ParameterTerms.class);
 	}
 	
 	/**
-	 * Adds a new parameter, if it does not exist already.
+	 * Initializes a list with the parameters of another list.
+	 * @param parameterList the list to copy.
+	 */
+	public ParameterList(ParameterList parameterList) {
+		this.parameters = new EnumMap<ParameterTerms, Parameter>(parameterList.parameters);
+	}
+	
+	/**
+	 * Creates a {@link Builder} of parameter lists.
+	 * @return an empty {@link Builder}.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+	
+	/**
+	 * Adds a new parameter, if there is no parameter with its term already.
 	 * @param parameter {@link Parameter} to be added.
 	 */
 	public void add(Parameter parameter) {
-		if(!parameters.contains(parameter))
-			parameters.add(parameter);
+		if(!parameters.containsKey(parameter.getParameterTerm())) {
+			parameters.put(parameter.getParameterTerm(), parameter);
+			array = null;
+		}
 	}
 	
 	/**
@@ -56,8 +82,9 @@ public class ParameterList {
 	 * @return {@link Parameter} in index i or null.
 	 */
 	public Parameter get(int i) {
-		if(i < parameters.size())
-			return parameters.get(i);
+		Parameter[] array = parameters();
+		if(i >= 0 && i < array.length)
+			return array[i];
 		
 		return null;
 	}
@@ -68,12 +95,16 @@ public class ParameterList {
 	 * @return {@link Parameter} with the given term or null.
 	 */
 	public Parameter getWithTerm(ParameterTerms term) {
-		for(Parameter parameter : parameters) {
-			if(parameter.getParameterTerm().equalsTerm(term.getTerm()))
-				return parameter;
-		}
-		
-		return null;
+		return parameters.get(term);
+	}
+	
+	/**
+	 * Checks whether there is a {@link Parameter} with the given term.
+	 * @param term the term of the {@link Parameter}.
+	 * @return <code>true</code> if there is such parameter, <code>false</code> otherwise.
+	 */
+	public boolean contains(ParameterTerms term) {
+		return parameters.containsKey(term);
 	}
 	
 	/**
@@ -81,20 +112,29 @@ public class ParameterList {
 	 * @param parameter the {@link Parameter} to be replaced/added.
 	 */
 	public void replace(Parameter parameter) {
-		int index;
-		if((index = parameters.indexOf(parameter)) > 0) {
-			parameters.set(index, parameter);
-		} else {
-			add(parameter);
-		}
+		parameters.put(parameter.getParameterTerm(), parameter);
+		array = null;
+	}
+	
+	/**
+	 * Removes the {@link Parameter} with the given term, if any.
+	 * @param term the term of the {@link Parameter}.
+	 * @return the removed {@link Parameter} or null.
+	 */
+	public Parameter remove(ParameterTerms term) {
+		Parameter parameter = parameters.remove(term);
+		if(parameter != null)
+			array = null;
+		
+		return parameter;
 	}
 	
 	/**
 	 * Removes all {@link Parameter}.
 	 */
 	public void removeAll() {
-		if(!parameters.isEmpty())
-			parameters.removeAll(parameters);
+		parameters.clear();
+		array = null;
 	}
 	
 	/**
@@ -110,6 +150,94 @@ public class ParameterList {
 	 * @return an array of parameters.
 	 */
 	public Parameter[] toArray() {
-		return parameters.toArray(new Parameter[parameters.size()]);
+		Parameter[] array = parameters();
+		return Arrays.copyOf(array, array.length);
+	}
+	
+	/*
+	 * Gets the cached array of the parameters, rebuilding it after a change.
+	 * The array is shared and must not be modified or handed out.
+	 */
+	private Parameter[] parameters() {
+		if(array == null)
+			array = parameters.values().toArray(new Parameter[parameters.size()]);
+		
+		return array;
+	}
+	
+	/**
+	 * Iterates over the parameters, in the order of their terms. 
+	 */
+	@Override
+	public Iterator<Parameter> iterator() {
+		return Collections.unmodifiableCollection(parameters.values()).iterator();
+	}
+	
+	/**
+	 * Builds parameter lists, validating each parameter as it is set. A 
+	 * builder can be reused: each call to {@link #build()} returns a new 
+	 * list with the parameters set so far, and setting a parameter replaces
+	 * the previous value of its term, so only the parameters that change 
+	 * between queries need to be set again.
+	 */
+	public static class Builder {
+		private final EnumMap<ParameterTerms, Parameter> parameters;
+		
+		private Builder() {
+			this.parameters = new EnumMap<ParameterTerms, Parameter>(ParameterTerms.class);
+		}
+		
+		/**
+		 * Sets a parameter, replacing the previous value of its term.
+		 * @param term the term of the parameter.
+		 * @param value the value of the parameter.
+		 * @return this {@link Builder}.
+		 * @throws InvalidParameterException thrown if the parameter term is invalid.
+		 * @throws InvalidValueException thrown if the value is not valid.
+		 * @see Parameter#Parameter(ParameterTerms, Object)
+		 */
+		public Builder set(ParameterTerms term, Object value) 
+				throws InvalidParameterException, InvalidValueException {
+			return set(new Parameter(term, value));
+		}
+		
+		/**
+		 * Sets a parameter, replacing the previous value of its term.
+		 * @param parameter the {@link Parameter}.
+		 * @return this {@link Builder}.
+		 */
+		public Builder set(Parameter parameter) {
+			parameters.put(parameter.getParameterTerm(), parameter);
+			return this;
+		}
+		
+		/**
+		 * Removes the parameter with the given term, if any.
+		 * @param term the term of the parameter.
+		 * @return this {@link Builder}.
+		 */
+		public Builder remove(ParameterTerms term) {
+			parameters.remove(term);
+			return this;
+		}
+		
+		/**
+		 * Removes all the parameters.
+		 * @return this {@link Builder}.
+		 */
+		public Builder clear() {
+			parameters.clear();
+			return this;
+		}
+		
+		/**
+		 * Creates a list with the parameters set so far.
+		 * @return a new {@link ParameterList}.
+		 */
+		public ParameterList build() {
+			ParameterList parameterList = new ParameterList();
+			parameterList.parameters.putAll(parameters);
+			return parameterList;
+		}
 	}
 }
@@ -0,0 +1,116 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.requests;
+
+import citysdk.tourism.client.poi.base.POIBaseType;
+import citysdk.tourism.client.poi.base.Relationship;
+
+/**
+ * Reference to a single POI, event or route, given by its base URL and its
+ * identifier, as used by {@link TourismClient#getPoi(String, String)}. Two
+ * references are equal if they point to the same URL.
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public final class PoiRef {
+	private final String base;
+	private final String id;
+
+	/**
+	 * Creates a reference.
+	 * @param base the base URL of the object.
+	 * @param id the identifier of the object.
+	 */
+	public PoiRef(String base, String id) {
+		if (base == null || id == null)
+			throw new IllegalArgumentException("Both the base and the id are required");
+
+		this.base = base;
+		this.id = id;
+	}
+
+	/**
+	 * Creates a reference to the complete description of an object, such as
+	 * the POIs returned by {@link TourismClient#getByCode(String)}.
+	 * @param object the object.
+	 * @return a reference to the object.
+	 */
+	public static PoiRef of(POIBaseType object) {
+		return new PoiRef(object.getBase(), object.getId());
+	}
+
+	/**
+	 * Creates a reference to the target of a relationship, that is, its
+	 * target POI or, if it has none, its target event.
+	 * @param relationship the relationship.
+	 * @return a reference to the target of the relationship.
+	 */
+	public static PoiRef target(Relationship relationship) {
+		return new PoiRef(relationship.getBase(), relationship.hasTargetPOI() 
+				? relationship.getTargetPOI() : relationship.getTargetEvent());
+	}
+
+	/**
+	 * Gets the base URL of the object.
+	 * @return the base URL.
+	 */
+	public String getBase() {
+		return base;
+	}
+
+	/**
+	 * Gets the identifier of the object.
+	 * @return the identifier.
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the URL of the object.
+	 * @return the base URL followed by the identifier.
+	 */
+	public String getUrl() {
+		return base + id;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+
+		if (!(obj instanceof PoiRef))
+			return false;
+
+		return getUrl().equals(((PoiRef) obj).getUrl());
+	}
+
+	@Override
+	public int hashCode() {
+		return getUrl().hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return getUrl();
+	}
+}
@@ -25,8 +25,10 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
 import java.util.zip.GZIPInputStream;
@@ -34,79 +36,224 @@ import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
 
 import citysdk.tourism.client.exceptions.ServerErrorException;
+import citysdk.tourism.client.requests.transport.HttpResponse;
+import citysdk.tourism.client.requests.transport.PooledTransport;
+import citysdk.tourism.client.requests.transport.Transport;
+import citysdk.tourism.client.requests.transport.UrlConnectionTransport;
 
 /**
- * Used to perform HTTP requests.
+ * Used to perform HTTP requests. The requests are made through a
+ * {@link Transport} shared by all the clients, which defaults to a 
+ * {@link UrlConnectionTransport}. A {@link PooledTransport} can be set instead 
+ * when the server is reached without a proxy.
  * 
  * @author Pedro Cruz
  * 
  */
 public class Request {
+    private static final Logger logger = LogManager.getLogManager().getLogger(Logger.GLOBAL_LOGGER_NAME);
+    private static final Map<String, String> HEADERS;
+    private static volatile Transport transport = new UrlConnectionTransport();
+
+    static {
+        Map<String, String> headers = new HashMap<String, String>();
+        headers.put("Accept", "application/json");
+        headers.put("Accept-Encoding", "gzip, deflate");
+        HEADERS = Collections.unmodifiableMap(headers);
+    }
+
+    /**
+     * Sets the {@link Transport} used by every request. The previous
+     * transport is not shut down.
+     * 
+     * @param transport
+     *            the new transport.
+     */
+    public static void setTransport(Transport transport) {
+        if (transport == null)
+            throw new IllegalArgumentException("Transport cannot be null");
+
+        Request.transport = transport;
+    }
+
+    /**
+     * Gets the {@link Transport} used by every request.
+     * 
+     * @return the current transport.
+     */
+    public static Transport getTransport() {
+        return transport;
+    }
+
     /*
      * Gets the response after querying a given URL
      */
     protected static String getResponse(String Url) throws IOException, ServerErrorException {
+        Reader reader = openResponse(Url);
+        if (reader == null) {
+            return null;
+        }
+
+        try {
+            StringBuilder response = new StringBuilder();
+            char[] buffer = new char[4096];
+            for (int count; (count = reader.read(buffer)) != -1;) {
+                response.append(buffer, 0, count);
+            }
+            return response.toString();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /*
+     * Queries a given URL and opens its (decompressed) body as a UTF-8
+     * stream of characters, so it can be handed straight to the parser
+     * without ever being buffered as a whole. Closing the reader releases
+     * the underlying connection.
+     */
+    protected static Reader openResponse(String Url) throws IOException, ServerErrorException {
+        InputStream in = openStream(Url);
+        if (in == null) {
+            return null;
+        }
+
+        return new InputStreamReader(in, "UTF-8");
+    }
+
+    /*
+     * Queries a given URL and reads its whole (decompressed) body along with
+     * its validators. When a validator is given the request is conditional,
+     * and a Not Modified response is returned as a body without data.
+     */
+    protected static Body getBody(String Url, String etag, String lastModified)
+            throws IOException, ServerErrorException {
         if (Url == null) {
             return null;
         }
 
-        URL url = new URL(Url);
-        HttpURLConnection httpUrl = (HttpURLConnection) url.openConnection();
-        httpUrl.setRequestMethod("GET");
-        httpUrl.setRequestProperty("Accept", "application/json");
-        httpUrl.setRequestProperty("Accept-Encoding", "gzip, deflate");
-        httpUrl.connect();
+        Map<String, String> headers = HEADERS;
+        if (etag != null || lastModified != null) {
+            headers = new HashMap<String, String>(HEADERS);
+            if (etag != null) {
+                headers.put("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                headers.put("If-Modified-Since", lastModified);
+            }
+        }
+
+        HttpResponse response = send(Url, headers, headers != HEADERS);
+        if (response.getCode() == 304) {
+            response.close();
+            return new Body(null, etag, lastModified);
+        }
 
-        int code = httpUrl.getResponseCode();
-        String encoding = httpUrl.getContentEncoding();
-        InputStream resultingInputStream = null;
+        InputStream in = decode(response);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int count; (count = in.read(buffer)) != -1;) {
+                out.write(buffer, 0, count);
+            }
+            return new Body(out.toByteArray(), response.getHeader("ETag"),
+                    response.getHeader("Last-Modified"));
+        } finally {
+            in.close();
+        }
+    }
+
+    /*
+     * Queries a given URL and opens its (decompressed) body. Closing the
+     * stream releases the underlying connection.
+     */
+    private static InputStream openStream(String Url) throws IOException, ServerErrorException {
+        if (Url == null) {
+            return null;
+        }
+
+        return decode(send(Url, HEADERS, false));
+    }
+
+    /*
+     * Performs the request, returning the response if it is a 200 OK (or a
+     * 304 Not Modified, for conditional requests).
+     */
+    private static HttpResponse send(String Url, Map<String, String> headers, boolean conditional)
+            throws IOException, ServerErrorException {
+        HttpResponse response = transport.get(Url, headers);
+        int code = response.getCode();
 
-        Logger logger = LogManager.getLogManager().getLogger(Logger.GLOBAL_LOGGER_NAME);
         logger.info("Queried " + Url + " with response code " + code);
-        if (code == 200) {
+        if (code == 200 || (conditional && code == 304)) {
+            return response;
+        }
+
+        String read, message = "";
+        logger.warning("Error code " + code);
+        try {
+            BufferedReader inStream = new BufferedReader(new InputStreamReader(response.getBody()));
+            while ((read = inStream.readLine()) != null) {
+                message += read;
+            }
+
+            inStream.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        logger.severe("Error message " + message);
+        throw new ServerErrorException(message);
+    }
+
+    /*
+     * Opens the body of the response, decompressing it if needed.
+     */
+    private static InputStream decode(HttpResponse response) throws IOException {
+        String encoding = response.getHeader("Content-Encoding");
+        try {
             if (encoding != null && encoding.equalsIgnoreCase("gzip")) {
-                resultingInputStream = new GZIPInputStream(httpUrl.getInputStream());
+                return new GZIPInputStream(response.getBody());
             } else if (encoding != null && encoding.equalsIgnoreCase("deflate")) {
-                resultingInputStream = new InflaterInputStream(httpUrl.getInputStream(), new Inflater(true));
+                return new InflaterInputStream(response.getBody(), new Inflater(true));
             } else {
-                resultingInputStream = httpUrl.getInputStream();
+                return response.getBody();
             }
+        } catch (IOException e) {
+            response.close();
+            throw e;
+        }
+    }
 
-            byte[] response = readFully(resultingInputStream);
-            httpUrl.disconnect();
-
-            return new String(response, "UTF-8");
-
-        } else {
-            String read, message = "";
-            logger.warning("Error code " + code);
-            try {
-                if (httpUrl != null) {
-                    if (httpUrl.getErrorStream() != null) {
-                        BufferedReader inStream = new BufferedReader(new InputStreamReader(httpUrl.getErrorStream()));
-                        while ((read = inStream.readLine()) != null) {
-                            message += read;
-                        }
-
-                        inStream.close();
-                    }
-                    httpUrl.disconnect();
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+    /*
+     * The (decompressed) body of a response and its validators. The data is
+     * null for a 304 Not Modified response.
+     */
+    static class Body {
+        private final byte[] data;
+        private final String etag;
+        private final String lastModified;
 
-            logger.severe("Error message " + message);
-            throw new ServerErrorException(message);
+        Body(byte[] data, String etag, String lastModified) {
+            this.data = data;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        byte[] getData() {
+            return data;
+        }
+
+        String getEtag() {
+            return etag;
+        }
+
+        String getLastModified() {
+            return lastModified;
         }
-    }
 
-    static byte[] readFully(InputStream in) throws IOException {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        byte[] buffer = new byte[1024];
-        for (int count; (count = in.read(buffer)) != -1;) {
-            out.write(buffer, 0, count);
+        boolean isNotModified() {
+            return data == null;
         }
-        return out.toByteArray();
     }
-}
\ No newline at end of file
+}
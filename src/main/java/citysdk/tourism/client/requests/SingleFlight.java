@@ -0,0 +1,117 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.requests;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import citysdk.tourism.client.exceptions.ServerErrorException;
+import citysdk.tourism.client.exceptions.UnknownErrorException;
+import citysdk.tourism.client.requests.cache.ResponseCache;
+
+/*
+ * Coalesces identical requests in flight: the first caller for a key performs
+ * the request and every caller arriving while it is in progress waits for it
+ * and gets the same result, or the same exception. Calls are keyed by the 
+ * final URL, the class it is parsed as and the response cache, so they are 
+ * shared by all the clients that use the same cache, or none.
+ */
+final class SingleFlight {
+	private static final ConcurrentMap<Key, FutureTask<?>> calls = new ConcurrentHashMap<Key, FutureTask<?>>();
+
+	private SingleFlight() {
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> T execute(ResponseCache cache, Class<?> clazz, String url, Callable<T> call) 
+			throws IOException, UnknownErrorException, ServerErrorException {
+		Key key = new Key(cache, clazz, url);
+		FutureTask<T> task = new FutureTask<T>(call);
+		FutureTask<T> running = (FutureTask<T>) calls.putIfAbsent(key, task);
+		if (running == null) {
+			try {
+				task.run();
+			} finally {
+				calls.remove(key, task);
+			}
+			running = task;
+		}
+
+		try {
+			return running.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for " + url);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof UnknownErrorException)
+				throw (UnknownErrorException) cause;
+			if (cause instanceof ServerErrorException)
+				throw (ServerErrorException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+
+			throw new UnknownErrorException(cause);
+		}
+	}
+
+	/*
+	 * Identifies a call. Caches are compared by identity, as each holds its 
+	 * own responses.
+	 */
+	private static final class Key {
+		private final ResponseCache cache;
+		private final Class<?> clazz;
+		private final String url;
+
+		Key(ResponseCache cache, Class<?> clazz, String url) {
+			this.cache = cache;
+			this.clazz = clazz;
+			this.url = url;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+
+			Key other = (Key) obj;
+			return cache == other.cache && clazz == other.clazz
+					&& (url == null ? other.url == null : url.equals(other.url));
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = System.identityHashCode(cache);
+			hash = 31 * hash + clazz.hashCode();
+			return 31 * hash + (url == null ? 0 : url.hashCode());
+		}
+	}
+}
@@ -20,11 +20,18 @@
  */
 package citysdk.tourism.client.requests;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
@@ -39,20 +46,22 @@ import citysdk.tourism.client.exceptions.ServerErrorException;
 import citysdk.tourism.client.exceptions.UnknownErrorException;
 import citysdk.tourism.client.exceptions.VersionNotAvailableException;
 import citysdk.tourism.client.parser.JsonParser;
+import citysdk.tourism.client.parser.POIIterator;
+import citysdk.tourism.client.poi.Deserializable;
 import citysdk.tourism.client.poi.lists.ListEvent;
 import citysdk.tourism.client.poi.lists.ListPOIS;
 import citysdk.tourism.client.poi.lists.ListPointOfInterest;
 import citysdk.tourism.client.poi.lists.ListRoute;
 import citysdk.tourism.client.poi.lists.ListTag;
+import citysdk.tourism.client.poi.lists.POIS;
 import citysdk.tourism.client.poi.lists.Resources;
 import citysdk.tourism.client.poi.single.Category;
 import citysdk.tourism.client.poi.single.Event;
-import citysdk.tourism.client.poi.single.Hypermedia;
-import citysdk.tourism.client.poi.single.HypermediaLink;
 import citysdk.tourism.client.poi.single.POI;
 import citysdk.tourism.client.poi.single.PointOfInterest;
 import citysdk.tourism.client.poi.single.Route;
-import citysdk.tourism.client.requests.uri.UriTemplate;
+import citysdk.tourism.client.requests.cache.CacheEntry;
+import citysdk.tourism.client.requests.cache.ResponseCache;
 import citysdk.tourism.client.terms.ParameterTerms;
 import citysdk.tourism.client.terms.ResourceTerms;
 import citysdk.tourism.client.terms.Term;
@@ -63,38 +72,44 @@ import citysdk.tourism.client.terms.Term;
  * from such calls. The stub also provides a logging mechanism defaulting to 
  * INFO level messages.
  * 
+ * <p>The stub is safe for concurrent use: each request is parsed on its own,
+ * so a single instance can be shared by any number of threads. The version 
+ * set by {@link #useVersion(String)} is seen by the requests started after 
+ * it is set. Identical requests in flight at the same time, from any 
+ * client with the same response cache, share a single request and get the 
+ * same object.</p>
+ * 
  * @author Pedro Cruz
  * 
  */
 public class TourismClient implements Cloneable {
-	private String homeUrl;
-	private JsonParser parser;
-	private Resources resources;
-	private String version;
-	private Logger logger; 
+	private static final int BATCH_PARALLELISM = 8;
+
+	private final String homeUrl;
+	private final Resources resources;
+	private final Logger logger;
+	private volatile VersionState state = VersionState.NONE;
+	private volatile ResponseCache cache;
 
 	protected TourismClient() {
-		this.version = null;
+		this.homeUrl = null;
+		this.resources = null;
+		this.logger = LogManager.getLogManager().getLogger(Logger.GLOBAL_LOGGER_NAME);
 	}
 
 	protected TourismClient(String homeUrl, Resources links) {
 		this.homeUrl = homeUrl;
 		this.resources = links;
-		this.parser = new JsonParser(null);
-		initLogging();
+		this.logger = LogManager.getLogManager().getLogger(Logger.GLOBAL_LOGGER_NAME);
+		this.logger.setLevel(Level.INFO);
 	}
 
 	protected TourismClient(TourismClient client) {
 		this.homeUrl = client.homeUrl;
 		this.resources = client.resources;
-		this.version = client.version;
-		this.parser = new JsonParser(null);
-		initLogging();
-	}
-	
-	private void initLogging() {
-		this.logger = LogManager.getLogManager().getLogger(Logger.GLOBAL_LOGGER_NAME);
-		this.logger.setLevel(Level.INFO);
+		this.state = client.state;
+		this.logger = client.logger;
+		this.cache = client.cache;
 	}
 
 	@Override
@@ -115,15 +130,39 @@ public class TourismClient implements Cloneable {
 	}
 	
 	public String getVersion() {
-		return version;
+		return state.version;
 	}
 
 	/**
-	 * Set the version to use by the stub
+	 * Set the version to use by the stub. The URLs of all the resources of
+	 * the version are prepared at this point.
 	 * @param version the version to use
 	 */
 	public void useVersion(String version) {
-		this.version = version;
+		Map<ResourceTerms, UrlBuilder> builders = null;
+		if (resources != null && resources.hasVersion(version))
+			builders = UrlBuilder.forVersion(resources.getHypermediaWithVersion(version));
+
+		this.state = new VersionState(version, builders);
+	}
+
+	/**
+	 * Gets the cache of responses used by the stub
+	 * @return the {@link citysdk.tourism.client.requests.cache.ResponseCache}, 
+	 * or <code>null</code> if responses are not cached
+	 */
+	public ResponseCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Set the cache of responses used by the stub. The same cache can be
+	 * shared by several stubs. Objects returned from the cache are shared
+	 * by every request served from it and should not be modified.
+	 * @param cache the cache to use, or <code>null</code> to not cache responses
+	 */
+	public void setCache(ResponseCache cache) {
+		this.cache = cache;
 	}
 
 	/**
@@ -139,8 +178,7 @@ public class TourismClient implements Cloneable {
 		if (resources == null)
 			return new HashSet<String>();
 
-		verifyVersion();
-		return resources.getResources(version);
+		return resources.getResources(verifyVersion().version);
 	}
 
 	/**
@@ -158,8 +196,7 @@ public class TourismClient implements Cloneable {
 		if (resources == null)
 			return false;
 
-		verifyVersion();
-		return resources.hasResource(version, resource);
+		return resources.hasResource(verifyVersion().version, resource);
 	}
 
 	/**
@@ -182,7 +219,7 @@ public class TourismClient implements Cloneable {
 		if (!resource.hasChildren() || resources == null)
 			return false;
 
-		verifyVersion();
+		String version = verifyVersion().version;
 		validateResource(resource);
 		List<String> links = resource.getChildren();
 		for (String link : links) {
@@ -210,8 +247,8 @@ public class TourismClient implements Cloneable {
 		if (resources == null)
 			return false;
 
-		verifyVersion();
-		return resources.hasResourceParameter(version, resource, parameter);
+		UrlBuilder builder = verifyVersion().builders.get(resource);
+		return builder != null && builder.hasParameter(parameter);
 	}
 
 	/**
@@ -241,8 +278,7 @@ public class TourismClient implements Cloneable {
 			ResourceNotAllowedException, UnknownErrorException,
 			ServerErrorException, VersionNotAvailableException {
 		String url = validateAndBuildUrl(ResourceTerms.FIND_POI, parameterList);
-		parser.setJson(Request.getResponse(url));
-		return parser.parseJsonAsListOfPois();
+		return query(ResourceTerms.FIND_POI, url, ListPointOfInterest.class);
 	}
 
 	/**
@@ -273,8 +309,7 @@ public class TourismClient implements Cloneable {
 			ServerErrorException, VersionNotAvailableException {
 		String url = validateAndBuildUrl(ResourceTerms.FIND_EVENT,
 				parameterList);
-		parser.setJson(Request.getResponse(url));
-		return parser.parseJsonAsListOfEvents();
+		return query(ResourceTerms.FIND_EVENT, url, ListEvent.class);
 	}
 
 	/**
@@ -305,8 +340,223 @@ public class TourismClient implements Cloneable {
 			ServerErrorException, VersionNotAvailableException {
 		String url = validateAndBuildUrl(ResourceTerms.FIND_ROUTE,
 				parameterList);
-		parser.setJson(Request.getResponse(url));
-		return parser.parseJsonAsListOfRoutes();
+		return query(ResourceTerms.FIND_ROUTE, url, ListRoute.class);
+	}
+
+	/**
+	 * Returns a lazy iterator over the POIs following the desired
+	 * parameters, as {@link #getPois(ParameterList)} does, but deserializing
+	 * a single POI at a time as the response is received. The iterator
+	 * should be closed if it is not read until the end.
+	 * 
+	 * @param parameterList
+	 *            the parameters that should be followed.
+	 * @return a {@link citysdk.tourism.client.parser.POIIterator} of
+	 *         {@link citysdk.tourism.client.poi.single.PointOfInterest}.
+	 * @throws InvalidParameterException
+	 *             thrown if the given parameterList contains invalid terms.
+	 * @throws IOException
+	 *             thrown in case of socket errors.
+	 * @throws ResourceNotAllowedException
+	 *             thrown if the server does not support POIs listing
+	 * @throws ServerErrorException
+	 *             thrown if the server returns a code different from HTTP 200
+	 *             OK.
+	 * @throws VersionNotAvailableException
+	 *             thrown if a previously set version is not available
+	 */
+	public POIIterator<PointOfInterest> iteratePois(ParameterList parameterList)
+			throws InvalidParameterException, IOException,
+			ResourceNotAllowedException, ServerErrorException,
+			VersionNotAvailableException {
+		String url = validateAndBuildUrl(ResourceTerms.FIND_POI, parameterList);
+		return JsonParser.iteratePois(Request.openResponse(url));
+	}
+
+	/**
+	 * Returns a lazy iterator over the events following the desired
+	 * parameters, as {@link #getEvents(ParameterList)} does, but deserializing
+	 * a single event at a time as the response is received. The iterator
+	 * should be closed if it is not read until the end.
+	 * 
+	 * @param parameterList
+	 *            the parameters that should be followed.
+	 * @return a {@link citysdk.tourism.client.parser.POIIterator} of
+	 *         {@link citysdk.tourism.client.poi.single.Event}.
+	 * @throws InvalidParameterException
+	 *             thrown if the given parameterList contains invalid terms.
+	 * @throws IOException
+	 *             thrown in case of socket errors.
+	 * @throws ResourceNotAllowedException
+	 *             thrown if the server does not support events listing
+	 * @throws ServerErrorException
+	 *             thrown if the server returns a code different from HTTP 200
+	 *             OK.
+	 * @throws VersionNotAvailableException
+	 *             thrown if a previously set version is not available
+	 */
+	public POIIterator<Event> iterateEvents(ParameterList parameterList)
+			throws InvalidParameterException, IOException,
+			ResourceNotAllowedException, ServerErrorException,
+			VersionNotAvailableException {
+		String url = validateAndBuildUrl(ResourceTerms.FIND_EVENT, parameterList);
+		return JsonParser.iterateEvents(Request.openResponse(url));
+	}
+
+	/**
+	 * Returns a lazy iterator over the routes following the desired
+	 * parameters, as {@link #getRoutes(ParameterList)} does, but deserializing
+	 * a single route at a time as the response is received. The iterator
+	 * should be closed if it is not read until the end.
+	 * 
+	 * @param parameterList
+	 *            the parameters that should be followed.
+	 * @return a {@link citysdk.tourism.client.parser.POIIterator} of
+	 *         {@link citysdk.tourism.client.poi.single.Route}.
+	 * @throws InvalidParameterException
+	 *             thrown if the given parameterList contains invalid terms.
+	 * @throws IOException
+	 *             thrown in case of socket errors.
+	 * @throws ResourceNotAllowedException
+	 *             thrown if the server does not support routes listing
+	 * @throws ServerErrorException
+	 *             thrown if the server returns a code different from HTTP 200
+	 *             OK.
+	 * @throws VersionNotAvailableException
+	 *             thrown if a previously set version is not available
+	 */
+	public POIIterator<Route> iterateRoutes(ParameterList parameterList)
+			throws InvalidParameterException, IOException,
+			ResourceNotAllowedException, ServerErrorException,
+			VersionNotAvailableException {
+		String url = validateAndBuildUrl(ResourceTerms.FIND_ROUTE, parameterList);
+		return JsonParser.iterateRoutes(Request.openResponse(url));
+	}
+
+	/**
+	 * Returns a pager over all the POIs following the desired parameters,
+	 * fetched as in {@link #getPois(ParameterList)} with the
+	 * given page size. The following page is fetched in the background while
+	 * a page is being read. The offset in the parameters, if any, is the
+	 * starting offset.
+	 * 
+	 * @param parameterList
+	 *            the parameters that should be followed.
+	 * @param pageSize
+	 *            the number of POIs requested in each page.
+	 * @return a {@link Pager} of
+	 *         {@link citysdk.tourism.client.poi.single.PointOfInterest}.
+	 */
+	public Pager<PointOfInterest> pagePois(ParameterList parameterList, int pageSize) {
+		return new Pager<PointOfInterest>(poiPages(), parameterList, pageSize, null);
+	}
+
+	/**
+	 * Returns a pager over all the events following the desired parameters,
+	 * fetched as in {@link #getEvents(ParameterList)} with the
+	 * given page size. The following page is fetched in the background while
+	 * a page is being read. The offset in the parameters, if any, is the
+	 * starting offset.
+	 * 
+	 * @param parameterList
+	 *            the parameters that should be followed.
+	 * @param pageSize
+	 *            the number of events requested in each page.
+	 * @return a {@link Pager} of
+	 *         {@link citysdk.tourism.client.poi.single.Event}.
+	 */
+	public Pager<Event> pageEvents(ParameterList parameterList, int pageSize) {
+		return new Pager<Event>(eventPages(), parameterList, pageSize, null);
+	}
+
+	/**
+	 * Returns a pager over all the routes following the desired parameters,
+	 * fetched as in {@link #getRoutes(ParameterList)} with the
+	 * given page size. The following page is fetched in the background while
+	 * a page is being read. The offset in the parameters, if any, is the
+	 * starting offset.
+	 * 
+	 * @param parameterList
+	 *            the parameters that should be followed.
+	 * @param pageSize
+	 *            the number of routes requested in each page.
+	 * @return a {@link Pager} of
+	 *         {@link citysdk.tourism.client.poi.single.Route}.
+	 */
+	public Pager<Route> pageRoutes(ParameterList parameterList, int pageSize) {
+		return new Pager<Route>(routePages(), parameterList, pageSize, null);
+	}
+
+	/**
+	 * Returns a {@link BulkFetcher} over all the POIs following the desired
+	 * parameters, fetched as in {@link #getPois(ParameterList)} with up to the
+	 * given number of pages requested at once. The offset in the parameters,
+	 * if any, is the starting offset.
+	 * 
+	 * @param parameterList
+	 *            the parameters that should be followed.
+	 * @param pageSize
+	 *            the number of POIs requested in each page.
+	 * @param parallelism
+	 *            the maximum number of pages requested at once.
+	 * @param ordered
+	 *            <code>true</code> to return the POIs in offset order,
+	 *            <code>false</code> to return them as the pages arrive.
+	 * @return a {@link BulkFetcher} of
+	 *         {@link citysdk.tourism.client.poi.single.PointOfInterest}.
+	 */
+	public BulkFetcher<PointOfInterest> bulkPois(ParameterList parameterList, int pageSize,
+			int parallelism, boolean ordered) {
+		return new BulkFetcher<PointOfInterest>(poiPages(), parameterList, pageSize,
+				parallelism, ordered, null);
+	}
+
+	/**
+	 * Returns a {@link BulkFetcher} over all the events following the desired
+	 * parameters, fetched as in {@link #getEvents(ParameterList)} with up to the
+	 * given number of pages requested at once. The offset in the parameters,
+	 * if any, is the starting offset.
+	 * 
+	 * @param parameterList
+	 *            the parameters that should be followed.
+	 * @param pageSize
+	 *            the number of events requested in each page.
+	 * @param parallelism
+	 *            the maximum number of pages requested at once.
+	 * @param ordered
+	 *            <code>true</code> to return the events in offset order,
+	 *            <code>false</code> to return them as the pages arrive.
+	 * @return a {@link BulkFetcher} of
+	 *         {@link citysdk.tourism.client.poi.single.Event}.
+	 */
+	public BulkFetcher<Event> bulkEvents(ParameterList parameterList, int pageSize,
+			int parallelism, boolean ordered) {
+		return new BulkFetcher<Event>(eventPages(), parameterList, pageSize,
+				parallelism, ordered, null);
+	}
+
+	/**
+	 * Returns a {@link BulkFetcher} over all the routes following the desired
+	 * parameters, fetched as in {@link #getRoutes(ParameterList)} with up to the
+	 * given number of pages requested at once. The offset in the parameters,
+	 * if any, is the starting offset.
+	 * 
+	 * @param parameterList
+	 *            the parameters that should be followed.
+	 * @param pageSize
+	 *            the number of routes requested in each page.
+	 * @param parallelism
+	 *            the maximum number of pages requested at once.
+	 * @param ordered
+	 *            <code>true</code> to return the routes in offset order,
+	 *            <code>false</code> to return them as the pages arrive.
+	 * @return a {@link BulkFetcher} of
+	 *         {@link citysdk.tourism.client.poi.single.Route}.
+	 */
+	public BulkFetcher<Route> bulkRoutes(ParameterList parameterList, int pageSize,
+			int parallelism, boolean ordered) {
+		return new BulkFetcher<Route>(routePages(), parameterList, pageSize,
+				parallelism, ordered, null);
 	}
 
 	/**
@@ -345,8 +595,7 @@ public class TourismClient implements Cloneable {
 		try {
 			String url = validateAndBuildUrl(ResourceTerms.FIND_CATEGORIES,
 					list);
-			parser.setJson(Request.getResponse(url));
-			return parser.parseJsonAsCategory();
+			return query(ResourceTerms.FIND_CATEGORIES, url, Category.class);
 		} catch (InvalidParameterException e) {
 			e.printStackTrace();
 		}
@@ -389,8 +638,7 @@ public class TourismClient implements Cloneable {
 		validateTerm((String) list.getWithTerm(ParameterTerms.LIST).getValue());
 		try {
 			String url = validateAndBuildUrl(ResourceTerms.FIND_TAGS, list);
-			parser.setJson(Request.getResponse(url));
-			return parser.parseJsonAsTags();
+			return query(ResourceTerms.FIND_TAGS, url, ListTag.class);
 		} catch (InvalidParameterException e) {
 			e.printStackTrace();
 		}
@@ -418,8 +666,7 @@ public class TourismClient implements Cloneable {
 	public PointOfInterest getPoi(String poiBase, String poiId)
 			throws IOException, UnknownErrorException, ServerErrorException {
 		String url = poiBase + poiId;
-		parser.setJson(Request.getResponse(url));
-		return parser.parseJsonAsPointOfInterest();
+		return query(ResourceTerms.RESOURCE_POIS, url, PointOfInterest.class);
 	}
 
 	/**
@@ -442,8 +689,7 @@ public class TourismClient implements Cloneable {
 	public Event getEvent(String eventBase, String eventId) throws IOException,
 			UnknownErrorException, ServerErrorException {
 		String url = eventBase + eventId;
-		parser.setJson(Request.getResponse(url));
-		return parser.parseJsonAsEvent();
+		return query(ResourceTerms.RESOURCE_EVENTS, url, Event.class);
 	}
 
 	/**
@@ -466,8 +712,124 @@ public class TourismClient implements Cloneable {
 	public Route getRoute(String routeBase, String routeId) throws IOException,
 			UnknownErrorException, ServerErrorException {
 		String url = routeBase + routeId;
-		parser.setJson(Request.getResponse(url));
-		return parser.parseJsonAsRoute();
+		return query(ResourceTerms.RESOURCE_ROUTES, url, Route.class);
+	}
+
+	/**
+	 * Returns the complete description of several POIs, as in
+	 * {@link #getPoi(String, String)}, with up to eight
+	 * requests at once.
+	 * 
+	 * @param refs
+	 *            the references of the POIs.
+	 * @return a {@link BatchResult} with the POIs or the errors thrown
+	 *         fetching them, in the order of the references.
+	 * @throws InterruptedIOException
+	 *             thrown if the thread is interrupted while waiting.
+	 */
+	public BatchResult<PointOfInterest> getPoisByRef(Collection<PoiRef> refs)
+			throws InterruptedIOException {
+		return getPoisByRef(refs, BATCH_PARALLELISM);
+	}
+
+	/**
+	 * Returns the complete description of several POIs, as in
+	 * {@link #getPoi(String, String)}, with up to the given number of
+	 * requests at once. Repeated references are fetched only once, and the
+	 * requests go through the cache of the stub, if any, like single 
+	 * requests.
+	 * 
+	 * @param refs
+	 *            the references of the POIs.
+	 * @param parallelism
+	 *            the maximum number of requests at once.
+	 * @return a {@link BatchResult} with the POIs or the errors thrown
+	 *         fetching them, in the order of the references.
+	 * @throws InterruptedIOException
+	 *             thrown if the thread is interrupted while waiting.
+	 */
+	public BatchResult<PointOfInterest> getPoisByRef(Collection<PoiRef> refs, int parallelism)
+			throws InterruptedIOException {
+		return BatchRequest.fetch(cache, ResourceTerms.RESOURCE_POIS, PointOfInterest.class, refs,
+				parallelism, null);
+	}
+
+	/**
+	 * Returns the complete description of several events, as in
+	 * {@link #getEvent(String, String)}, with up to eight
+	 * requests at once.
+	 * 
+	 * @param refs
+	 *            the references of the events.
+	 * @return a {@link BatchResult} with the events or the errors thrown
+	 *         fetching them, in the order of the references.
+	 * @throws InterruptedIOException
+	 *             thrown if the thread is interrupted while waiting.
+	 */
+	public BatchResult<Event> getEventsByRef(Collection<PoiRef> refs)
+			throws InterruptedIOException {
+		return getEventsByRef(refs, BATCH_PARALLELISM);
+	}
+
+	/**
+	 * Returns the complete description of several events, as in
+	 * {@link #getEvent(String, String)}, with up to the given number of
+	 * requests at once. Repeated references are fetched only once, and the
+	 * requests go through the cache of the stub, if any, like single 
+	 * requests.
+	 * 
+	 * @param refs
+	 *            the references of the events.
+	 * @param parallelism
+	 *            the maximum number of requests at once.
+	 * @return a {@link BatchResult} with the events or the errors thrown
+	 *         fetching them, in the order of the references.
+	 * @throws InterruptedIOException
+	 *             thrown if the thread is interrupted while waiting.
+	 */
+	public BatchResult<Event> getEventsByRef(Collection<PoiRef> refs, int parallelism)
+			throws InterruptedIOException {
+		return BatchRequest.fetch(cache, ResourceTerms.RESOURCE_EVENTS, Event.class, refs,
+				parallelism, null);
+	}
+
+	/**
+	 * Returns the complete description of several routes, as in
+	 * {@link #getRoute(String, String)}, with up to eight
+	 * requests at once.
+	 * 
+	 * @param refs
+	 *            the references of the routes.
+	 * @return a {@link BatchResult} with the routes or the errors thrown
+	 *         fetching them, in the order of the references.
+	 * @throws InterruptedIOException
+	 *             thrown if the thread is interrupted while waiting.
+	 */
+	public BatchResult<Route> getRoutesByRef(Collection<PoiRef> refs)
+			throws InterruptedIOException {
+		return getRoutesByRef(refs, BATCH_PARALLELISM);
+	}
+
+	/**
+	 * Returns the complete description of several routes, as in
+	 * {@link #getRoute(String, String)}, with up to the given number of
+	 * requests at once. Repeated references are fetched only once, and the
+	 * requests go through the cache of the stub, if any, like single 
+	 * requests.
+	 * 
+	 * @param refs
+	 *            the references of the routes.
+	 * @param parallelism
+	 *            the maximum number of requests at once.
+	 * @return a {@link BatchResult} with the routes or the errors thrown
+	 *         fetching them, in the order of the references.
+	 * @throws InterruptedIOException
+	 *             thrown if the thread is interrupted while waiting.
+	 */
+	public BatchResult<Route> getRoutesByRef(Collection<PoiRef> refs, int parallelism)
+			throws InterruptedIOException {
+		return BatchRequest.fetch(cache, ResourceTerms.RESOURCE_ROUTES, Route.class, refs,
+				parallelism, null);
 	}
 
 	/**
@@ -489,8 +851,7 @@ public class TourismClient implements Cloneable {
 	public POI getGeneric(String base, String id) throws IOException,
 			UnknownErrorException, ServerErrorException {
 		String url = base + id;
-		parser.setJson(Request.getResponse(url));
-		return (POI) parser.parseJsonAsGeneric();
+		return query(null, url, POI.class);
 	}
 
 	/**
@@ -532,8 +893,7 @@ public class TourismClient implements Cloneable {
 			list.add(new Parameter(ParameterTerms.RELATION, relation.getTerm()));
 			String url = validateAndBuildUrl(ResourceTerms.FIND_POI_RELATION,
 					list);
-			parser.setJson(Request.getResponse(url));
-			return parser.parseJsonAsListOfPois();
+			return query(ResourceTerms.FIND_POI_RELATION, url, ListPointOfInterest.class);
 		} catch (InvalidParameterException e) {
 			e.printStackTrace();
 		} catch (InvalidValueException e) {
@@ -583,8 +943,7 @@ public class TourismClient implements Cloneable {
 			list.add(new Parameter(ParameterTerms.RELATION, relation.getTerm()));
 			String url = validateAndBuildUrl(ResourceTerms.FIND_EVENT_RELATION,
 					list);
-			parser.setJson(Request.getResponse(url));
-			return parser.parseJsonAsListOfEvents();
+			return query(ResourceTerms.FIND_EVENT_RELATION, url, ListEvent.class);
 		} catch (InvalidParameterException e) {
 			e.printStackTrace();
 		} catch (InvalidValueException e) {
@@ -619,8 +978,7 @@ public class TourismClient implements Cloneable {
 		try {
 			list.add(new Parameter(ParameterTerms.CODE, code));
 			String url = validateAndBuildUrl(ResourceTerms.FIND_CODE, list);
-			parser.setJson(Request.getResponse(url));
-			return parser.parseJsonAsListPOIS();
+			return query(ResourceTerms.FIND_CODE, url, ListPOIS.class);
 		} catch (InvalidParameterException e) {
 			e.printStackTrace();
 		} catch (InvalidValueException e) {
@@ -630,6 +988,153 @@ public class TourismClient implements Cloneable {
 		return null;
 	}
 
+	/*
+	 * Fetches pages of POIs.
+	 */
+	PageSource<PointOfInterest> poiPages() {
+		return new PageSource<PointOfInterest>() {
+			@Override
+			public List<PointOfInterest> fetch(ParameterList parameterList)
+					throws InvalidParameterException, IOException,
+					ResourceNotAllowedException, UnknownErrorException,
+					ServerErrorException, VersionNotAvailableException {
+				return listOf(getPois(parameterList));
+			}
+		};
+	}
+
+	/*
+	 * Fetches pages of events.
+	 */
+	PageSource<Event> eventPages() {
+		return new PageSource<Event>() {
+			@Override
+			public List<Event> fetch(ParameterList parameterList)
+					throws InvalidParameterException, IOException,
+					ResourceNotAllowedException, UnknownErrorException,
+					ServerErrorException, VersionNotAvailableException {
+				return listOf(getEvents(parameterList));
+			}
+		};
+	}
+
+	/*
+	 * Fetches pages of routes.
+	 */
+	PageSource<Route> routePages() {
+		return new PageSource<Route>() {
+			@Override
+			public List<Route> fetch(ParameterList parameterList)
+					throws InvalidParameterException, IOException,
+					ResourceNotAllowedException, UnknownErrorException,
+					ServerErrorException, VersionNotAvailableException {
+				return listOf(getRoutes(parameterList));
+			}
+		};
+	}
+
+	/*
+	 * Gets the items of a listing, or none when the server sent no listing.
+	 */
+	private static <T> List<T> listOf(POIS<T> pois) {
+		if (pois == null)
+			return Collections.<T>emptyList();
+
+		return pois.getList();
+	}
+
+	/*
+	 * Performs the request and parses the response as the given class. Each
+	 * call uses its own parser so concurrent requests do not share state.
+	 * When a cache is set, responses of cached resources are served from and
+	 * stored in it, and expired responses are revalidated with a conditional
+	 * request when the server sent validators.
+	 */
+	private <T extends Deserializable> T query(ResourceTerms resource, String url, Class<T> clazz)
+			throws IOException, UnknownErrorException, ServerErrorException {
+		return query(cache, resource, url, clazz);
+	}
+
+	/*
+	 * Performs the request through the given cache, if any. Concurrent 
+	 * requests for the same URL, class and cache that are not served by the
+	 * cache share a single request and the same parsed object.
+	 */
+	static <T extends Deserializable> T query(final ResponseCache cache, final ResourceTerms resource,
+			final String url, final Class<T> clazz) throws IOException, UnknownErrorException,
+			ServerErrorException {
+		if (cache != null && url != null && cache.isCached(resource)) {
+			CacheEntry entry = cache.get(url);
+			if (entry != null)
+				return valueOf(cache, entry, clazz);
+		}
+
+		return SingleFlight.execute(cache, clazz, url, new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				return fetch(cache, resource, url, clazz);
+			}
+		});
+	}
+
+	/*
+	 * Performs the request, revalidating the stale cached response if there
+	 * is one.
+	 */
+	private static <T extends Deserializable> T fetch(ResponseCache cache, ResourceTerms resource,
+			String url, Class<T> clazz) throws IOException, UnknownErrorException,
+			ServerErrorException {
+		if (cache == null || url == null || !cache.isCached(resource)) {
+			Reader reader = Request.openResponse(url);
+			try {
+				return JsonParser.parse(reader, clazz);
+			} finally {
+				if (reader != null)
+					reader.close();
+			}
+		}
+
+		CacheEntry stale = cache.getStale(url);
+		Request.Body body;
+		if (stale != null) {
+			body = Request.getBody(url, stale.getEtag(), stale.getLastModified());
+			if (body.isNotModified()) {
+				CacheEntry renewed = cache.revalidate(stale);
+				return valueOf(cache, renewed != null ? renewed : stale, clazz);
+			}
+		} else {
+			body = Request.getBody(url, null, null);
+		}
+
+		T value = parse(body.getData(), clazz);
+		cache.put(url, resource, value, body.getData(), body.getEtag(), body.getLastModified());
+		return value;
+	}
+
+	/*
+	 * Gets the cached object, parsing the cached body if it was read from the
+	 * disk or cached as another class.
+	 */
+	private static <T extends Deserializable> T valueOf(ResponseCache cache, CacheEntry entry,
+			Class<T> clazz) throws IOException, UnknownErrorException {
+		if (clazz.isInstance(entry.getValue()))
+			return clazz.cast(entry.getValue());
+
+		T value = parse(entry.getBody(), clazz);
+		if (entry.getValue() == null)
+			cache.update(entry, value);
+
+		return value;
+	}
+
+	/*
+	 * Parses the given UTF-8 body as the given class.
+	 */
+	private static <T extends Deserializable> T parse(byte[] body, Class<T> clazz)
+			throws IOException, UnknownErrorException {
+		return JsonParser.parse(new InputStreamReader(new ByteArrayInputStream(body), "UTF-8"), clazz);
+	}
+
 	/*
 	 * Validates the term by verifying if it is POIS, EVENTS or ROUTES
 	 */
@@ -678,85 +1183,51 @@ public class TourismClient implements Cloneable {
 	}
 
 	/*
-	 * Verifies if this client has a given API version
+	 * Verifies if this client has a given API version, returning the version
+	 * in use that was verified
 	 */
-	private void verifyVersion() throws VersionNotAvailableException {
-		if (!resources.hasVersion(version))
-			throw new VersionNotAvailableException(version
+	private VersionState verifyVersion() throws VersionNotAvailableException {
+		VersionState state = this.state;
+		if (!resources.hasVersion(state.version))
+			throw new VersionNotAvailableException(state.version
 					+ " is not available");
+
+		return state;
 	}
 
 	/*
-	 * Validates the query list and builds the desired URL.
+	 * Validates the query list and builds the desired URL with the builders
+	 * of the version in use.
 	 */
 	private String validateAndBuildUrl(ResourceTerms resource,
 			ParameterList parameterList) throws InvalidParameterException,
 			ResourceNotAllowedException, VersionNotAvailableException {
-		verifyVersion();
-		verifyResource(resource);
-		validateParameters(parameterList, resource);
-		return buildQueryUrl(resource, parameterList,
-				resources.getHypermediaWithVersion(version));
-	}
+		VersionState state = this.state;
+		if (state.builders == null)
+			throw new VersionNotAvailableException(state.version
+					+ " is not available");
 
-	/*
-	 * Checks the parameter availability in the server.
-	 */
-	private void verifyResource(ResourceTerms resource)
-			throws ResourceNotAllowedException {
-		if (!resources.hasResource(version, resource)) {
+		UrlBuilder builder = state.builders.get(resource);
+		if (builder == null)
 			throw new ResourceNotAllowedException(resource.getTerm()
 					+ " is not allowed for this server");
-		}
-	}
 
-	/*
-	 * Validates the parameters with a given validator
-	 */
-	private void validateParameters(ParameterList parameterList,
-			ResourceTerms resource) throws InvalidParameterException {
-		if (parameterList == null)
-			return;
-
-		Hypermedia media = resources.getHypermediaWithVersion(version)
-				.getLinks().get(resource.getTerm());
-		if (media.isTemplated()) {
-			for (int i = 0; i < parameterList.size(); i++) {
-				Parameter p = parameterList.get(i);
-				if (!UriTemplate.fromTemplate(media.getHref()).hasParameter(
-						p.getTerm())) {
-					throw new InvalidParameterException(p.getTerm()
-							+ " is not a valid parameter");
-				}
-			}
-		}
+		return builder.build(parameterList);
 	}
 
 	/*
-	 * Given a query list, it will create the basic URL for the HTTP request,
-	 * following the desired query.
-	 */
-	private String buildQueryUrl(ResourceTerms resource,
-			ParameterList parameterList, HypermediaLink links) {
-		String url = null;
-
-		if (parameterList == null)
-			return null;
-
-		Map<String, Hypermedia> hypermedia = links.getLinks();
-		Hypermedia media = hypermedia.get(resource.getTerm());
-		if (media.isTemplated()) {
-			UriTemplate template = UriTemplate.fromTemplate(media.getHref());
-			for (int i = 0; i < parameterList.size(); i++) {
-				Parameter parameter = parameterList.get(i);
-				template.set(parameter.getTerm(), parameter.getValue());
-			}
+	 * The version in use and the URL builders of its resources, published 
+	 * together so that no request sees the builders of another version.
+	 */
+	private static final class VersionState {
+		static final VersionState NONE = new VersionState(null, null);
 
-			url = template.build();
-		} else {
-			url = media.getHref();
-		}
+		final String version;
+		final Map<ResourceTerms, UrlBuilder> builders;
 
-		return url;
+		VersionState(String version, Map<ResourceTerms, UrlBuilder> builders) {
+			this.version = version;
+			this.builders = builders;
+		}
 	}
 }
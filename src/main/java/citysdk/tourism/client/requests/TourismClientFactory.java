@@ -21,31 +21,33 @@
 package citysdk.tourism.client.requests;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import citysdk.tourism.client.exceptions.ServerErrorException;
 import citysdk.tourism.client.exceptions.UnknownErrorException;
-import citysdk.tourism.client.parser.JsonParser;
 import citysdk.tourism.client.poi.lists.Resources;
+import citysdk.tourism.client.requests.cache.ResponseCache;
 
 /**
  * Factory class allowing the creation of a {@link TourismClient}. For each link, it makes
  * only one HTTP call, fills a {@link TourismClient}, returns it and saves it. In future creations,
  * it verifies if it was already called and if positive returns the result without making 
  * a new HTTP call.
+ * 
+ * <p>The factory can be used by several threads at once. Each call returns its own
+ * {@link TourismClient}, so setting the version of one does not change the others.</p>
  *  
  * @author Pedro Cruz
  *
  */
 public class TourismClientFactory {
-	private Map<String, TourismClient> loadedUrls;
-	private JsonParser parser;
+	private ConcurrentMap<String, TourismClient> loadedUrls;
+	private volatile ResponseCache cache;
 	private static TourismClientFactory instance = null;
 
 	private TourismClientFactory() { 
-		parser = new JsonParser(null);
-		loadedUrls = new HashMap<String, TourismClient>();
+		loadedUrls = new ConcurrentHashMap<String, TourismClient>();
 	}
 
 	/**
@@ -59,6 +61,21 @@ public class TourismClientFactory {
 		return instance;
 	}
 
+	public ResponseCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Sets the cache of responses used to get the resources of a home URL,
+	 * which is also set in every {@link TourismClient} returned from now on.
+	 * With a {@link citysdk.tourism.client.requests.cache.DiskCache} behind it,
+	 * the resources are read from the disk after a restart.
+	 * @param cache the {@link ResponseCache} to use, or <code>null</code> to not cache responses.
+	 */
+	public void setCache(ResponseCache cache) {
+		this.cache = cache;
+	}
+
 	/**
 	 * Gets a new {@link TourismClient} stub.
 	 * @param homeUrl the entrypoint of the home URL to query.
@@ -67,27 +84,27 @@ public class TourismClientFactory {
 	 * @throws ServerErrorException thrown if the server returns a code different from HTTP 200 OK.
 	 */
 	public TourismClient getClient(String homeUrl) throws IOException, UnknownErrorException, ServerErrorException {
-		TourismClient client = null;
-		if(!loadedUrls.containsKey(homeUrl)){
+		TourismClient client = loadedUrls.get(homeUrl);
+		if(client == null) {
 			client = initializeClient(homeUrl);
-			loadedUrls.put(homeUrl, client);
-		} else {
-			try {
-				client = (TourismClient) loadedUrls.get(homeUrl).clone();
-			} catch (CloneNotSupportedException e) {
-				e.printStackTrace();
-			}
+			TourismClient loaded = loadedUrls.putIfAbsent(homeUrl, client);
+			if(loaded != null)
+				client = loaded;
 		}
 		
-		return client;
+		TourismClient copy = new TourismClient(client);
+		ResponseCache cache = this.cache;
+		if (cache != null)
+			copy.setCache(cache);
+
+		return copy;
 	}
 	
 	/*
 	 * Initializes a TourismClient stub
 	 */
 	private TourismClient initializeClient(String homeUrl) throws IOException, UnknownErrorException, ServerErrorException {
-		parser.setJson(Request.getResponse(homeUrl));
-		Resources links = parser.parseJsonAsResources();
+		Resources links = TourismClient.query(cache, null, homeUrl, Resources.class);
 		return new TourismClient(homeUrl, links);
 	}
 }
@@ -0,0 +1,104 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.requests;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import citysdk.tourism.client.exceptions.InvalidParameterException;
+import citysdk.tourism.client.poi.single.Hypermedia;
+import citysdk.tourism.client.poi.single.HypermediaLink;
+import citysdk.tourism.client.requests.uri.CompiledUriTemplate;
+import citysdk.tourism.client.terms.ParameterTerms;
+import citysdk.tourism.client.terms.ResourceTerms;
+
+/*
+ * Builds the URLs of a resource of a given version of the API. Builders are 
+ * created once for all the resources of a version, when the version is set,
+ * holding the compiled template of the resource and the parameters it 
+ * accepts, so building an URL does not look up the resources again.
+ */
+final class UrlBuilder {
+	private final String href;
+	private final CompiledUriTemplate template;
+	private final Set<ParameterTerms> parameters;
+
+	private UrlBuilder(Hypermedia media) {
+		this.href = media.getHref();
+		if (media.isTemplated()) {
+			this.template = CompiledUriTemplate.compile(href);
+			EnumSet<ParameterTerms> parameters = EnumSet.noneOf(ParameterTerms.class);
+			for (ParameterTerms parameter : ParameterTerms.values()) {
+				if (template.hasParameter(parameter.getTerm()))
+					parameters.add(parameter);
+			}
+			this.parameters = parameters;
+		} else {
+			this.template = null;
+			this.parameters = EnumSet.noneOf(ParameterTerms.class);
+		}
+	}
+
+	/*
+	 * Creates the builders of all the resources of a version.
+	 */
+	static Map<ResourceTerms, UrlBuilder> forVersion(HypermediaLink link) {
+		Map<ResourceTerms, UrlBuilder> builders = new EnumMap<ResourceTerms, UrlBuilder>(ResourceTerms.class);
+		for (ResourceTerms resource : ResourceTerms.values()) {
+			Hypermedia media = link.getLinks().get(resource.getTerm());
+			if (media != null)
+				builders.put(resource, new UrlBuilder(media));
+		}
+
+		return Collections.unmodifiableMap(builders);
+	}
+
+	boolean hasParameter(ParameterTerms parameter) {
+		return parameters.contains(parameter);
+	}
+
+	/*
+	 * Validates the parameters and builds the URL in a single pass. The
+	 * parameters of resources that are not templated are not checked.
+	 */
+	String build(ParameterList parameterList) throws InvalidParameterException {
+		if (parameterList == null)
+			return null;
+
+		if (template == null)
+			return href;
+
+		Map<String, Object> values = new HashMap<String, Object>();
+		for (Parameter parameter : parameterList) {
+			if (!parameters.contains(parameter.getParameterTerm()))
+				throw new InvalidParameterException(parameter.getTerm()
+						+ " is not a valid parameter");
+
+			values.put(parameter.getTerm(), parameter.getValue());
+		}
+
+		return template.expand(values);
+	}
+}
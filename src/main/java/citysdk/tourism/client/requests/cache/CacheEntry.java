@@ -0,0 +1,135 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.requests.cache;
+
+import citysdk.tourism.client.terms.ResourceTerms;
+
+/**
+ * A cached response: the parsed object along with the raw body it was parsed
+ * from. The parsed object is shared by every request served from the cache
+ * and should not be modified.
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public class CacheEntry {
+	private final String url;
+	private final ResourceTerms resource;
+	private final Object value;
+	private final byte[] body;
+	private final String etag;
+	private final String lastModified;
+	private final long expires;
+
+	CacheEntry(String url, ResourceTerms resource, Object value, byte[] body,
+			String etag, String lastModified, long expires) {
+		this.url = url;
+		this.resource = resource;
+		this.value = value;
+		this.body = body;
+		this.etag = etag;
+		this.lastModified = lastModified;
+		this.expires = expires;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * Gets the resource requested, used to choose the time to live.
+	 * @return the resource, or <code>null</code> if unknown.
+	 */
+	public ResourceTerms getResource() {
+		return resource;
+	}
+
+	/**
+	 * Gets the parsed response.
+	 * @return the object parsed from the body.
+	 */
+	public Object getValue() {
+		return value;
+	}
+
+	/**
+	 * Gets the raw (decompressed) body of the response.
+	 * @return the body of the response.
+	 */
+	public byte[] getBody() {
+		return body;
+	}
+
+	/**
+	 * Gets the ETag validator sent by the server with the response.
+	 * @return the entity tag, or <code>null</code>.
+	 */
+	public String getEtag() {
+		return etag;
+	}
+
+	/**
+	 * Gets the Last-Modified validator sent by the server with the response.
+	 * @return the date of the last modification, as sent by the server, or <code>null</code>.
+	 */
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * Checks whether the response can be revalidated with a conditional
+	 * request once it expires.
+	 * @return <code>true</code> if it has any validator, <code>false</code> otherwise.
+	 */
+	public boolean hasValidators() {
+		return etag != null || lastModified != null;
+	}
+
+	/**
+	 * Gets the time at which this entry expires.
+	 * @return the expiration time, in milliseconds since the epoch.
+	 */
+	public long getExpires() {
+		return expires;
+	}
+
+	/**
+	 * Checks whether this entry has expired at the given time.
+	 * @param now the time, in milliseconds since the epoch.
+	 * @return <code>true</code> if it has expired, <code>false</code> otherwise.
+	 */
+	public boolean isExpired(long now) {
+		return now >= expires;
+	}
+
+	/*
+	 * Approximate size of the entry, in bytes.
+	 */
+	int getWeight() {
+		int weight = body.length + 2 * url.length() + 64;
+		if (etag != null)
+			weight += 2 * etag.length();
+		if (lastModified != null)
+			weight += 2 * lastModified.length();
+
+		return weight;
+	}
+}
@@ -0,0 +1,145 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.requests.cache;
+
+/**
+ * A snapshot of the state of a {@link ResponseCache}.
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public class CacheStats {
+	private final int entries;
+	private final long bytes;
+	private final long maxBytes;
+	private final long hits;
+	private final long misses;
+	private final long diskHits;
+	private final long evictions;
+	private final long expirations;
+	private final long revalidations;
+
+	CacheStats(int entries, long bytes, long maxBytes, long hits, long misses,
+			long diskHits, long evictions, long expirations, long revalidations) {
+		this.entries = entries;
+		this.bytes = bytes;
+		this.maxBytes = maxBytes;
+		this.hits = hits;
+		this.misses = misses;
+		this.diskHits = diskHits;
+		this.evictions = evictions;
+		this.expirations = expirations;
+		this.revalidations = revalidations;
+	}
+
+	/**
+	 * Gets the number of responses currently cached.
+	 * @return the number of entries.
+	 */
+	public int getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Gets the approximate size of the cached responses.
+	 * @return the size of the entries, in bytes.
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Gets the maximum size of the cached responses.
+	 * @return the maximum size, in bytes.
+	 */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Gets the total number of requests served from the cache.
+	 * @return the number of hits.
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the total number of requests not found (or expired) in the cache.
+	 * @return the number of misses.
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Gets the total number of hits served from the disk cache, included in
+	 * the number of hits.
+	 * @return the number of hits read from the disk.
+	 */
+	public long getDiskHits() {
+		return diskHits;
+	}
+
+	/**
+	 * Gets the total number of entries removed to keep the cache within its
+	 * maximum size.
+	 * @return the number of evictions.
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Gets the total number of entries removed because they expired.
+	 * @return the number of expirations.
+	 */
+	public long getExpirations() {
+		return expirations;
+	}
+
+	/**
+	 * Gets the total number of expired entries the server confirmed as not
+	 * modified, through a conditional request.
+	 * @return the number of revalidations.
+	 */
+	public long getRevalidations() {
+		return revalidations;
+	}
+
+	/**
+	 * Gets the ratio of requests served from the cache.
+	 * @return the hit ratio, between 0 and 1.
+	 */
+	public double getHitRatio() {
+		long requests = hits + misses;
+		return requests == 0 ? 0 : (double) hits / requests;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheStats [entries=" + entries + ", bytes=" + bytes
+				+ ", maxBytes=" + maxBytes + ", hits=" + hits + ", misses="
+				+ misses + ", diskHits=" + diskHits + ", evictions="
+				+ evictions + ", expirations=" + expirations
+				+ ", revalidations=" + revalidations + "]";
+	}
+}
@@ -0,0 +1,409 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.requests.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import citysdk.tourism.client.terms.ResourceTerms;
+
+/**
+ * Persistent cache of response bodies, kept in a directory so that it
+ * survives restarts. It is used as a second tier behind a
+ * {@link ResponseCache}, through {@link ResponseCache#setDiskCache(DiskCache)}.
+ * 
+ * <p>Each response is kept in its own file, named after the SHA-1 of its URL,
+ * holding a small header (URL, resource, expiration time and validators)
+ * followed by the body. Files are written to a temporary file, forced to the
+ * disk and only then atomically renamed over the previous entry, so after a 
+ * crash, even a power loss, an entry holds either its previous or its new 
+ * content in full; the rename itself may be lost, leaving the previous entry 
+ * or none. Leftover temporary files are deleted when the cache is opened. On
+ * creation only the headers are read to index the existing entries. The least
+ * recently used entries are deleted to keep the directory within a maximum
+ * size.</p>
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public class DiskCache {
+	private static final int MAGIC = 0xC17D5D4C;
+	private static final int FORMAT_VERSION = 1;
+	private static final String SUFFIX = ".cache";
+	private static final String TEMP_SUFFIX = ".tmp";
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final Logger logger = LogManager.getLogManager().getLogger(Logger.GLOBAL_LOGGER_NAME);
+	private final File directory;
+	private final long maxBytes;
+	private final LinkedHashMap<String, Header> index;
+	private long bytes;
+
+	/**
+	 * Opens the cache kept in the given directory, creating it if needed, and
+	 * indexes the entries already in it.
+	 * @param directory the directory holding the cache.
+	 * @param maxBytes the maximum size of the cached files, in bytes.
+	 * @throws IOException thrown if the directory cannot be created.
+	 */
+	public DiskCache(File directory, long maxBytes) throws IOException {
+		if (maxBytes <= 0)
+			throw new IllegalArgumentException("Maximum size must be positive");
+
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Cannot create " + directory);
+
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+		this.index = new LinkedHashMap<String, Header>(16, 0.75f, true);
+		load();
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Gets the number of responses cached.
+	 * @return the number of entries.
+	 */
+	public synchronized int size() {
+		return index.size();
+	}
+
+	/**
+	 * Gets the size of the cached files.
+	 * @return the size of the files, in bytes.
+	 */
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Reads the entry of the given URL, if it has not expired or it can be
+	 * revalidated. The returned entry has no parsed value.
+	 * @param url the URL of the request.
+	 * @return the entry, or <code>null</code> if it is not cached.
+	 */
+	public synchronized CacheEntry get(String url) {
+		Header header = index.get(url);
+		if (header == null)
+			return null;
+
+		if (header.etag == null && header.lastModified == null
+				&& System.currentTimeMillis() >= header.expires) {
+			remove(url);
+			return null;
+		}
+
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(header.file)));
+			Header read = readHeader(in, header.file);
+			if (read == null || !url.equals(read.url))
+				throw new IOException("Corrupted entry " + header.file);
+
+			byte[] body = new byte[read.bodyLength];
+			in.readFully(body);
+			header.file.setLastModified(System.currentTimeMillis());
+			return new CacheEntry(url, read.resource, null, body, read.etag,
+					read.lastModified, read.expires);
+		} catch (IOException e) {
+			logger.warning("Could not read cached " + url + ": " + e.getMessage());
+			remove(url);
+			return null;
+		} finally {
+			close(in);
+		}
+	}
+
+	/**
+	 * Writes the given entry, replacing any previous entry of its URL.
+	 * Entries larger than the cache are not written.
+	 * @param entry the entry to write.
+	 */
+	public synchronized void put(CacheEntry entry) {
+		File file = fileOf(entry.getUrl());
+		File temp = null;
+		DataOutputStream out = null;
+		try {
+			temp = File.createTempFile(file.getName(), TEMP_SUFFIX, directory);
+			FileOutputStream stream = new FileOutputStream(temp);
+			out = new DataOutputStream(new BufferedOutputStream(stream));
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(entry.getUrl());
+			out.writeUTF(entry.getResource() != null ? entry.getResource().name() : "");
+			out.writeLong(entry.getExpires());
+			writeOptional(out, entry.getEtag());
+			writeOptional(out, entry.getLastModified());
+			out.writeInt(entry.getBody().length);
+			out.write(entry.getBody());
+			// the data must be on the disk before the rename can be
+			out.flush();
+			stream.getFD().sync();
+			out.close();
+			out = null;
+
+			if (temp.length() > maxBytes) {
+				temp.delete();
+				return;
+			}
+
+			// the move replaces the previous file, which stays readable until then
+			try {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			Header previous = index.remove(entry.getUrl());
+			if (previous != null)
+				bytes -= previous.size;
+
+			Header header = new Header(file, entry.getUrl(), entry.getResource(),
+					entry.getExpires(), entry.getEtag(), entry.getLastModified(),
+					entry.getBody().length, file.length());
+			index.put(entry.getUrl(), header);
+			bytes += header.size;
+			evict();
+		} catch (IOException e) {
+			logger.warning("Could not cache " + entry.getUrl() + ": " + e.getMessage());
+			close(out);
+			if (temp != null)
+				temp.delete();
+		}
+	}
+
+	/**
+	 * Deletes the entry of the given URL.
+	 * @param url the URL of the request.
+	 */
+	public synchronized void invalidate(String url) {
+		remove(url);
+	}
+
+	/**
+	 * Deletes every entry.
+	 */
+	public synchronized void clear() {
+		for (Header header : index.values())
+			header.file.delete();
+
+		index.clear();
+		bytes = 0;
+	}
+
+	/*
+	 * Indexes the entries in the directory, reading only their headers, from
+	 * the least to the most recently used. Leftover temporary files and
+	 * unreadable entries are deleted.
+	 */
+	private void load() {
+		File[] files = directory.listFiles();
+		if (files == null)
+			return;
+
+		List<Header> headers = new ArrayList<Header>();
+		for (File file : files) {
+			String name = file.getName();
+			if (name.endsWith(TEMP_SUFFIX)) {
+				file.delete();
+				continue;
+			} else if (!name.endsWith(SUFFIX)) {
+				continue;
+			}
+
+			DataInputStream in = null;
+			Header header = null;
+			try {
+				in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1024));
+				header = readHeader(in, file);
+			} catch (IOException e) {
+				header = null;
+			} finally {
+				close(in);
+			}
+
+			if (header == null || !file.equals(fileOf(header.url)))
+				file.delete();
+			else
+				headers.add(header);
+		}
+
+		Collections.sort(headers, new Comparator<Header>() {
+			@Override
+			public int compare(Header h1, Header h2) {
+				long m1 = h1.file.lastModified(), m2 = h2.file.lastModified();
+				return m1 < m2 ? -1 : (m1 == m2 ? 0 : 1);
+			}
+		});
+
+		for (Header header : headers) {
+			index.put(header.url, header);
+			bytes += header.size;
+		}
+		evict();
+	}
+
+	/*
+	 * Reads the header of an entry, or returns null if it is not a valid
+	 * entry of this version.
+	 */
+	private static Header readHeader(DataInputStream in, File file) throws IOException {
+		if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION)
+			return null;
+
+		String url = in.readUTF();
+		String resource = in.readUTF();
+		long expires = in.readLong();
+		String etag = readOptional(in);
+		String lastModified = readOptional(in);
+		int bodyLength = in.readInt();
+		if (bodyLength < 0)
+			return null;
+
+		ResourceTerms term = null;
+		if (!resource.isEmpty()) {
+			try {
+				term = ResourceTerms.valueOf(resource);
+			} catch (IllegalArgumentException e) {
+				return null;
+			}
+		}
+
+		return new Header(file, url, term, expires, etag, lastModified, bodyLength, file.length());
+	}
+
+	private static void writeOptional(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null)
+			out.writeUTF(value);
+	}
+
+	private static String readOptional(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	/*
+	 * Deletes the entry of the given URL, updating the size of the cache.
+	 */
+	private void remove(String url) {
+		Header header = index.remove(url);
+		if (header != null) {
+			bytes -= header.size;
+			header.file.delete();
+		}
+	}
+
+	/*
+	 * Deletes the least recently used entries until the cache fits its
+	 * maximum size.
+	 */
+	private void evict() {
+		Iterator<Header> iterator = index.values().iterator();
+		while (bytes > maxBytes && iterator.hasNext()) {
+			Header header = iterator.next();
+			iterator.remove();
+			bytes -= header.size;
+			header.file.delete();
+		}
+	}
+
+	/*
+	 * Gets the file of the given URL, named after its SHA-1.
+	 */
+	private File fileOf(String url) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(url.getBytes("UTF-8"));
+			char[] name = new char[digest.length * 2];
+			for (int i = 0; i < digest.length; i++) {
+				name[2 * i] = HEX[(digest[i] >> 4) & 0xF];
+				name[2 * i + 1] = HEX[digest[i] & 0xF];
+			}
+
+			return new File(directory, new String(name) + SUFFIX);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void close(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	/*
+	 * The header of an entry, kept in memory as its index.
+	 */
+	private static class Header {
+		private final File file;
+		private final String url;
+		private final ResourceTerms resource;
+		private final long expires;
+		private final String etag;
+		private final String lastModified;
+		private final int bodyLength;
+		private final long size;
+
+		Header(File file, String url, ResourceTerms resource, long expires,
+				String etag, String lastModified, int bodyLength, long size) {
+			this.file = file;
+			this.url = url;
+			this.resource = resource;
+			this.expires = expires;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.bodyLength = bodyLength;
+			this.size = size;
+		}
+	}
+}
@@ -0,0 +1,350 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.requests.cache;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import citysdk.tourism.client.terms.ResourceTerms;
+
+/**
+ * In-memory cache of responses, keyed by the URL of the request. Entries
+ * expire after a time to live chosen by the resource requested, and the least
+ * recently used entries are evicted to keep the cache within a maximum size,
+ * measured by the size of the raw bodies.
+ * 
+ * <p>Expired entries having validators (ETag or Last-Modified) are kept, so
+ * they can be revalidated with a conditional request and served again if the
+ * server answers that they were not modified.</p>
+ * 
+ * <p>A {@link DiskCache} can be set as a second tier. Every response cached
+ * is also written to it, and responses not found in memory are read from it,
+ * so they survive restarts.</p>
+ * 
+ * <p>By default, categories and tags live for a day, events for a minute and
+ * the remaining resources for five minutes. A time to live of 0 disables the
+ * caching of a resource. The cache is safe for concurrent use and can be
+ * shared by several {@link citysdk.tourism.client.requests.TourismClient}.</p>
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public class ResponseCache {
+	private static final long MINUTE = 60 * 1000;
+	private static final long DEFAULT_TTL = 5 * MINUTE;
+
+	private final long maxBytes;
+	private final Map<ResourceTerms, Long> ttls;
+	private final LinkedHashMap<String, CacheEntry> entries;
+	private long defaultTtl;
+	private volatile DiskCache disk;
+	private long bytes;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long expirations;
+	private long revalidations;
+	private long diskHits;
+
+	/**
+	 * Creates a cache holding up to the given number of bytes.
+	 * @param maxBytes the maximum size of the cached bodies, in bytes.
+	 */
+	public ResponseCache(long maxBytes) {
+		if (maxBytes <= 0)
+			throw new IllegalArgumentException("Maximum size must be positive");
+
+		this.maxBytes = maxBytes;
+		this.defaultTtl = DEFAULT_TTL;
+		this.ttls = new EnumMap<ResourceTerms, Long>(ResourceTerms.class);
+		this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true);
+
+		ttls.put(ResourceTerms.FIND_CATEGORIES, 24 * 60 * MINUTE);
+		ttls.put(ResourceTerms.FIND_TAGS, 24 * 60 * MINUTE);
+		ttls.put(ResourceTerms.RESOURCE_EVENTS, MINUTE);
+		ttls.put(ResourceTerms.FIND_EVENT, MINUTE);
+		ttls.put(ResourceTerms.FIND_EVENT_RELATION, MINUTE);
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public DiskCache getDiskCache() {
+		return disk;
+	}
+
+	/**
+	 * Sets the persistent cache used as a second tier.
+	 * @param disk the {@link DiskCache}, or <code>null</code> to only cache in memory.
+	 */
+	public void setDiskCache(DiskCache disk) {
+		this.disk = disk;
+	}
+
+	/**
+	 * Sets the time to live of the responses of the given resource.
+	 * @param resource the resource.
+	 * @param ttl the time to live, in milliseconds, or 0 to not cache it.
+	 */
+	public synchronized void setTtl(ResourceTerms resource, long ttl) {
+		if (ttl < 0)
+			throw new IllegalArgumentException("Time to live cannot be negative");
+
+		ttls.put(resource, ttl);
+	}
+
+	/**
+	 * Sets the time to live of the responses of resources without a time to
+	 * live of their own, including requests of a single POI, Event or Route
+	 * through {@link citysdk.tourism.client.requests.TourismClient#getGeneric(String, String)}.
+	 * @param ttl the time to live, in milliseconds, or 0 to not cache them.
+	 */
+	public synchronized void setDefaultTtl(long ttl) {
+		if (ttl < 0)
+			throw new IllegalArgumentException("Time to live cannot be negative");
+
+		defaultTtl = ttl;
+	}
+
+	/**
+	 * Gets the time to live of the responses of the given resource.
+	 * @param resource the resource, or <code>null</code>.
+	 * @return the time to live, in milliseconds.
+	 */
+	public synchronized long getTtl(ResourceTerms resource) {
+		Long ttl = resource != null ? ttls.get(resource) : null;
+		return ttl != null ? ttl : defaultTtl;
+	}
+
+	/**
+	 * Checks whether the responses of the given resource are cached.
+	 * @param resource the resource, or <code>null</code>.
+	 * @return <code>true</code> if its time to live is positive.
+	 */
+	public boolean isCached(ResourceTerms resource) {
+		return getTtl(resource) > 0;
+	}
+
+	/**
+	 * Gets the entry of the given URL, if it is cached and has not expired.
+	 * Entries read from the disk cache have no parsed value until one is set
+	 * through {@link #update(CacheEntry, Object)}.
+	 * @param url the URL of the request.
+	 * @return the entry, or <code>null</code>.
+	 */
+	public CacheEntry get(String url) {
+		synchronized (this) {
+			CacheEntry entry = entries.get(url);
+			if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+				if (!entry.hasValidators()) {
+					remove(url);
+					expirations++;
+				}
+				entry = null;
+			}
+
+			if (entry != null || disk == null || entries.containsKey(url)) {
+				if (entry != null)
+					hits++;
+				else
+					misses++;
+
+				return entry;
+			}
+		}
+
+		CacheEntry entry = disk.get(url);
+		synchronized (this) {
+			if (entry == null) {
+				misses++;
+				return null;
+			}
+
+			if (!entries.containsKey(url))
+				add(entry);
+
+			if (entry.isExpired(System.currentTimeMillis())) {
+				misses++;
+				return null;
+			}
+
+			hits++;
+			diskHits++;
+			return entry;
+		}
+	}
+
+	/**
+	 * Gets the expired entry of the given URL, if it can be revalidated.
+	 * It does not count as a hit or a miss.
+	 * @param url the URL of the request.
+	 * @return the expired entry having validators, or <code>null</code>.
+	 */
+	public synchronized CacheEntry getStale(String url) {
+		CacheEntry entry = entries.get(url);
+		if (entry != null && entry.hasValidators()
+				&& entry.isExpired(System.currentTimeMillis()))
+			return entry;
+
+		return null;
+	}
+
+	/**
+	 * Caches the response of the given URL with the time to live of the given
+	 * resource. Responses larger than the cache are not cached.
+	 * @param url the URL of the request.
+	 * @param resource the resource requested, or <code>null</code>.
+	 * @param value the parsed response.
+	 * @param body the raw (decompressed) body of the response.
+	 * @return the new entry, or <code>null</code> if it was not cached.
+	 */
+	public CacheEntry put(String url, ResourceTerms resource, Object value, byte[] body) {
+		return put(url, resource, value, body, null, null);
+	}
+
+	/**
+	 * Caches the response of the given URL, along with its validators, with
+	 * the time to live of the given resource. Responses larger than the cache
+	 * are not cached.
+	 * @param url the URL of the request.
+	 * @param resource the resource requested, or <code>null</code>.
+	 * @param value the parsed response.
+	 * @param body the raw (decompressed) body of the response.
+	 * @param etag the ETag of the response, or <code>null</code>.
+	 * @param lastModified the Last-Modified date of the response, or <code>null</code>.
+	 * @return the new entry, or <code>null</code> if it was not cached.
+	 */
+	public CacheEntry put(String url, ResourceTerms resource, Object value,
+			byte[] body, String etag, String lastModified) {
+		long ttl = getTtl(resource);
+		if (ttl <= 0)
+			return null;
+
+		CacheEntry entry = new CacheEntry(url, resource, value, body, etag,
+				lastModified, System.currentTimeMillis() + ttl);
+		if (entry.getWeight() > maxBytes)
+			return null;
+
+		synchronized (this) {
+			add(entry);
+		}
+
+		DiskCache disk = this.disk;
+		if (disk != null)
+			disk.put(entry);
+
+		return entry;
+	}
+
+	/**
+	 * Sets the parsed value of an entry read from the disk cache, so later
+	 * requests do not parse its body again.
+	 * @param entry the entry read from the disk cache.
+	 * @param value the value parsed from its body.
+	 */
+	public synchronized void update(CacheEntry entry, Object value) {
+		if (entries.get(entry.getUrl()) == entry) {
+			add(new CacheEntry(entry.getUrl(), entry.getResource(), value, entry.getBody(),
+					entry.getEtag(), entry.getLastModified(), entry.getExpires()));
+		}
+	}
+
+	/**
+	 * Renews an expired entry after the server answered that it was not
+	 * modified, giving it a new time to live.
+	 * @param entry the expired entry.
+	 * @return the renewed entry, or <code>null</code> if it can no longer be cached.
+	 */
+	public CacheEntry revalidate(CacheEntry entry) {
+		synchronized (this) {
+			revalidations++;
+		}
+
+		return put(entry.getUrl(), entry.getResource(), entry.getValue(),
+				entry.getBody(), entry.getEtag(), entry.getLastModified());
+	}
+
+	/**
+	 * Removes the entry of the given URL, from memory and from the disk cache.
+	 * @param url the URL of the request.
+	 */
+	public synchronized void invalidate(String url) {
+		remove(url);
+		if (disk != null)
+			disk.invalidate(url);
+	}
+
+	/**
+	 * Removes every entry kept in memory. The disk cache, if any, is kept.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * Gets a snapshot of the state of the cache.
+	 * @return the statistics of the cache.
+	 */
+	public synchronized CacheStats getStats() {
+		return new CacheStats(entries.size(), bytes, maxBytes, hits, misses,
+				diskHits, evictions, expirations, revalidations);
+	}
+
+	/*
+	 * Adds the entry, replacing any previous one of its URL, and evicts the
+	 * least recently used entries if needed.
+	 */
+	private void add(CacheEntry entry) {
+		remove(entry.getUrl());
+		entries.put(entry.getUrl(), entry);
+		bytes += entry.getWeight();
+		evict();
+	}
+
+	/*
+	 * Removes the entry of the given URL, updating the size of the cache.
+	 */
+	private CacheEntry remove(String url) {
+		CacheEntry entry = entries.remove(url);
+		if (entry != null)
+			bytes -= entry.getWeight();
+
+		return entry;
+	}
+
+	/*
+	 * Evicts the least recently used entries until the cache fits its
+	 * maximum size.
+	 */
+	private void evict() {
+		Iterator<CacheEntry> iterator = entries.values().iterator();
+		while (bytes > maxBytes && iterator.hasNext()) {
+			CacheEntry entry = iterator.next();
+			iterator.remove();
+			bytes -= entry.getWeight();
+			evictions++;
+		}
+	}
+}
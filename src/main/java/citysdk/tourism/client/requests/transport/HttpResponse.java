@@ -0,0 +1,87 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.requests.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The response of a HTTP request made by a {@link Transport}. The body is 
+ * given as it was sent by the server (i.e., it is not decompressed) and 
+ * should always be closed after being used.
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public class HttpResponse implements Closeable {
+	private static final InputStream EMPTY_BODY = new ByteArrayInputStream(new byte[0]);
+
+	private final int code;
+	private final Map<String, String> headers;
+	private final InputStream body;
+
+	/**
+	 * Creates a response.
+	 * @param code the HTTP status code.
+	 * @param headers the response headers, with the names in lower-case.
+	 * @param body the response body or null if there is none.
+	 */
+	public HttpResponse(int code, Map<String, String> headers, InputStream body) {
+		this.code = code;
+		this.headers = headers == null ? Collections.<String, String>emptyMap() : headers;
+		this.body = body == null ? EMPTY_BODY : body;
+	}
+
+	public int getCode() {
+		return code;
+	}
+
+	/**
+	 * Gets the value of a given header. This method is case insensitive.
+	 * @param name the name of the header.
+	 * @return the value of the header or null if it was not sent.
+	 */
+	public String getHeader(String name) {
+		return headers.get(name.toLowerCase(Locale.ENGLISH));
+	}
+
+	public Map<String, String> getHeaders() {
+		return Collections.unmodifiableMap(headers);
+	}
+
+	/**
+	 * Gets the body of the response.
+	 * @return the body of the response, never null.
+	 */
+	public InputStream getBody() {
+		return body;
+	}
+
+	@Override
+	public void close() throws IOException {
+		body.close();
+	}
+}
@@ -0,0 +1,137 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.requests.transport;
+
+/**
+ * A snapshot of the state of the connection pool of a {@link PooledTransport}.
+ * It can be used to size the pool: a high number of waits means the maximum 
+ * number of connections per host is too low, while a high number of idle 
+ * connections means it is too high.
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public class PoolStats {
+	private final int hosts;
+	private final int leased;
+	private final int idle;
+	private final int pending;
+	private final int maxPerHost;
+	private final long created;
+	private final long reused;
+	private final long closed;
+	private final long waits;
+
+	PoolStats(int hosts, int leased, int idle, int pending, int maxPerHost,
+			long created, long reused, long closed, long waits) {
+		this.hosts = hosts;
+		this.leased = leased;
+		this.idle = idle;
+		this.pending = pending;
+		this.maxPerHost = maxPerHost;
+		this.created = created;
+		this.reused = reused;
+		this.closed = closed;
+		this.waits = waits;
+	}
+
+	/**
+	 * Gets the number of hosts the pool has connected to.
+	 * @return the number of hosts.
+	 */
+	public int getHosts() {
+		return hosts;
+	}
+
+	/**
+	 * Gets the number of connections currently in use.
+	 * @return the number of leased connections.
+	 */
+	public int getLeased() {
+		return leased;
+	}
+
+	/**
+	 * Gets the number of open connections waiting to be reused.
+	 * @return the number of idle connections.
+	 */
+	public int getIdle() {
+		return idle;
+	}
+
+	/**
+	 * Gets the number of requests currently waiting for a connection.
+	 * @return the number of pending requests.
+	 */
+	public int getPending() {
+		return pending;
+	}
+
+	/**
+	 * Gets the maximum number of connections allowed per host.
+	 * @return the maximum number of connections per host.
+	 */
+	public int getMaxPerHost() {
+		return maxPerHost;
+	}
+
+	/**
+	 * Gets the total number of connections opened.
+	 * @return the number of connections created.
+	 */
+	public long getCreated() {
+		return created;
+	}
+
+	/**
+	 * Gets the total number of requests served by an already open connection.
+	 * @return the number of times a connection was reused.
+	 */
+	public long getReused() {
+		return reused;
+	}
+
+	/**
+	 * Gets the total number of connections closed, either because they 
+	 * expired, were closed by the server or could not be reused.
+	 * @return the number of connections closed.
+	 */
+	public long getClosed() {
+		return closed;
+	}
+
+	/**
+	 * Gets the total number of requests that had to wait for a connection
+	 * because the limit of connections of the host was reached.
+	 * @return the number of waits.
+	 */
+	public long getWaits() {
+		return waits;
+	}
+
+	@Override
+	public String toString() {
+		return "PoolStats [hosts=" + hosts + ", leased=" + leased + ", idle="
+				+ idle + ", pending=" + pending + ", maxPerHost=" + maxPerHost
+				+ ", created=" + created + ", reused=" + reused + ", closed="
+				+ closed + ", waits=" + waits + "]";
+	}
+}
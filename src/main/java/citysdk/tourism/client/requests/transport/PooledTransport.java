@@ -0,0 +1,757 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.requests.transport;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * A {@link Transport} keeping a bounded pool of persistent HTTP/1.1
+ * connections per host. A connection is given back to the pool as soon as the
+ * body of its response is fully read (or closed) and is reused by the next
+ * request to the same host, avoiding the TCP and TLS setup of each request.
+ * 
+ * <p>Connections idle for longer than the idle timeout are closed when the 
+ * pool of its host is next used or when {@link #closeIdleConnections()} is 
+ * called. Requests made while all the connections of a host are in use wait
+ * for one to be released for, at most, the connect timeout.</p>
+ * 
+ * <p>This transport does not use the JVM proxy settings, so it is not the 
+ * default one: it can be set through 
+ * {@link citysdk.tourism.client.requests.Request#setTransport(Transport)} 
+ * when the server is reached directly. If a proxy is needed use 
+ * {@link UrlConnectionTransport} instead.</p>
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public class PooledTransport implements Transport {
+	private static final int DEFAULT_MAX_PER_HOST = 8;
+	private static final long DEFAULT_IDLE_TIMEOUT = 30000;
+	private static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+	private static final int DEFAULT_READ_TIMEOUT = 30000;
+	private static final long VALIDATE_AFTER_INACTIVITY = 2000;
+	private static final int MAX_REDIRECTS = 5;
+	private static final int MAX_LINE_LENGTH = 8192;
+	private static final int DRAIN_LIMIT = 65536;
+	private static final String CRLF = "\r\n";
+
+	private final int maxPerHost;
+	private final long idleTimeout;
+	private final int connectTimeout;
+	private final int readTimeout;
+	private final ConcurrentMap<String, HostPool> pools;
+	private final AtomicLong created;
+	private final AtomicLong reused;
+	private final AtomicLong closed;
+	private final AtomicLong waits;
+	private volatile boolean shutdown;
+
+	/**
+	 * Creates a transport with up to 8 connections per host, closing 
+	 * connections idle for 30 seconds, with a connect timeout of 10 seconds
+	 * and a read timeout of 30 seconds.
+	 */
+	public PooledTransport() {
+		this(DEFAULT_MAX_PER_HOST, DEFAULT_IDLE_TIMEOUT, DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+	}
+
+	/**
+	 * Creates a transport with the given configuration.
+	 * 
+	 * @param maxPerHost
+	 *            the maximum number of connections opened to each host.
+	 * @param idleTimeout
+	 *            the time, in milliseconds, after which an idle connection is
+	 *            closed.
+	 * @param connectTimeout
+	 *            the connect timeout in milliseconds, 0 meaning infinite. It
+	 *            is also the maximum time waited for a connection of the pool.
+	 * @param readTimeout
+	 *            the read timeout in milliseconds, 0 meaning infinite.
+	 */
+	public PooledTransport(int maxPerHost, long idleTimeout, int connectTimeout, int readTimeout) {
+		if (maxPerHost < 1)
+			throw new IllegalArgumentException("There should be at least one connection per host");
+
+		if (idleTimeout < 0 || connectTimeout < 0 || readTimeout < 0)
+			throw new IllegalArgumentException("Timeouts cannot be negative");
+
+		this.maxPerHost = maxPerHost;
+		this.idleTimeout = idleTimeout;
+		this.connectTimeout = connectTimeout;
+		this.readTimeout = readTimeout;
+		this.pools = new ConcurrentHashMap<String, HostPool>();
+		this.created = new AtomicLong();
+		this.reused = new AtomicLong();
+		this.closed = new AtomicLong();
+		this.waits = new AtomicLong();
+		this.shutdown = false;
+	}
+
+	public int getMaxPerHost() {
+		return maxPerHost;
+	}
+
+	public long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public int getReadTimeout() {
+		return readTimeout;
+	}
+
+	@Override
+	public HttpResponse get(String url, Map<String, String> headers) throws IOException {
+		URL target = new URL(url);
+		for (int redirects = 0;; redirects++) {
+			HttpResponse response = execute(target, headers);
+			String location = response.getHeader("location");
+			if (!isRedirect(response.getCode()) || location == null
+					|| redirects == MAX_REDIRECTS)
+				return response;
+
+			response.close();
+			target = new URL(target, location);
+		}
+	}
+
+	/**
+	 * Closes the connections that have been idle for longer than the idle
+	 * timeout.
+	 */
+	public void closeIdleConnections() {
+		long now = System.currentTimeMillis();
+		for (HostPool pool : pools.values()) {
+			synchronized (pool) {
+				pool.closeExpired(now);
+			}
+		}
+	}
+
+	/**
+	 * Gets a snapshot of the state of the pool.
+	 * @return the {@link PoolStats} of this transport.
+	 */
+	public PoolStats getStats() {
+		int leased = 0, idle = 0, pending = 0;
+		for (HostPool pool : pools.values()) {
+			synchronized (pool) {
+				leased += pool.leased;
+				idle += pool.idle.size();
+				pending += pool.pending;
+			}
+		}
+
+		return new PoolStats(pools.size(), leased, idle, pending, maxPerHost,
+				created.get(), reused.get(), closed.get(), waits.get());
+	}
+
+	@Override
+	public void shutdown() {
+		shutdown = true;
+		for (HostPool pool : pools.values()) {
+			synchronized (pool) {
+				pool.closeAll();
+				pool.notifyAll();
+			}
+		}
+	}
+
+	/*
+	 * Performs a single request, retrying it once on a new connection if a
+	 * reused one was closed by the server meanwhile.
+	 */
+	private HttpResponse execute(URL url, Map<String, String> headers) throws IOException {
+		HostPool pool = getPool(url);
+		Connection connection = pool.acquire();
+		try {
+			return connection.exchange(url, headers);
+		} catch (IOException e) {
+			pool.release(connection, false);
+			if (!connection.reused)
+				throw e;
+		}
+
+		synchronized (pool) {
+			pool.closeAll();
+		}
+
+		connection = pool.acquire();
+		try {
+			return connection.exchange(url, headers);
+		} catch (IOException e) {
+			pool.release(connection, false);
+			throw e;
+		}
+	}
+
+	/*
+	 * Gets (or creates) the pool of the host of the given URL
+	 */
+	private HostPool getPool(URL url) throws IOException {
+		String protocol = url.getProtocol().toLowerCase(Locale.ENGLISH);
+		boolean secure;
+		if (protocol.equals("https"))
+			secure = true;
+		else if (protocol.equals("http"))
+			secure = false;
+		else
+			throw new ProtocolException("Unsupported protocol " + protocol);
+
+		int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+		String host = url.getHost();
+		String key = protocol + "://" + host + ":" + port;
+
+		HostPool pool = pools.get(key);
+		if (pool == null) {
+			HostPool newPool = new HostPool(key, host, port, secure,
+					url.getPort() == -1 ? host : host + ":" + port);
+			pool = pools.putIfAbsent(key, newPool);
+			if (pool == null)
+				pool = newPool;
+		}
+
+		return pool;
+	}
+
+	private static boolean isRedirect(int code) {
+		return code == 301 || code == 302 || code == 303 || code == 307 || code == 308;
+	}
+
+	/*
+	 * Reads a line terminated by LF, discarding the CR
+	 */
+	private static String readLine(InputStream in) throws IOException {
+		StringBuilder line = new StringBuilder(64);
+		int c;
+		while ((c = in.read()) != '\n') {
+			if (c == -1) {
+				if (line.length() == 0)
+					return null;
+				break;
+			}
+
+			if (line.length() == MAX_LINE_LENGTH)
+				throw new ProtocolException("Line too long");
+
+			line.append((char) c);
+		}
+
+		int length = line.length();
+		if (length > 0 && line.charAt(length - 1) == '\r')
+			line.setLength(length - 1);
+
+		return line.toString();
+	}
+
+	/*
+	 * Reads the headers until an empty line, lower-casing their names
+	 */
+	private static Map<String, String> readHeaders(InputStream in) throws IOException {
+		Map<String, String> headers = new HashMap<String, String>();
+		String line;
+		while ((line = readLine(in)) != null && line.length() > 0) {
+			int separator = line.indexOf(':');
+			if (separator <= 0)
+				continue;
+
+			String name = line.substring(0, separator).trim().toLowerCase(Locale.ENGLISH);
+			String value = line.substring(separator + 1).trim();
+			String previous = headers.get(name);
+			headers.put(name, previous == null ? value : previous + ", " + value);
+		}
+
+		return headers;
+	}
+
+	/*
+	 * The connections of a single host
+	 */
+	private final class HostPool {
+		private final String key;
+		private final String host;
+		private final int port;
+		private final boolean secure;
+		private final String hostHeader;
+		private final LinkedList<Connection> idle;
+		private int leased;
+		private int pending;
+
+		private HostPool(String key, String host, int port, boolean secure, String hostHeader) {
+			this.key = key;
+			this.host = host;
+			this.port = port;
+			this.secure = secure;
+			this.hostHeader = hostHeader;
+			this.idle = new LinkedList<Connection>();
+			this.leased = 0;
+			this.pending = 0;
+		}
+
+		/*
+		 * Leases the most recently used idle connection, opening a new one if
+		 * there is none and the limit was not reached. Otherwise it waits.
+		 * Idle connections are checked outside the lock, since the check may
+		 * have to read from the socket.
+		 */
+		private Connection acquire() throws IOException {
+			long deadline = System.currentTimeMillis() + connectTimeout;
+			Connection connection;
+			while ((connection = lease(deadline)) != null) {
+				if (!connection.isStale(System.currentTimeMillis())) {
+					reused.incrementAndGet();
+					connection.reused = true;
+					return connection;
+				}
+
+				synchronized (this) {
+					leased--;
+					notifyAll();
+				}
+				connection.close();
+			}
+
+			try {
+				connection = new Connection(this);
+				created.incrementAndGet();
+				return connection;
+			} catch (IOException e) {
+				synchronized (this) {
+					leased--;
+					notifyAll();
+				}
+				throw e;
+			}
+		}
+
+		/*
+		 * Leases an idle connection, or returns null once a new one can be
+		 * opened, waiting until one of them is possible.
+		 */
+		private synchronized Connection lease(long deadline) throws IOException {
+			boolean waited = false;
+			while (true) {
+				if (shutdown)
+					throw new IOException("The transport has been shut down");
+
+				long now = System.currentTimeMillis();
+				closeExpired(now);
+
+				Connection connection = idle.pollFirst();
+				if (connection != null || leased < maxPerHost) {
+					leased++;
+					return connection;
+				}
+
+				if (!waited) {
+					waited = true;
+					waits.incrementAndGet();
+				}
+
+				long timeout = 0;
+				if (connectTimeout > 0) {
+					timeout = deadline - now;
+					if (timeout <= 0)
+						throw new SocketTimeoutException("Timed out waiting for a connection to " + key);
+				}
+
+				pending++;
+				try {
+					wait(timeout);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for a connection to " + key);
+				} finally {
+					pending--;
+				}
+			}
+		}
+
+		/*
+		 * Gives a leased connection back to the pool or closes it
+		 */
+		private synchronized void release(Connection connection, boolean reusable) {
+			leased--;
+			if (reusable && !shutdown) {
+				connection.lastUsed = System.currentTimeMillis();
+				idle.addFirst(connection);
+			} else {
+				connection.close();
+			}
+
+			notifyAll();
+		}
+
+		/*
+		 * Closes the connections idle for longer than the idle timeout. The
+		 * oldest connections are at the end of the list.
+		 */
+		private void closeExpired(long now) {
+			while (!idle.isEmpty() && now - idle.getLast().lastUsed >= idleTimeout)
+				idle.removeLast().close();
+		}
+
+		private void closeAll() {
+			Iterator<Connection> it = idle.iterator();
+			while (it.hasNext()) {
+				it.next().close();
+				it.remove();
+			}
+		}
+	}
+
+	/*
+	 * A persistent connection to a host
+	 */
+	private final class Connection {
+		private final HostPool pool;
+		private final Socket socket;
+		private final InputStream in;
+		private final OutputStream out;
+		private long lastUsed;
+		private boolean reused;
+
+		private Connection(HostPool pool) throws IOException {
+			this.pool = pool;
+			Socket plain = new Socket();
+			Socket socket = plain;
+			try {
+				plain.connect(new InetSocketAddress(pool.host, pool.port), connectTimeout);
+				plain.setSoTimeout(readTimeout);
+				plain.setTcpNoDelay(true);
+				plain.setKeepAlive(true);
+				if (pool.secure) {
+					SSLSocketFactory factory = (SSLSocketFactory) SSLSocketFactory.getDefault();
+					SSLSocket ssl = (SSLSocket) factory.createSocket(plain, pool.host, pool.port, true);
+					SSLParameters parameters = ssl.getSSLParameters();
+					parameters.setEndpointIdentificationAlgorithm("HTTPS");
+					ssl.setSSLParameters(parameters);
+					ssl.startHandshake();
+					socket = ssl;
+				}
+			} catch (IOException e) {
+				try {
+					socket.close();
+				} catch (IOException ignored) {
+				}
+				throw e;
+			}
+
+			this.socket = socket;
+			this.in = new BufferedInputStream(socket.getInputStream());
+			this.out = new BufferedOutputStream(socket.getOutputStream());
+			this.lastUsed = System.currentTimeMillis();
+			this.reused = false;
+		}
+
+		/*
+		 * Sends the request and reads the status line and headers. The body
+		 * is read through the returned response.
+		 */
+		private HttpResponse exchange(URL url, Map<String, String> headers) throws IOException {
+			String file = url.getFile();
+			StringBuilder request = new StringBuilder(256);
+			request.append("GET ").append(file.length() == 0 ? "/" : file).append(" HTTP/1.1").append(CRLF);
+			request.append("Host: ").append(pool.hostHeader).append(CRLF);
+			request.append("Connection: keep-alive").append(CRLF);
+			if (headers != null) {
+				for (Entry<String, String> header : headers.entrySet())
+					request.append(header.getKey()).append(": ").append(header.getValue()).append(CRLF);
+			}
+			request.append(CRLF);
+			out.write(request.toString().getBytes("ISO-8859-1"));
+			out.flush();
+
+			String status;
+			int code;
+			Map<String, String> responseHeaders;
+			do {
+				status = readLine(in);
+				if (status == null)
+					throw new EOFException("Connection closed by " + pool.key);
+
+				code = parseCode(status);
+				responseHeaders = readHeaders(in);
+			} while (code >= 100 && code < 200);
+
+			String connection = responseHeaders.get("connection");
+			boolean keepAlive;
+			if (status.startsWith("HTTP/1.0"))
+				keepAlive = connection != null && connection.toLowerCase(Locale.ENGLISH).contains("keep-alive");
+			else
+				keepAlive = connection == null || !connection.toLowerCase(Locale.ENGLISH).contains("close");
+
+			if (code == 204 || code == 304) {
+				pool.release(this, keepAlive);
+				return new HttpResponse(code, responseHeaders, null);
+			}
+
+			String transferEncoding = responseHeaders.get("transfer-encoding");
+			String contentLength = responseHeaders.get("content-length");
+			InputStream body;
+			if (transferEncoding != null
+					&& transferEncoding.toLowerCase(Locale.ENGLISH).contains("chunked")) {
+				body = new BodyInputStream(this, true, 0, keepAlive);
+			} else if (contentLength != null) {
+				long length;
+				try {
+					length = Long.parseLong(contentLength.trim());
+				} catch (NumberFormatException e) {
+					throw new ProtocolException("Invalid Content-Length " + contentLength);
+				}
+
+				if (length == 0) {
+					pool.release(this, keepAlive);
+					body = null;
+				} else {
+					body = new BodyInputStream(this, false, length, keepAlive);
+				}
+			} else {
+				body = new BodyInputStream(this, false, -1, false);
+			}
+
+			return new HttpResponse(code, responseHeaders, body);
+		}
+
+		private int parseCode(String status) throws ProtocolException {
+			int start = status.indexOf(' ');
+			if (!status.startsWith("HTTP/") || start == -1 || status.length() < start + 4)
+				throw new ProtocolException("Invalid status line " + status);
+
+			try {
+				return Integer.parseInt(status.substring(start + 1, start + 4));
+			} catch (NumberFormatException e) {
+				throw new ProtocolException("Invalid status line " + status);
+			}
+		}
+
+		/*
+		 * Checks whether a connection idle for a while was closed by the
+		 * server. Any byte or end of stream means it cannot be reused.
+		 */
+		private boolean isStale(long now) {
+			if (socket.isClosed() || socket.isInputShutdown() || socket.isOutputShutdown())
+				return true;
+
+			if (now - lastUsed < VALIDATE_AFTER_INACTIVITY)
+				return false;
+
+			try {
+				if (in.available() > 0)
+					return true;
+
+				socket.setSoTimeout(1);
+				in.read();
+				return true;
+			} catch (SocketTimeoutException e) {
+				return false;
+			} catch (IOException e) {
+				return true;
+			} finally {
+				try {
+					socket.setSoTimeout(readTimeout);
+				} catch (IOException ignored) {
+				}
+			}
+		}
+
+		private void close() {
+			closed.incrementAndGet();
+			try {
+				socket.close();
+			} catch (IOException ignored) {
+			}
+		}
+	}
+
+	/*
+	 * The body of a response. The connection is given back to the pool when
+	 * the body is fully read or closed.
+	 */
+	private final class BodyInputStream extends InputStream {
+		private final Connection connection;
+		private final boolean chunked;
+		private final boolean keepAlive;
+		private long remaining;
+		private boolean chunkRead;
+		private boolean eof;
+		private boolean released;
+
+		/*
+		 * The remaining bytes are the Content-Length or -1 if the body ends
+		 * when the connection is closed. For chunked bodies it is the size of
+		 * the current chunk.
+		 */
+		private BodyInputStream(Connection connection, boolean chunked, long remaining, boolean keepAlive) {
+			this.connection = connection;
+			this.chunked = chunked;
+			this.remaining = remaining;
+			this.keepAlive = keepAlive;
+			this.chunkRead = false;
+			this.eof = false;
+			this.released = false;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			int read = read(b, 0, 1);
+			return read == -1 ? -1 : b[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (eof)
+				return -1;
+
+			if (released)
+				throw new IOException("Stream closed");
+
+			if (len == 0)
+				return 0;
+
+			try {
+				if (chunked && remaining == 0 && !nextChunk()) {
+					release(true);
+					return -1;
+				}
+
+				int toRead = remaining < 0 ? len : (int) Math.min(len, remaining);
+				int read = connection.in.read(b, off, toRead);
+				if (read == -1) {
+					if (remaining >= 0)
+						throw new EOFException("Premature end of the response body from " + connection.pool.key);
+
+					release(false);
+					return -1;
+				}
+
+				if (remaining > 0) {
+					remaining -= read;
+					if (remaining == 0 && !chunked)
+						release(true);
+				}
+
+				return read;
+			} catch (IOException e) {
+				release(false);
+				throw e;
+			}
+		}
+
+		@Override
+		public int available() throws IOException {
+			if (eof || released)
+				return 0;
+
+			int available = connection.in.available();
+			return remaining < 0 ? available : (int) Math.min(available, remaining);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (released)
+				return;
+
+			// small leftovers are read so the connection can still be reused
+			if (keepAlive && (chunked || remaining <= DRAIN_LIMIT)) {
+				byte[] buffer = new byte[4096];
+				long drained = 0;
+				int read;
+				while (drained <= DRAIN_LIMIT && (read = read(buffer, 0, buffer.length)) != -1)
+					drained += read;
+			}
+
+			release(false);
+		}
+
+		/*
+		 * Reads the size of the next chunk, returning false on the last one
+		 */
+		private boolean nextChunk() throws IOException {
+			if (chunkRead)
+				readLine(connection.in);
+
+			String line = readLine(connection.in);
+			if (line == null)
+				throw new EOFException("Premature end of the response body from " + connection.pool.key);
+
+			int extension = line.indexOf(';');
+			if (extension != -1)
+				line = line.substring(0, extension);
+
+			try {
+				remaining = Long.parseLong(line.trim(), 16);
+			} catch (NumberFormatException e) {
+				throw new ProtocolException("Invalid chunk size " + line);
+			}
+
+			chunkRead = true;
+			if (remaining == 0) {
+				while ((line = readLine(connection.in)) != null && line.length() > 0)
+					;
+				return false;
+			}
+
+			return true;
+		}
+
+		/*
+		 * Gives the connection back, reusing it only if the whole body was read
+		 */
+		private void release(boolean complete) {
+			if (released)
+				return;
+
+			eof = true;
+			released = true;
+			connection.pool.release(connection, complete && keepAlive);
+		}
+	}
+}
@@ -0,0 +1,52 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.requests.transport;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * The transport used by {@link citysdk.tourism.client.requests.Request} to 
+ * perform HTTP GET requests. Implementations must be safe for concurrent use.
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public interface Transport {
+	/**
+	 * Performs a HTTP GET request to the given URL.
+	 * 
+	 * @param url
+	 *            the URL to query.
+	 * @param headers
+	 *            the request headers to be sent.
+	 * @return the {@link HttpResponse} of the server. Its body must be closed
+	 *         after being read so the underlying connection can be reused.
+	 * @throws IOException
+	 *             thrown in case of socket errors.
+	 */
+	HttpResponse get(String url, Map<String, String> headers) throws IOException;
+
+	/**
+	 * Closes every connection held by this transport.
+	 */
+	void shutdown();
+}
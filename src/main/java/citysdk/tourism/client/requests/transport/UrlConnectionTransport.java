@@ -0,0 +1,94 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.requests.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * A {@link Transport} backed by {@link HttpURLConnection}. Connections are 
+ * never explicitly disconnected, so the JDK keep-alive cache is able to reuse
+ * them once the body is fully read and closed. This transport honours the JVM
+ * proxy settings and should be used if the server can only be reached through
+ * a proxy.
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public class UrlConnectionTransport implements Transport {
+	private final int connectTimeout;
+	private final int readTimeout;
+
+	/**
+	 * Creates a transport without connect or read timeouts.
+	 */
+	public UrlConnectionTransport() {
+		this(0, 0);
+	}
+
+	/**
+	 * Creates a transport with the given timeouts.
+	 * @param connectTimeout the connect timeout in milliseconds, 0 meaning infinite.
+	 * @param readTimeout the read timeout in milliseconds, 0 meaning infinite.
+	 */
+	public UrlConnectionTransport(int connectTimeout, int readTimeout) {
+		this.connectTimeout = connectTimeout;
+		this.readTimeout = readTimeout;
+	}
+
+	@Override
+	public HttpResponse get(String url, Map<String, String> headers) throws IOException {
+		HttpURLConnection httpUrl = (HttpURLConnection) new URL(url).openConnection();
+		httpUrl.setRequestMethod("GET");
+		httpUrl.setConnectTimeout(connectTimeout);
+		httpUrl.setReadTimeout(readTimeout);
+		if (headers != null) {
+			for (Entry<String, String> header : headers.entrySet())
+				httpUrl.setRequestProperty(header.getKey(), header.getValue());
+		}
+
+		int code = httpUrl.getResponseCode();
+		Map<String, String> responseHeaders = new HashMap<String, String>();
+		for (Entry<String, List<String>> header : httpUrl.getHeaderFields().entrySet()) {
+			if (header.getKey() != null && !header.getValue().isEmpty())
+				responseHeaders.put(header.getKey().toLowerCase(Locale.ENGLISH), header.getValue().get(0));
+		}
+
+		InputStream body;
+		if (code >= HttpURLConnection.HTTP_BAD_REQUEST)
+			body = httpUrl.getErrorStream();
+		else
+			body = httpUrl.getInputStream();
+
+		return new HttpResponse(code, responseHeaders, body);
+	}
+
+	@Override
+	public void shutdown() {
+	}
+}
@@ -0,0 +1,323 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.requests.uri;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An immutable URI Template (<a target="_blank"
+ * href="http://tools.ietf.org/html/rfc6570">RFC6570</a>), parsed once into 
+ * its literal parts and expressions. Compiled templates are cached by their
+ * text, so each template from the server is only parsed once, and they can
+ * be expanded by any number of threads at once.
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public final class CompiledUriTemplate {
+	private static final int MAX_CACHED = 512;
+	private static final char CHAR_EXPLODE = '*';
+	private static final char CHAR_MODIFIER = ':';
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+	private static final ConcurrentMap<String, CompiledUriTemplate> cache = 
+			new ConcurrentHashMap<String, CompiledUriTemplate>();
+
+	private final String template;
+	private final String[] literals;
+	private final Expression[] expressions;
+	private final Set<String> names;
+
+	private CompiledUriTemplate(String template) {
+		List<String> literals = new ArrayList<String>();
+		List<Expression> expressions = new ArrayList<Expression>();
+		Set<String> names = new LinkedHashSet<String>();
+
+		int start = 0, from = 0, close;
+		while ((close = template.indexOf('}', from)) >= 0) {
+			int open = template.lastIndexOf('{', close);
+			from = close + 1;
+			if (open < start || open == close - 1)
+				continue;
+
+			Expression expression = new Expression(template.substring(open + 1, close));
+			for (Variable variable : expression.variables)
+				names.add(variable.name);
+
+			literals.add(template.substring(start, open));
+			expressions.add(expression);
+			start = from;
+		}
+		literals.add(template.substring(start));
+
+		this.template = template;
+		this.literals = literals.toArray(new String[literals.size()]);
+		this.expressions = expressions.toArray(new Expression[expressions.size()]);
+		this.names = Collections.unmodifiableSet(names);
+	}
+
+	/**
+	 * Gets the compiled form of a template, parsing it only if it was not
+	 * compiled before.
+	 * 
+	 * @param template
+	 *            the template.
+	 * @return the {@link CompiledUriTemplate}.
+	 */
+	public static CompiledUriTemplate compile(String template) {
+		CompiledUriTemplate compiled = cache.get(template);
+		if (compiled == null) {
+			compiled = new CompiledUriTemplate(template);
+			if (cache.size() < MAX_CACHED) {
+				CompiledUriTemplate previous = cache.putIfAbsent(template, compiled);
+				if (previous != null)
+					compiled = previous;
+			}
+		}
+
+		return compiled;
+	}
+
+	/**
+	 * Gets the text of the template.
+	 * 
+	 * @return the template.
+	 */
+	public String getTemplate() {
+		return template;
+	}
+
+	/**
+	 * Gets the names of the variables of the template, in the order they
+	 * appear.
+	 * 
+	 * @return an unmodifiable set of names.
+	 */
+	public Set<String> getVariableNames() {
+		return names;
+	}
+
+	/**
+	 * Checks whether the template has a variable with the given name. This
+	 * method is case sensitive.
+	 * 
+	 * @param name
+	 *            the name to find
+	 * @return <code>true</code> if the template has the variable,
+	 *         <code>false</code> otherwise
+	 */
+	public boolean hasParameter(String name) {
+		return names.contains(name);
+	}
+
+	/**
+	 * Expands the template with the given values. Variables without a value,
+	 * or with an empty collection or map, are left out.
+	 * 
+	 * @param values
+	 *            the values of the variables. Supported objects: simple 
+	 *            objects that implement toString() method, Collections and 
+	 *            Maps.
+	 * @return the URI.
+	 */
+	public String expand(Map<String, ?> values) {
+		StringBuilder uri = new StringBuilder(template.length() + 32);
+		for (int i = 0; i < expressions.length; i++) {
+			uri.append(literals[i]);
+			expressions[i].expand(uri, values);
+		}
+		uri.append(literals[expressions.length]);
+
+		return uri.toString();
+	}
+
+	@Override
+	public String toString() {
+		return template;
+	}
+
+	/*
+	 * An expression: {op var1,var2*,var3:4}
+	 */
+	private static final class Expression {
+		private final Operator op;
+		private final Variable[] variables;
+
+		Expression(String expression) {
+			Operator op = Operator.fromOpCode(expression.substring(0, 1));
+			if (op == Operator.NULL_OP) {
+				this.op = Operator.DEFAULT_OP;
+			} else {
+				this.op = op;
+				expression = expression.substring(1);
+			}
+
+			List<Variable> variables = new ArrayList<Variable>();
+			int start = 0, end;
+			do {
+				end = expression.indexOf(',', start);
+				String spec = expression.substring(start, end < 0 ? expression.length() : end).trim();
+				if (!spec.isEmpty())
+					variables.add(new Variable(spec));
+				start = end + 1;
+			} while (end >= 0);
+
+			this.variables = variables.toArray(new Variable[variables.size()]);
+		}
+
+		void expand(StringBuilder uri, Map<String, ?> values) {
+			boolean first = true;
+			for (Variable variable : variables) {
+				Object value = values.get(variable.name);
+				if (value == null 
+						|| (value instanceof Collection && ((Collection<?>) value).isEmpty())
+						|| (value instanceof Map && ((Map<?, ?>) value).isEmpty()))
+					continue;
+
+				uri.append(first ? op.getOperator() : op.getSeparator());
+				first = false;
+				if (value instanceof Collection)
+					variable.expandCollection(uri, op, (Collection<?>) value);
+				else if (value instanceof Map)
+					variable.expandMap(uri, op, (Map<?, ?>) value);
+				else
+					variable.expandSimple(uri, op, value);
+			}
+		}
+	}
+
+	/*
+	 * A variable of an expression, with its modifiers: var, var* or var:4
+	 */
+	private static final class Variable {
+		private final String name;
+		private final boolean explode;
+		private final int prefix;
+
+		Variable(String spec) {
+			int modifier = spec.indexOf(CHAR_MODIFIER);
+			if (spec.charAt(spec.length() - 1) == CHAR_EXPLODE) {
+				name = spec.substring(0, spec.length() - 1);
+				explode = true;
+				prefix = -1;
+			} else if (modifier > 0) {
+				name = spec.substring(0, modifier);
+				explode = false;
+				prefix = parsePrefix(spec.substring(modifier + 1));
+			} else {
+				name = spec;
+				explode = false;
+				prefix = -1;
+			}
+		}
+
+		private static int parsePrefix(String length) {
+			try {
+				return Integer.parseInt(length);
+			} catch (NumberFormatException e) {
+				return -1;
+			}
+		}
+
+		/*
+		 * {var} and {var:3}, the prefix being at most the whole value
+		 */
+		void expandSimple(StringBuilder uri, Operator op, Object value) {
+			String string = value.toString();
+			if (prefix >= 0 && prefix < string.length())
+				string = string.substring(0, prefix);
+
+			if (op.isNamed())
+				uri.append(name).append('=');
+			encode(uri, string);
+		}
+
+		/*
+		 * {var} into list,items and {var*} into one item per variable
+		 */
+		void expandCollection(StringBuilder uri, Operator op, Collection<?> collection) {
+			if (op.isNamed() && !explode)
+				uri.append(name).append('=');
+
+			Iterator<?> it = collection.iterator();
+			while (it.hasNext()) {
+				if (op.isNamed() && explode)
+					uri.append(name).append('=');
+				encode(uri, String.valueOf(it.next()));
+				if (it.hasNext())
+					uri.append(explode ? op.getSeparator() : ",");
+			}
+		}
+
+		/*
+		 * {var} into key,value,key,value and {var*} into key=value pairs
+		 */
+		void expandMap(StringBuilder uri, Operator op, Map<?, ?> map) {
+			if (op.isNamed() && !explode)
+				uri.append(name).append('=');
+
+			Iterator<? extends Map.Entry<?, ?>> it = map.entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<?, ?> entry = it.next();
+				encode(uri, String.valueOf(entry.getKey()));
+				uri.append(explode ? '=' : ',');
+				encode(uri, String.valueOf(entry.getValue()));
+				if (it.hasNext())
+					uri.append(explode ? op.getSeparator() : ",");
+			}
+		}
+	}
+
+	/*
+	 * Percent-encodes the value as UTF-8 exactly as URLEncoder, with spaces
+	 * as %20, did before: letters, digits and '-', '.', '_' and '*' are kept
+	 * and everything else, '~' included, is encoded.
+	 */
+	private static void encode(StringBuilder uri, String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+					|| c == '-' || c == '.' || c == '_' || c == '*') {
+				uri.append(c);
+			} else if (c < 0x80) {
+				appendByte(uri, c);
+			} else {
+				int end = Character.isHighSurrogate(c) && i + 1 < value.length() ? i + 2 : i + 1;
+				for (byte b : value.substring(i, end).getBytes(StandardCharsets.UTF_8))
+					appendByte(uri, b & 0xFF);
+				i = end - 1;
+			}
+		}
+	}
+
+	private static void appendByte(StringBuilder uri, int b) {
+		uri.append('%').append(HEX[b >> 4]).append(HEX[b & 0xF]);
+	}
+}
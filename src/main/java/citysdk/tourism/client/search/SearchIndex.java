@@ -0,0 +1,688 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import citysdk.tourism.client.poi.base.LanguageIndex;
+import citysdk.tourism.client.poi.base.POIBaseType;
+import citysdk.tourism.client.poi.lists.ListTag;
+import citysdk.tourism.client.poi.single.POI;
+import citysdk.tourism.client.poi.single.Tag;
+
+/**
+ * A local full-text index over the labels, categories and descriptions of 
+ * POIs, events and routes, or over the values of tags, to suggest them 
+ * while the user types without going to the server.
+ * 
+ * <p>Each text is split into terms with the word rules of its own language, 
+ * lower-cased and with its accents folded (see {@link Tokenizer}). Every word of 
+ * a query is taken as the prefix of a term, and a POI only matches when all 
+ * of the words match. POIs are ranked by the sum, for each word, of the best 
+ * field it matched: a label (or the value of a tag) counts more than a category, 
+ * which counts more than a description; a whole term more than a prefix; and a 
+ * text in the language of the query, or with no language, more than a text in 
+ * another language. POIs with the same rank come in the order they were added.</p>
+ * 
+ * <p>The terms are kept in a sorted dictionary, so the terms with a prefix are 
+ * a range of it, each with the POIs where it occurs packed in <code>int</code>s 
+ * together with the fields and language it was found in. The results for 
+ * prefixes of one or two letters, which match a large part of the index, are 
+ * kept until the index changes.</p>
+ * 
+ * <p>POIs are kept by identity, and an index keeps the terms a POI had when it 
+ * was added, so a POI whose text changes should be {@link #update(POI) updated}. 
+ * This class is thread-safe: queries run concurrently and block only while the 
+ * index is changed.</p>
+ * 
+ * @author Pedro Cruz
+ *
+ * @param <T> the type of the indexed POIs.
+ */
+public class SearchIndex<T extends POI> {
+	private static final int LABEL = 1;
+	private static final int CATEGORY = 2;
+	private static final int DESCRIPTION = 4;
+	private static final int FIELD_BITS = 3;
+	private static final int LANGUAGE_BITS = 5;
+	private static final int META_BITS = FIELD_BITS + LANGUAGE_BITS;
+	private static final int META_MASK = (1 << META_BITS) - 1;
+	private static final int NO_LANGUAGE = 0;
+	private static final int OTHER_LANGUAGE = (1 << LANGUAGE_BITS) - 1;
+	private static final int ANY_LANGUAGE = -1;
+	private static final int UNKNOWN_LANGUAGE = -2;
+	private static final int MAX_DOCUMENTS = 1 << (31 - META_BITS);
+	private static final int CACHED_PREFIX = 2;
+	private static final int MAX_CACHED = 4096;
+
+	// orders the best matches of a search so that the worst one is dropped
+	private static final Comparator<Match<?>> WORST_FIRST = new Comparator<Match<?>>() {
+		@Override
+		public int compare(Match<?> a, Match<?> b) {
+			if (a.score != b.score)
+				return a.score < b.score ? -1 : 1;
+
+			return a.document.sequence > b.document.sequence ? -1
+					: a.document.sequence < b.document.sequence ? 1 : 0;
+		}
+	};
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	// the sorted terms for prefix lookups, and the same postings by term for
+	// the exact lookups made while indexing, which are much more frequent
+	private final TreeMap<String, Postings> terms = new TreeMap<String, Postings>();
+	private final Map<String, Postings> postingsByTerm = new HashMap<String, Postings>();
+	private final Map<String, Integer> languages = new HashMap<String, Integer>();
+	private final Map<T, Document<T>> indexed = new IdentityHashMap<T, Document<T>>();
+	private final List<Document<T>> documents = new ArrayList<Document<T>>();
+	private final ConcurrentMap<String, List<T>> cache = new ConcurrentHashMap<String, List<T>>();
+	private int[] free = new int[0];
+	private int freeCount;
+	// counts the POIs added, to keep the ones with the same rank in order
+	private long sequence;
+
+	/**
+	 * Creates an empty index.
+	 */
+	public SearchIndex() {
+	}
+
+	/**
+	 * Creates an index of the values of every tag of a list of tags.
+	 * 
+	 * @param list
+	 *            the list of tags.
+	 * @return the index of the tags.
+	 */
+	public static SearchIndex<Tag> forTags(ListTag list) {
+		SearchIndex<Tag> index = new SearchIndex<Tag>();
+		if (list == null)
+			return index;
+
+		for (Tag tag : list.getTags()) {
+			if (tag.getTags() != null)
+				index.addAll(tag.getTags());
+		}
+
+		return index;
+	}
+
+	/**
+	 * Gets the number of indexed POIs.
+	 * @return the number of POIs.
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return indexed.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of distinct terms of the indexed POIs.
+	 * @return the number of terms.
+	 */
+	public int getNumTerms() {
+		lock.readLock().lock();
+		try {
+			return terms.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Checks whether the given POI is indexed.
+	 * @param poi the POI to check.
+	 * @return <code>true</code> if the POI is indexed, <code>false</code> otherwise.
+	 */
+	public boolean contains(T poi) {
+		lock.readLock().lock();
+		try {
+			return indexed.containsKey(poi);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds a POI to the index.
+	 * 
+	 * @param poi
+	 *            the POI to add.
+	 * @return <code>true</code> if it was added, <code>false</code> if it was 
+	 * already indexed or has no text.
+	 */
+	public boolean add(T poi) {
+		lock.writeLock().lock();
+		try {
+			return poi != null && !indexed.containsKey(poi) && insert(poi, sequence++);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds all the given POIs to the index.
+	 * 
+	 * @param pois
+	 *            the POIs to add.
+	 * @return the number of POIs that were added.
+	 * @see #add(POI)
+	 */
+	public int addAll(Collection<? extends T> pois) {
+		lock.writeLock().lock();
+		try {
+			int added = 0;
+			for (T poi : pois) {
+				if (poi != null && !indexed.containsKey(poi) && insert(poi, sequence++))
+					added++;
+			}
+
+			return added;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a POI from the index.
+	 * 
+	 * @param poi
+	 *            the POI to remove.
+	 * @return <code>true</code> if it was indexed, <code>false</code> otherwise.
+	 */
+	public boolean remove(T poi) {
+		lock.writeLock().lock();
+		try {
+			return delete(poi);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Indexes the current text of a POI, replacing the one it had when it was 
+	 * added. An indexed POI keeps its place among the POIs with its rank.
+	 * 
+	 * @param poi
+	 *            the POI to update.
+	 * @return <code>true</code> if the POI is indexed, <code>false</code> if it 
+	 * has no text.
+	 */
+	public boolean update(T poi) {
+		if (poi == null)
+			return false;
+
+		lock.writeLock().lock();
+		try {
+			Document<T> document = indexed.get(poi);
+			delete(poi);
+			return insert(poi, document == null ? sequence++ : document.sequence);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes all POIs from the index.
+	 */
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			terms.clear();
+			postingsByTerm.clear();
+			languages.clear();
+			indexed.clear();
+			documents.clear();
+			free = new int[0];
+			freeCount = 0;
+			cache.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the POIs that best match what was typed, in any language.
+	 * 
+	 * @param query
+	 *            the words typed, the last of which may be incomplete.
+	 * @param k
+	 *            the number of POIs to get.
+	 * @return up to <code>k</code> POIs, from the best to the worst match.
+	 */
+	public List<T> suggest(String query, int k) {
+		return suggest(query, null, k);
+	}
+
+	/**
+	 * Gets the POIs that best match what was typed, preferring the texts in 
+	 * the language of the given locale.
+	 * 
+	 * @param query
+	 *            the words typed, the last of which may be incomplete.
+	 * @param locale
+	 *            the locale of the query, or <code>null</code> for any.
+	 * @param k
+	 *            the number of POIs to get.
+	 * @return up to <code>k</code> POIs, from the best to the worst match.
+	 */
+	public List<T> suggest(String query, Locale locale, int k) {
+		List<String> words = Tokenizer.tokenize(query, locale == null ? Locale.ROOT : locale);
+		if (words.isEmpty() || k <= 0)
+			return new ArrayList<T>(0);
+
+		// the longest word is the most selective one, the others are checked
+		// against the terms of the POIs it matches
+		String first = words.get(0);
+		for (String word : words) {
+			if (word.length() > first.length())
+				first = word;
+		}
+
+		lock.readLock().lock();
+		try {
+			int language = ANY_LANGUAGE;
+			if (locale != null) {
+				Integer id = languages.get(locale.getLanguage());
+				language = (id == null ? UNKNOWN_LANGUAGE : id);
+			}
+
+			// the shortest prefixes match most of the index, and are the 
+			// ones typed first, so their results are kept until it changes
+			if (first.length() > CACHED_PREFIX)
+				return search(words, first, language, k);
+
+			String key = words.toString() + '\u0000' + language + '\u0000' + k;
+			List<T> result = cache.get(key);
+			if (result == null) {
+				result = Collections.unmodifiableList(search(words, first, language, k));
+				if (cache.size() < MAX_CACHED)
+					cache.put(key, result);
+			}
+
+			return new ArrayList<T>(result);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/*
+	 * Scores the POIs with a term starting with the longest word, and then the 
+	 * other words against the terms of each one, keeping the best k.
+	 */
+	private List<T> search(List<String> words, String first, int language, int k) {
+		Collection<Postings> matches = terms.subMap(first, true, first + Character.MAX_VALUE, false).values();
+		int count = 0;
+		for (Postings postings : matches)
+			count += postings.size;
+
+		Scores scores = new Scores(count);
+		for (Postings postings : matches) {
+			boolean whole = postings.term.length() == first.length();
+			for (int i = 0; i < postings.size; i++) {
+				int value = postings.values[i];
+				scores.max(value >>> META_BITS, score(value & META_MASK, whole, language));
+			}
+		}
+
+		PriorityQueue<Match<T>> best = new PriorityQueue<Match<T>>(Math.min(k, 1024) + 1, WORST_FIRST);
+		for (int slot = 0; slot < scores.keys.length; slot++) {
+			if (scores.keys[slot] == 0)
+				continue;
+
+			Document<T> document = documents.get(scores.keys[slot] - 1);
+			int score = scores.values[slot];
+			if (words.size() > 1) {
+				for (String word : words) {
+					int s = (word == first ? 0 : document.score(word, language));
+					if (s < 0) {
+						score = -1;
+						break;
+					}
+
+					score += s;
+				}
+
+				if (score < 0)
+					continue;
+			}
+
+			if (best.size() < k) {
+				best.add(new Match<T>(score, document));
+			} else if (better(score, document, best.peek())) {
+				best.poll();
+				best.add(new Match<T>(score, document));
+			}
+		}
+
+		// the queue gives the worst match first
+		List<T> result = new ArrayList<T>(best.size());
+		while (!best.isEmpty())
+			result.add(best.poll().document.value);
+
+		Collections.reverse(result);
+		return result;
+	}
+
+	/*
+	 * Checks whether a POI ranks before a match: it has a higher score, or 
+	 * the same score and was added first.
+	 */
+	private static boolean better(int score, Document<?> document, Match<?> match) {
+		if (score != match.score)
+			return score > match.score;
+
+		return document.sequence < match.document.sequence;
+	}
+
+	/*
+	 * Gets the score of a term with the given fields and language.
+	 */
+	private static int score(int meta, boolean whole, int language) {
+		int fields = meta & ((1 << FIELD_BITS) - 1);
+		int score = (fields & LABEL) != 0 ? 4 : (fields & CATEGORY) != 0 ? 2 : 1;
+		if (whole)
+			score *= 2;
+
+		int lang = meta >>> FIELD_BITS;
+		if (language == ANY_LANGUAGE || lang == NO_LANGUAGE || lang == language)
+			score *= 2;
+
+		return score;
+	}
+
+	/*
+	 * Splits the text of the POI into terms and adds it to the postings of 
+	 * each one.
+	 */
+	private boolean insert(T poi, long sequence) {
+		Map<String, Integer> metas = new LinkedHashMap<String, Integer>();
+		collect(poi, LABEL, metas);
+		for (POIBaseType label : poi.getLabel())
+			collect(label, LABEL, metas);
+
+		for (POIBaseType category : poi.getCategory())
+			collect(category, CATEGORY, metas);
+
+		for (POIBaseType description : poi.getDescription())
+			collect(description, DESCRIPTION, metas);
+
+		if (metas.isEmpty())
+			return false;
+
+		int id;
+		if (freeCount > 0) {
+			id = free[--freeCount];
+		} else {
+			id = documents.size();
+			if (id >= MAX_DOCUMENTS)
+				throw new IllegalStateException("The index is limited to " + MAX_DOCUMENTS + " POIs");
+
+			documents.add(null);
+		}
+
+		String[] documentTerms = new String[metas.size()];
+		byte[] documentMetas = new byte[metas.size()];
+		int i = 0;
+		for (Map.Entry<String, Integer> entry : metas.entrySet()) {
+			String key = entry.getKey();
+			String term = key.substring(1);
+			int meta = entry.getValue() | key.charAt(0) << FIELD_BITS;
+			Postings postings = postingsByTerm.get(term);
+			if (postings == null) {
+				postings = new Postings(term);
+				terms.put(term, postings);
+				postingsByTerm.put(term, postings);
+			}
+
+			postings.add(id << META_BITS | meta);
+			documentTerms[i] = postings.term;
+			documentMetas[i++] = (byte) meta;
+		}
+
+		Document<T> document = new Document<T>(id, sequence, poi, documentTerms, documentMetas);
+		documents.set(id, document);
+		indexed.put(poi, document);
+		cache.clear();
+		return true;
+	}
+
+	/*
+	 * Adds the terms of a text, keyed by its language and the term, with the 
+	 * fields where they were found.
+	 */
+	private void collect(POIBaseType base, int field, Map<String, Integer> metas) {
+		String text = base.getValue();
+		if (text == null || text.isEmpty())
+			return;
+
+		int language = NO_LANGUAGE;
+		Locale locale = Locale.ROOT;
+		if (base.getLang() != null && !base.getLang().isEmpty()) {
+			try {
+				locale = LanguageIndex.toLocale(base.getLang());
+				language = language(locale.getLanguage());
+			} catch (IllegalArgumentException e) {
+				locale = Locale.ROOT;
+			}
+		}
+
+		for (String term : Tokenizer.tokenize(text, locale)) {
+			String key = (char) language + term;
+			Integer fields = metas.get(key);
+			metas.put(key, fields == null ? field : fields | field);
+		}
+	}
+
+	/*
+	 * Gets the id of a language, giving new languages the next id while 
+	 * there are ids left.
+	 */
+	private int language(String language) {
+		if (language.isEmpty())
+			return NO_LANGUAGE;
+
+		Integer id = languages.get(language);
+		if (id == null) {
+			if (languages.size() + 1 >= OTHER_LANGUAGE)
+				return OTHER_LANGUAGE;
+
+			id = languages.size() + 1;
+			languages.put(language, id);
+		}
+
+		return id;
+	}
+
+	private boolean delete(T poi) {
+		Document<T> document = indexed.remove(poi);
+		if (document == null)
+			return false;
+
+		for (String term : document.terms) {
+			// a term found in two languages was already removed the first time
+			Postings postings = postingsByTerm.get(term);
+			if (postings == null)
+				continue;
+
+			postings.remove(document.id);
+			if (postings.size == 0) {
+				terms.remove(term);
+				postingsByTerm.remove(term);
+			}
+		}
+
+		documents.set(document.id, null);
+		if (freeCount == free.length)
+			free = Arrays.copyOf(free, Math.max(16, freeCount * 2));
+
+		free[freeCount++] = document.id;
+		cache.clear();
+		return true;
+	}
+
+	/*
+	 * The terms of an indexed POI, with the fields and language of each.
+	 */
+	private static final class Document<T> {
+		final int id;
+		final long sequence;
+		final T value;
+		final String[] terms;
+		final byte[] metas;
+
+		Document(int id, long sequence, T value, String[] terms, byte[] metas) {
+			this.id = id;
+			this.sequence = sequence;
+			this.value = value;
+			this.terms = terms;
+			this.metas = metas;
+		}
+
+		/*
+		 * Gets the best score of the terms starting with the word, or -1 if 
+		 * there are none.
+		 */
+		int score(String word, int language) {
+			int best = -1;
+			for (int i = 0; i < terms.length; i++) {
+				if (terms[i].startsWith(word))
+					best = Math.max(best, SearchIndex.score(metas[i] & META_MASK, terms[i].length() == word.length(), language));
+			}
+
+			return best;
+		}
+	}
+
+	/*
+	 * A POI among the best ones of a search, with its score.
+	 */
+	private static final class Match<T> {
+		final int score;
+		final Document<T> document;
+
+		Match(int score, Document<T> document) {
+			this.score = score;
+			this.document = document;
+		}
+	}
+
+	/*
+	 * The POIs with a term, each packed with the fields and language where 
+	 * the term was found.
+	 */
+	private static final class Postings {
+		final String term;
+		int[] values = new int[2];
+		int size;
+
+		Postings(String term) {
+			this.term = term;
+		}
+
+		void add(int value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+
+			values[size++] = value;
+		}
+
+		void remove(int id) {
+			int kept = 0;
+			for (int i = 0; i < size; i++) {
+				if (values[i] >>> META_BITS != id)
+					values[kept++] = values[i];
+			}
+
+			size = kept;
+			if (size > 0 && size < values.length / 4)
+				values = Arrays.copyOf(values, size * 2);
+		}
+	}
+
+	/*
+	 * The best score of each POI, in an open addressing table keyed by the 
+	 * POI id plus one.
+	 */
+	private static final class Scores {
+		int[] keys;
+		int[] values;
+		int size;
+
+		Scores(int expected) {
+			int capacity = 16;
+			while (capacity < expected * 2 && capacity < 1 << 30)
+				capacity <<= 1;
+
+			keys = new int[capacity];
+			values = new int[capacity];
+		}
+
+		void max(int id, int score) {
+			int key = id + 1;
+			int mask = keys.length - 1;
+			int slot = (key * 0x9E3779B9) >>> 1 & mask;
+			while (keys[slot] != 0 && keys[slot] != key)
+				slot = (slot + 1) & mask;
+
+			if (keys[slot] == key) {
+				values[slot] = Math.max(values[slot], score);
+				return;
+			}
+
+			keys[slot] = key;
+			values[slot] = score;
+			if (++size * 2 > keys.length)
+				grow();
+		}
+
+		private void grow() {
+			int[] oldKeys = keys, oldValues = values;
+			keys = new int[oldKeys.length * 2];
+			values = new int[oldKeys.length * 2];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != 0)
+					max(oldKeys[i] - 1, oldValues[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,157 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.search;
+
+import java.text.BreakIterator;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Splits text into the terms of the {@link SearchIndex}: words found by the 
+ * word rules of the locale, lower-cased and with their accents and other 
+ * diacritics folded, so that <code>Bel&eacute;m</code> and <code>BELEM</code> give 
+ * the same term.
+ * 
+ * @author Pedro Cruz
+ *
+ */
+final class Tokenizer {
+	private static final int MAX_LOCALES = 256;
+	private static final ConcurrentMap<Locale, BreakIterator> words = new ConcurrentHashMap<Locale, BreakIterator>();
+
+	private Tokenizer() {
+	}
+
+	/**
+	 * Gets the terms of the given text.
+	 * @param text the text to split, may be <code>null</code>.
+	 * @param locale the locale of the text.
+	 * @return the terms, in the order they appear.
+	 */
+	static List<String> tokenize(String text, Locale locale) {
+		List<String> terms = new ArrayList<String>();
+		if (text == null || text.isEmpty())
+			return terms;
+
+		String folded = fold(text.toLowerCase(locale));
+		BreakIterator words = wordsOf(locale);
+		words.setText(folded);
+		int start = words.first();
+		for (int end = words.next(); end != BreakIterator.DONE; start = end, end = words.next())
+			split(folded, start, end, terms);
+
+		return terms;
+	}
+
+	/*
+	 * Gets a new word iterator for the locale. Creating one loads the word 
+	 * rules of the locale, so one is kept for each locale and cloned.
+	 */
+	private static BreakIterator wordsOf(Locale locale) {
+		BreakIterator prototype = words.get(locale);
+		if (prototype == null) {
+			prototype = BreakIterator.getWordInstance(locale);
+			if (words.size() < MAX_LOCALES)
+				words.putIfAbsent(locale, prototype);
+		}
+
+		return (BreakIterator) prototype.clone();
+	}
+
+	/*
+	 * Adds the runs of letters and digits of a word, as the word rules of some 
+	 * locales keep apostrophes and periods inside words.
+	 */
+	private static void split(String text, int start, int end, List<String> terms) {
+		int run = -1;
+		for (int i = start; i <= end; i++) {
+			boolean letter = i < end && Character.isLetterOrDigit(text.charAt(i));
+			if (letter && run < 0) {
+				run = i;
+			} else if (!letter && run >= 0) {
+				terms.add(text.substring(run, i));
+				run = -1;
+			}
+		}
+	}
+
+	/**
+	 * Folds the accents and diacritics of lower-case text, and the letters 
+	 * that do not decompose into a base letter and a mark.
+	 * @param text the text to fold.
+	 * @return the folded text.
+	 */
+	static String fold(String text) {
+		boolean ascii = true;
+		for (int i = 0; i < text.length() && ascii; i++)
+			ascii = text.charAt(i) < 0x80;
+
+		if (ascii)
+			return text;
+
+		String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+		StringBuilder builder = new StringBuilder(decomposed.length());
+		for (int i = 0; i < decomposed.length(); i++) {
+			char c = decomposed.charAt(i);
+			switch (Character.getType(c)) {
+			case Character.NON_SPACING_MARK:
+			case Character.ENCLOSING_MARK:
+			case Character.COMBINING_SPACING_MARK:
+				break;
+			default:
+				// sharp s, ae, oe, o with stroke, d with stroke, eth, l with 
+				// stroke and dotless i
+				switch (c) {
+				case '\u00df':
+					builder.append("ss");
+					break;
+				case '\u00e6':
+					builder.append("ae");
+					break;
+				case '\u0153':
+					builder.append("oe");
+					break;
+				case '\u00f8':
+					builder.append('o');
+					break;
+				case '\u0111':
+				case '\u00f0':
+					builder.append('d');
+					break;
+				case '\u0142':
+					builder.append('l');
+					break;
+				case '\u0131':
+					builder.append('i');
+					break;
+				default:
+					builder.append(c);
+				}
+			}
+		}
+
+		return builder.toString();
+	}
+}
@@ -0,0 +1,389 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.snapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import citysdk.tourism.client.poi.base.Geometry;
+import citysdk.tourism.client.poi.base.Line;
+import citysdk.tourism.client.poi.base.Location;
+import citysdk.tourism.client.poi.base.POIBaseType;
+import citysdk.tourism.client.poi.base.POITermType;
+import citysdk.tourism.client.poi.base.POIType;
+import citysdk.tourism.client.poi.base.Point;
+import citysdk.tourism.client.poi.base.Polygon;
+import citysdk.tourism.client.poi.base.Relationship;
+import citysdk.tourism.client.poi.single.Event;
+import citysdk.tourism.client.poi.single.POI;
+import citysdk.tourism.client.poi.single.PointOfInterest;
+import citysdk.tourism.client.poi.single.Route;
+
+/**
+ * A read-only snapshot of a list of POIs, events or routes, written by a 
+ * {@link SnapshotWriter} and memory-mapped when opened. Opening a snapshot 
+ * only checks its header, so it takes the same time regardless of the number 
+ * of POIs in it; nothing is read into the heap until it is used.
+ * 
+ * <p>The file holds a header, the records of each POI, a string table shared 
+ * by all the records and an index with the offset of each record. The 
+ * identifier, the primary label and the coordinates of the first point of 
+ * each POI are kept in a fixed part at the start of its record and can be 
+ * read through a {@link SnapshotRecord} without decoding the rest of the POI.
+ * The complete POI is only decoded by {@link #getPoi(int)}. The coordinates of
+ * every geometry are stored as doubles, so they are not parsed again when a 
+ * POI is decoded.</p>
+ * 
+ * <p>Snapshots are safe to be used by several threads. Their size is limited
+ * to 2GB and the mapping is released when the snapshot is garbage collected.</p>
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public class Snapshot implements Iterable<SnapshotRecord> {
+	static final int MAGIC = 0xC17D5A9E;
+	static final int FORMAT_VERSION = 2;
+	static final int HEADER_SIZE = 32;
+	static final int KIND_POI = 0;
+	static final int KIND_EVENT = 1;
+	static final int KIND_ROUTE = 2;
+	static final int NO_STRING = -1;
+	static final long NO_DATE = Long.MIN_VALUE;
+
+	static final int RECORD_ID = 0;
+	static final int RECORD_LABEL = 4;
+	static final int RECORD_LATITUDE = 8;
+	static final int RECORD_LONGITUDE = 16;
+	static final int RECORD_BODY = 24;
+
+	private static final Class<?>[] TYPES = {
+		PointOfInterest.class, Event.class, Route.class
+	};
+
+	private final ByteBuffer buffer;
+	private final int kind;
+	private final int count;
+	private final int stringCount;
+	private final int strings;
+	private final int stringData;
+	private final int index;
+
+	private Snapshot(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+			throw new IOException("Not a snapshot file");
+
+		if (buffer.getInt(4) != FORMAT_VERSION)
+			throw new IOException("Unsupported snapshot version " + buffer.getInt(4));
+
+		kind = buffer.getInt(8);
+		count = buffer.getInt(12);
+		stringCount = buffer.getInt(16);
+		strings = buffer.getInt(20);
+		index = buffer.getInt(24);
+		stringData = strings + 4 * (stringCount + 1);
+		if (kind < 0 || kind >= TYPES.length || count < 0 || stringCount < 0
+				|| strings < HEADER_SIZE || stringData > index
+				|| (long) index + 4L * count != buffer.capacity())
+			throw new IOException("Corrupt snapshot file");
+	}
+
+	/**
+	 * Opens a snapshot by mapping its file into memory.
+	 * @param file the snapshot file.
+	 * @return the snapshot.
+	 * @throws IOException if the file cannot be read or is not a valid snapshot.
+	 */
+	public static Snapshot open(File file) throws IOException {
+		RandomAccessFile input = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = input.getChannel();
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Snapshots are limited to 2GB");
+
+			return new Snapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} finally {
+			input.close();
+		}
+	}
+
+	static int kindOf(Class<? extends POI> type) {
+		for (int i = 0; i < TYPES.length; i++) {
+			if (TYPES[i] == type)
+				return i;
+		}
+
+		throw new IllegalArgumentException("Snapshots can only hold POIs, events or routes: " + type);
+	}
+
+	/**
+	 * Gets the type of the POIs in this snapshot.
+	 * @return {@link PointOfInterest}, {@link Event} or {@link Route}.
+	 */
+	@SuppressWarnings("unchecked")
+	public Class<? extends POI> getType() {
+		return (Class<? extends POI>) TYPES[kind];
+	}
+
+	/**
+	 * Gets the number of POIs in this snapshot.
+	 * @return the number of POIs.
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Gets a view over the fixed part of the record of a POI.
+	 * @param i the index of the POI.
+	 * @return a view over the record.
+	 */
+	public SnapshotRecord getRecord(int i) {
+		SnapshotRecord record = new SnapshotRecord(this);
+		record.moveTo(i);
+		return record;
+	}
+
+	/**
+	 * Iterates over the records of this snapshot. The same {@link SnapshotRecord}
+	 * is returned by each call to {@link Iterator#next()}, moved to the next 
+	 * record, so records must not be kept across iterations.
+	 */
+	@Override
+	public Iterator<SnapshotRecord> iterator() {
+		final SnapshotRecord record = new SnapshotRecord(this);
+		return new Iterator<SnapshotRecord>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < count;
+			}
+
+			@Override
+			public SnapshotRecord next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+
+				record.moveTo(next++);
+				return record;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Decodes a POI of this snapshot.
+	 * @param i the index of the POI.
+	 * @return a new {@link PointOfInterest}, {@link Event} or {@link Route}, 
+	 * according to the type of this snapshot.
+	 */
+	public POI getPoi(int i) {
+		ByteBuffer in = buffer.duplicate();
+		in.position(offset(i) + RECORD_BODY);
+		POI poi;
+		switch (kind) {
+		case KIND_EVENT:
+			poi = readPoi(in, new Event());
+			break;
+		case KIND_ROUTE:
+			Route route = readPoi(in, new Route());
+			int size = in.getInt();
+			for (int j = 0; j < size; j++)
+				route.addPoi(readPoi(in, new PointOfInterest()));
+			poi = route;
+			break;
+		default:
+			poi = readPoi(in, new PointOfInterest());
+		}
+
+		return poi;
+	}
+
+	int offset(int i) {
+		if (i < 0 || i >= count)
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + count);
+
+		return buffer.getInt(index + 4 * i);
+	}
+
+	int getInt(int position) {
+		return buffer.getInt(position);
+	}
+
+	double getDouble(int position) {
+		return buffer.getDouble(position);
+	}
+
+	String getString(int ref) {
+		if (ref == NO_STRING)
+			return null;
+
+		int start = buffer.getInt(strings + 4 * ref);
+		byte[] bytes = new byte[buffer.getInt(strings + 4 * (ref + 1)) - start];
+		ByteBuffer data = buffer.duplicate();
+		data.position(stringData + start);
+		data.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private String readString(ByteBuffer in) {
+		return getString(in.getInt());
+	}
+
+	private static Date readDate(ByteBuffer in) {
+		long time = in.getLong();
+		return time == NO_DATE ? null : new Date(time);
+	}
+
+	private <T extends POIBaseType> T readBase(ByteBuffer in, T base) {
+		if (in.get() == 0)
+			return null;
+
+		base.setId(readString(in));
+		base.setValue(readString(in));
+		base.setHref(readString(in));
+		base.setType(readString(in));
+		base.setLang(readString(in));
+		base.setBase(readString(in));
+		base.setCreated(readDate(in));
+		base.setUpdated(readDate(in));
+		base.setDeleted(readDate(in));
+		base.setAuthor(absent(in) ? null : readTerm(in, new POITermType()));
+		base.setLicense(absent(in) ? null : readTerm(in, new POITermType()));
+		return base;
+	}
+
+	/*
+	 * Skips the marker of an absent object, so that no instance has to be 
+	 * allocated for it.
+	 */
+	private static boolean absent(ByteBuffer in) {
+		if (in.get(in.position()) != 0)
+			return false;
+
+		in.get();
+		return true;
+	}
+
+	private <T extends POITermType> T readTerm(ByteBuffer in, T term) {
+		if (readBase(in, term) == null)
+			return null;
+
+		term.setTerm(readString(in));
+		term.setScheme(readString(in));
+		return term;
+	}
+
+	private Geometry readGeometry(ByteBuffer in) {
+		if (in.get() == 0)
+			return null;
+
+		String posList = readString(in);
+		double[] coordinates = new double[2 * in.getInt()];
+		in.asDoubleBuffer().get(coordinates);
+		in.position(in.position() + 8 * coordinates.length);
+
+		Geometry geometry = new Geometry();
+		geometry.setPosList(posList, coordinates);
+		return geometry;
+	}
+
+	private void readType(ByteBuffer in, POIType poi) {
+		int size = in.getInt();
+		for (int i = 0; i < size; i++)
+			poi.addLabel(readTerm(in, new POITermType()));
+
+		size = in.getInt();
+		for (int i = 0; i < size; i++)
+			poi.addDescription(readBase(in, new POIBaseType()));
+
+		size = in.getInt();
+		for (int i = 0; i < size; i++)
+			poi.addCategory(readTerm(in, new POITermType()));
+
+		size = in.getInt();
+		for (int i = 0; i < size; i++)
+			poi.addTime(readTerm(in, new POITermType()));
+
+		size = in.getInt();
+		for (int i = 0; i < size; i++)
+			poi.addLink(readTerm(in, new POITermType()));
+	}
+
+	private Location readLocation(ByteBuffer in) {
+		Location location = readBase(in, new Location());
+		if (location == null)
+			return null;
+
+		int size = in.getInt();
+		Point[] points = new Point[size];
+		for (int i = 0; i < size; i++)
+			location.addPoint(points[i] = readTerm(in, new Point()));
+		for (Point point : points)
+			point.setPoint(readGeometry(in));
+
+		size = in.getInt();
+		Line[] lines = new Line[size];
+		for (int i = 0; i < size; i++)
+			location.addLine(lines[i] = readTerm(in, new Line()));
+		for (Line line : lines)
+			line.setLineString(readGeometry(in));
+
+		size = in.getInt();
+		Polygon[] polygons = new Polygon[size];
+		for (int i = 0; i < size; i++)
+			location.addPolygon(polygons[i] = readTerm(in, new Polygon()));
+		for (Polygon polygon : polygons)
+			polygon.setSimplePolygon(readGeometry(in));
+
+		location.setAddress(readBase(in, new POIBaseType()));
+		size = in.getInt();
+		Relationship[] relationships = new Relationship[size];
+		for (int i = 0; i < size; i++)
+			location.addRelationship(relationships[i] = readTerm(in, new Relationship()));
+		for (Relationship relationship : relationships) {
+			relationship.setTargetPOI(readString(in));
+			relationship.setTargetEvent(readString(in));
+		}
+
+		return location;
+	}
+
+	private <T extends POI> T readPoi(ByteBuffer in, T poi) {
+		readBase(in, poi);
+		readType(in, poi);
+
+		poi.setLocation(readLocation(in));
+		return poi;
+	}
+}
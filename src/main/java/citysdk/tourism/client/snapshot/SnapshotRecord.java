@@ -0,0 +1,105 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.snapshot;
+
+import citysdk.tourism.client.poi.single.POI;
+
+/**
+ * A view over the fixed part of the record of a POI in a {@link Snapshot}.
+ * Its fields are read directly from the mapped file each time they are 
+ * requested; only the strings are copied.
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public final class SnapshotRecord {
+	private final Snapshot snapshot;
+	private int index;
+	private int offset;
+
+	SnapshotRecord(Snapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	void moveTo(int index) {
+		this.offset = snapshot.offset(index);
+		this.index = index;
+	}
+
+	/**
+	 * Gets the index of this record in the snapshot.
+	 * @return the index of the record.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Gets the identifier of the POI.
+	 * @return the identifier, or <code>null</code> if it has none.
+	 */
+	public String getId() {
+		return snapshot.getString(snapshot.getInt(offset + Snapshot.RECORD_ID));
+	}
+
+	/**
+	 * Gets the primary label of the POI, or its first label if it has no 
+	 * primary label.
+	 * @return the label, or <code>null</code> if it has none.
+	 */
+	public String getLabel() {
+		return snapshot.getString(snapshot.getInt(offset + Snapshot.RECORD_LABEL));
+	}
+
+	/**
+	 * Checks whether the POI has coordinates.
+	 * @return <code>true</code> if the first point of the POI location could 
+	 * be parsed, <code>false</code> otherwise.
+	 */
+	public boolean hasCoordinates() {
+		return !Double.isNaN(getLatitude());
+	}
+
+	/**
+	 * Gets the latitude of the first point of the POI location.
+	 * @return the latitude, or {@link Double#NaN} if it has none.
+	 */
+	public double getLatitude() {
+		return snapshot.getDouble(offset + Snapshot.RECORD_LATITUDE);
+	}
+
+	/**
+	 * Gets the longitude of the first point of the POI location.
+	 * @return the longitude, or {@link Double#NaN} if it has none.
+	 */
+	public double getLongitude() {
+		return snapshot.getDouble(offset + Snapshot.RECORD_LONGITUDE);
+	}
+
+	/**
+	 * Decodes the complete POI of this record.
+	 * @return the POI.
+	 * @see Snapshot#getPoi(int)
+	 */
+	public POI toPoi() {
+		return snapshot.getPoi(index);
+	}
+}
@@ -0,0 +1,421 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import citysdk.tourism.client.poi.base.Geometry;
+import citysdk.tourism.client.poi.base.Line;
+import citysdk.tourism.client.poi.base.Location;
+import citysdk.tourism.client.poi.base.POIBaseType;
+import citysdk.tourism.client.poi.base.POITermType;
+import citysdk.tourism.client.poi.base.POIType;
+import citysdk.tourism.client.poi.base.Point;
+import citysdk.tourism.client.poi.base.Polygon;
+import citysdk.tourism.client.poi.base.Relationship;
+import citysdk.tourism.client.poi.lists.ListEvent;
+import citysdk.tourism.client.poi.lists.ListPointOfInterest;
+import citysdk.tourism.client.poi.lists.ListRoute;
+import citysdk.tourism.client.poi.single.Event;
+import citysdk.tourism.client.poi.single.POI;
+import citysdk.tourism.client.poi.single.PointOfInterest;
+import citysdk.tourism.client.poi.single.Route;
+import citysdk.tourism.client.terms.Term;
+
+/**
+ * Writes a {@link Snapshot} file. The POIs are written one at a time as they
+ * are added, so a snapshot can be written from a lazy iterator (such as the 
+ * ones returned by {@link citysdk.tourism.client.parser.JsonParser#iteratePois(java.io.Reader)})
+ * without holding the whole list in memory. Only the string table and the
+ * offset index are kept until the writer is closed.
+ * 
+ * <p>The snapshot is written to a temporary file and only moved to its final
+ * place when the writer is closed, so readers never see a partial snapshot.</p>
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public class SnapshotWriter implements Closeable {
+	private final File file;
+	private final File temp;
+	private final Class<? extends POI> type;
+	private final int kind;
+	private final DataOutputStream out;
+	private final Map<String, Integer> strings;
+	private final List<String> table;
+	private int[] offsets;
+	private int count;
+	private boolean failed;
+	private boolean closed;
+
+	/**
+	 * Creates a writer for a snapshot of the given type.
+	 * @param file the snapshot file.
+	 * @param type the type of the POIs in the snapshot: {@link PointOfInterest}, 
+	 * {@link Event} or {@link Route}.
+	 * @throws IOException if the file cannot be created.
+	 */
+	public SnapshotWriter(File file, Class<? extends POI> type) throws IOException {
+		this.kind = Snapshot.kindOf(type);
+		this.type = type;
+		this.file = file;
+		this.temp = new File(file.getPath() + ".tmp");
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+		this.strings = new HashMap<String, Integer>();
+		this.table = new ArrayList<String>();
+		this.offsets = new int[1024];
+		out.write(new byte[Snapshot.HEADER_SIZE]);
+	}
+
+	/**
+	 * Writes a snapshot of a list of POIs.
+	 * @param file the snapshot file.
+	 * @param list the list to be written.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	public static void write(File file, ListPointOfInterest list) throws IOException {
+		write(file, PointOfInterest.class, list.getPois().iterator());
+	}
+
+	/**
+	 * Writes a snapshot of a list of events.
+	 * @param file the snapshot file.
+	 * @param list the list to be written.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	public static void write(File file, ListEvent list) throws IOException {
+		write(file, Event.class, list.getEvents().iterator());
+	}
+
+	/**
+	 * Writes a snapshot of a list of routes.
+	 * @param file the snapshot file.
+	 * @param list the list to be written.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	public static void write(File file, ListRoute list) throws IOException {
+		write(file, Route.class, list.getRoutes().iterator());
+	}
+
+	/**
+	 * Writes a snapshot of all the POIs returned by an iterator.
+	 * @param file the snapshot file.
+	 * @param type the type of the POIs.
+	 * @param pois the POIs to be written.
+	 * @throws IOException if the snapshot cannot be written.
+	 */
+	public static <T extends POI> void write(File file, Class<T> type, Iterator<? extends T> pois) 
+			throws IOException {
+		SnapshotWriter writer = new SnapshotWriter(file, type);
+		try {
+			while (pois.hasNext())
+				writer.add(pois.next());
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Adds a POI to the snapshot.
+	 * @param poi the POI to be added.
+	 * @throws IOException if the POI cannot be written.
+	 */
+	public void add(POI poi) throws IOException {
+		if (closed)
+			throw new IllegalStateException("The snapshot writer is closed");
+
+		if (!type.isInstance(poi))
+			throw new IllegalArgumentException("Expected " + type.getSimpleName() + " but got " + poi);
+
+		try {
+			if (count == offsets.length)
+				offsets = Arrays.copyOf(offsets, count * 2);
+
+			offsets[count] = position();
+			double[] coordinates = getCoordinates(poi);
+			out.writeInt(string(poi.getId()));
+			out.writeInt(string(getLabel(poi)));
+			out.writeDouble(coordinates[0]);
+			out.writeDouble(coordinates[1]);
+			writePoi(poi);
+			if (kind == Snapshot.KIND_ROUTE) {
+				Route route = (Route) poi;
+				out.writeInt(route.getNumPois());
+				for (int i = 0; i < route.getNumPois(); i++)
+					writePoi(route.getPoi(i));
+			}
+
+			count++;
+		} catch (IOException | RuntimeException e) {
+			failed = true;
+			throw e;
+		}
+	}
+
+	/**
+	 * Writes the string table and the offset index and moves the snapshot to
+	 * its final place. If an error occurred while adding POIs, the snapshot 
+	 * is discarded instead.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+
+		closed = true;
+		boolean done = false;
+		try {
+			if (!failed) {
+				int stringsOffset = position();
+				writeStrings();
+				int indexOffset = position();
+				for (int i = 0; i < count; i++)
+					out.writeInt(offsets[i]);
+
+				position();
+				out.close();
+				writeHeader(stringsOffset, indexOffset);
+				move();
+				done = true;
+			}
+		} finally {
+			if (!done) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					// the snapshot is being discarded
+				}
+				temp.delete();
+			}
+		}
+	}
+
+	private void writeHeader(int stringsOffset, int indexOffset) throws IOException {
+		RandomAccessFile header = new RandomAccessFile(temp, "rw");
+		try {
+			header.writeInt(Snapshot.MAGIC);
+			header.writeInt(Snapshot.FORMAT_VERSION);
+			header.writeInt(kind);
+			header.writeInt(count);
+			header.writeInt(table.size());
+			header.writeInt(stringsOffset);
+			header.writeInt(indexOffset);
+			header.writeInt(0);
+		} finally {
+			header.close();
+		}
+	}
+
+	private void move() throws IOException {
+		try {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/*
+	 * The string table is an array of offsets followed by the UTF-8 bytes of
+	 * all the strings, so that any string can be found with two reads.
+	 */
+	private void writeStrings() throws IOException {
+		byte[][] bytes = new byte[table.size()][];
+		int offset = 0;
+		out.writeInt(offset);
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = table.get(i).getBytes(StandardCharsets.UTF_8);
+			offset += bytes[i].length;
+			out.writeInt(offset);
+		}
+
+		for (byte[] string : bytes)
+			out.write(string);
+	}
+
+	private int position() throws IOException {
+		if (out.size() == Integer.MAX_VALUE)
+			throw new IOException("Snapshots are limited to 2GB");
+
+		return out.size();
+	}
+
+	private int string(String value) {
+		if (value == null)
+			return Snapshot.NO_STRING;
+
+		Integer ref = strings.get(value);
+		if (ref == null) {
+			ref = table.size();
+			strings.put(value, ref);
+			table.add(value);
+		}
+
+		return ref;
+	}
+
+	private void writeString(String value) throws IOException {
+		out.writeInt(string(value));
+	}
+
+	private void writeDate(Date date) throws IOException {
+		out.writeLong(date == null ? Snapshot.NO_DATE : date.getTime());
+	}
+
+	private void writeBase(POIBaseType base) throws IOException {
+		out.writeBoolean(base != null);
+		if (base == null)
+			return;
+
+		writeString(base.getId());
+		writeString(base.getValue());
+		writeString(base.getHref());
+		writeString(base.getType());
+		writeString(base.getLang());
+		writeString(base.getBase());
+		writeDate(base.getCreated());
+		writeDate(base.getUpdated());
+		writeDate(base.getDeleted());
+		writeTerm(base.getAuthor());
+		writeTerm(base.getLicense());
+	}
+
+	private void writeTerm(POITermType term) throws IOException {
+		writeBase(term);
+		if (term != null) {
+			writeString(term.getTerm());
+			writeString(term.getScheme());
+		}
+	}
+
+	private void writeTerms(List<? extends POITermType> terms) throws IOException {
+		out.writeInt(terms.size());
+		for (POITermType term : terms)
+			writeTerm(term);
+	}
+
+	/*
+	 * The coordinates are written as a count-prefixed run of doubles, so they
+	 * are read back without parsing. The position list is kept as well, as 
+	 * the text it was parsed from is not always the one the doubles would 
+	 * format to.
+	 */
+	private void writeGeometry(Geometry geometry) throws IOException {
+		out.writeBoolean(geometry != null);
+		if (geometry == null)
+			return;
+
+		writeString(geometry.getPosList());
+		int size = geometry.getNumCoordinates();
+		out.writeInt(size);
+		for (int i = 0; i < size; i++) {
+			out.writeDouble(geometry.getLatitude(i));
+			out.writeDouble(geometry.getLongitude(i));
+		}
+	}
+
+	private void writeType(POIType poi) throws IOException {
+		writeBase(poi);
+		writeTerms(poi.getLabel());
+		out.writeInt(poi.getDescription().size());
+		for (POIBaseType description : poi.getDescription())
+			writeBase(description);
+
+		writeTerms(poi.getCategory());
+		writeTerms(poi.getTime());
+		writeTerms(poi.getLink());
+	}
+
+	private void writeLocation(Location location) throws IOException {
+		writeBase(location);
+		if (location == null)
+			return;
+
+		writeTerms(location.getPoint());
+		for (Point point : location.getPoint())
+			writeGeometry(point.getPoint());
+
+		writeTerms(location.getLine());
+		for (Line line : location.getLine())
+			writeGeometry(line.getLineString());
+
+		writeTerms(location.getPolygon());
+		for (Polygon polygon : location.getPolygon())
+			writeGeometry(polygon.getSimplePolygon());
+
+		writeBase(location.getAddress());
+		writeTerms(location.getRelationship());
+		for (Relationship relationship : location.getRelationship()) {
+			writeString(relationship.getTargetPOI());
+			writeString(relationship.getTargetEvent());
+		}
+	}
+
+	private void writePoi(POI poi) throws IOException {
+		writeType(poi);
+		writeLocation(poi.getLocation());
+	}
+
+	/*
+	 * The primary label, or the first one if there is no primary label, is
+	 * kept in the fixed part of the record so it can be read without decoding
+	 * the whole POI.
+	 */
+	private static String getLabel(POI poi) {
+		for (POITermType label : poi.getLabel()) {
+			if (Term.LABEL_TERM_PRIMARY.getTerm().equals(label.getTerm()))
+				return label.getValue();
+		}
+
+		return poi.hasLabels() ? poi.getLabel().get(0).getValue() : null;
+	}
+
+	private static double[] getCoordinates(POI poi) {
+		double[] coordinates = {Double.NaN, Double.NaN};
+		Location location = poi.getLocation();
+		if (location == null || !location.hasPoints())
+			return coordinates;
+
+		Geometry point = location.getPoint().get(0).getPoint();
+		if (point == null || !point.hasCoordinates())
+			return coordinates;
+
+		coordinates[0] = point.getLatitude(0);
+		coordinates[1] = point.getLongitude(0);
+		return coordinates;
+	}
+}
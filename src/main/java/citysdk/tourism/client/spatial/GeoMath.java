@@ -0,0 +1,114 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.spatial;
+
+/**
+ * Distances on the surface of the Earth, taken as a sphere, between 
+ * coordinates in degrees (EPSG:4326).
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public final class GeoMath {
+	/**
+	 * The mean radius of the Earth, in meters.
+	 */
+	public static final double EARTH_RADIUS = 6371008.8;
+
+	private GeoMath() {
+	}
+
+	/**
+	 * Gets the great-circle distance between two coordinates, using the 
+	 * haversine formula.
+	 * 
+	 * @param lat1
+	 *            the latitude of the first coordinate.
+	 * @param lon1
+	 *            the longitude of the first coordinate.
+	 * @param lat2
+	 *            the latitude of the second coordinate.
+	 * @param lon2
+	 *            the longitude of the second coordinate.
+	 * @return the distance, in meters.
+	 */
+	public static double distance(double lat1, double lon1, double lat2, double lon2) {
+		double dLat = Math.toRadians(lat2 - lat1);
+		double dLon = Math.toRadians(lon2 - lon1);
+		double sinLat = Math.sin(dLat / 2);
+		double sinLon = Math.sin(dLon / 2);
+		double h = sinLat * sinLat
+				+ Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+
+		return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(h)));
+	}
+
+	/**
+	 * Gets the shortest great-circle distance between a coordinate and any 
+	 * coordinate of a latitude/longitude box. The distance is exact, so it 
+	 * never grows when the box is enlarged.
+	 * 
+	 * @return the distance, in meters, 0 if the coordinate is in the box.
+	 */
+	static double distanceToBox(double lat, double lon, double minLat, double minLon,
+			double maxLat, double maxLon) {
+		if (minLat == maxLat && minLon == maxLon)
+			return distance(lat, lon, minLat, minLon);
+
+		if (lon >= minLon && lon <= maxLon) {
+			if (lat < minLat)
+				return EARTH_RADIUS * Math.toRadians(minLat - lat);
+			else if (lat > maxLat)
+				return EARTH_RADIUS * Math.toRadians(lat - maxLat);
+			else
+				return 0;
+		}
+
+		// at any latitude the closer meridian is the one with the smaller 
+		// difference of longitude, going either way around
+		double west = wrap(minLon - lon), east = wrap(lon - maxLon);
+		return distanceToMeridian(lat, lon, west <= east ? minLon : maxLon, minLat, maxLat);
+	}
+
+	private static double wrap(double degrees) {
+		degrees %= 360;
+		return degrees < 0 ? degrees + 360 : degrees;
+	}
+
+	/*
+	 * Gets the shortest distance to a segment of a meridian. Along the meridian 
+	 * the distance to the coordinate grows with the difference to the latitude 
+	 * where the great circle through the coordinate crosses it at a right 
+	 * angle, so the closest point is there or at the end nearest to it. When 
+	 * that crossing is on the other side of a pole, either end may be closest.
+	 */
+	private static double distanceToMeridian(double lat, double lon, double meridian,
+			double minLat, double maxLat) {
+		double phi = Math.toRadians(lat);
+		double closest = Math.toDegrees(Math.atan2(Math.sin(phi),
+				Math.cos(phi) * Math.cos(Math.toRadians(meridian - lon))));
+
+		if (closest > 90 || closest < -90)
+			return Math.min(distance(lat, lon, minLat, meridian), distance(lat, lon, maxLat, meridian));
+
+		return distance(lat, lon, Math.max(minLat, Math.min(maxLat, closest)), meridian);
+	}
+}
@@ -0,0 +1,664 @@
+/**
+ * COPYRIGHT NOTICE: 
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.spatial;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import citysdk.tourism.client.poi.base.Geometry;
+import citysdk.tourism.client.poi.base.Line;
+import citysdk.tourism.client.poi.base.Location;
+import citysdk.tourism.client.poi.base.Point;
+import citysdk.tourism.client.poi.base.Polygon;
+import citysdk.tourism.client.poi.single.POI;
+
+/**
+ * An in-memory R-tree of {@link citysdk.tourism.client.poi.single.PointOfInterest}, 
+ * {@link citysdk.tourism.client.poi.single.Event} or {@link citysdk.tourism.client.poi.single.Route} 
+ * objects, to answer nearest, radius and bounding box queries over the POIs 
+ * already fetched without scanning all of them.
+ * 
+ * <p>Each POI is indexed by the bounding box of every {@link Point}, {@link Line} 
+ * and {@link Polygon} of its {@link Location}, and nodes are split as in an 
+ * R*-tree. POIs without coordinates are not indexed. Distances are great-circle distances in meters (see {@link GeoMath}) 
+ * to the closest point of that box, which is the exact distance for POIs with 
+ * a single point.</p>
+ * 
+ * <p>POIs are kept by identity: adding the same instance twice has no effect, and 
+ * the index keeps the box the POI had when it was added, so a POI whose location 
+ * changes should be removed and added again. This class is not thread-safe.</p>
+ * 
+ * @author Pedro Cruz
+ *
+ * @param <T> the type of the indexed POIs.
+ */
+public class SpatialIndex<T extends POI> {
+	private static final int DEFAULT_MAX_ENTRIES = 16;
+	private static final Comparator<Bounds> BY_MIN_LAT = new Comparator<Bounds>() {
+		@Override
+		public int compare(Bounds a, Bounds b) {
+			return Double.compare(a.minLat, b.minLat);
+		}
+	};
+	private static final Comparator<Bounds> BY_MAX_LAT = new Comparator<Bounds>() {
+		@Override
+		public int compare(Bounds a, Bounds b) {
+			return Double.compare(a.maxLat, b.maxLat);
+		}
+	};
+	private static final Comparator<Bounds> BY_MIN_LON = new Comparator<Bounds>() {
+		@Override
+		public int compare(Bounds a, Bounds b) {
+			return Double.compare(a.minLon, b.minLon);
+		}
+	};
+	private static final Comparator<Bounds> BY_MAX_LON = new Comparator<Bounds>() {
+		@Override
+		public int compare(Bounds a, Bounds b) {
+			return Double.compare(a.maxLon, b.maxLon);
+		}
+	};
+
+	private final int maxEntries;
+	private final int minEntries;
+	private final Map<T, Entry<T>> entries = new IdentityHashMap<T, Entry<T>>();
+	private Node root;
+
+	/**
+	 * Creates an empty index.
+	 */
+	public SpatialIndex() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Creates an empty index with the given number of children per node.
+	 * 
+	 * @param maxEntries
+	 *            the maximum number of children of each node, at least 4.
+	 */
+	public SpatialIndex(int maxEntries) {
+		if (maxEntries < 4)
+			throw new IllegalArgumentException("maxEntries must be at least 4: " + maxEntries);
+
+		this.maxEntries = maxEntries;
+		this.minEntries = Math.max(2, maxEntries * 2 / 5);
+		this.root = new Node(true, maxEntries);
+	}
+
+	/**
+	 * Gets the number of indexed POIs.
+	 * @return the number of POIs.
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Checks whether the given POI is indexed.
+	 * @param poi the POI to check.
+	 * @return <code>true</code> if the POI is indexed, <code>false</code> otherwise.
+	 */
+	public boolean contains(T poi) {
+		return entries.containsKey(poi);
+	}
+
+	/**
+	 * Adds a POI to the index.
+	 * 
+	 * @param poi
+	 *            the POI to add.
+	 * @return <code>true</code> if it was added, <code>false</code> if it was 
+	 * already indexed or has no coordinates.
+	 */
+	public boolean add(T poi) {
+		if (poi == null || entries.containsKey(poi))
+			return false;
+
+		Entry<T> entry = new Entry<T>(poi);
+		if (!bound(entry, poi.getLocation()))
+			return false;
+
+		entries.put(poi, entry);
+		insert(entry);
+		return true;
+	}
+
+	/**
+	 * Adds all the given POIs to the index.
+	 * 
+	 * @param pois
+	 *            the POIs to add.
+	 * @return the number of POIs that were added.
+	 * @see #add(POI)
+	 */
+	public int addAll(Collection<? extends T> pois) {
+		int added = 0;
+		for (T poi : pois) {
+			if (add(poi))
+				added++;
+		}
+
+		return added;
+	}
+
+	/**
+	 * Removes a POI from the index.
+	 * 
+	 * @param poi
+	 *            the POI to remove.
+	 * @return <code>true</code> if it was indexed, <code>false</code> otherwise.
+	 */
+	public boolean remove(T poi) {
+		Entry<T> entry = entries.remove(poi);
+		if (entry == null)
+			return false;
+
+		Node leaf = entry.parent;
+		leaf.remove(entry);
+		condense(leaf);
+		return true;
+	}
+
+	/**
+	 * Removes all POIs from the index.
+	 */
+	public void clear() {
+		entries.clear();
+		root = new Node(true, maxEntries);
+	}
+
+	/**
+	 * Gets the POIs which intersect the given bounding box.
+	 * 
+	 * @param minLat
+	 *            the south limit of the box.
+	 * @param minLon
+	 *            the west limit of the box.
+	 * @param maxLat
+	 *            the north limit of the box.
+	 * @param maxLon
+	 *            the east limit of the box.
+	 * @return the POIs found, in no particular order.
+	 */
+	public List<T> search(double minLat, double minLon, double maxLat, double maxLon) {
+		if (minLat > maxLat || minLon > maxLon)
+			throw new IllegalArgumentException("Invalid bounding box: " + minLat + "," + minLon
+					+ "," + maxLat + "," + maxLon);
+
+		List<T> result = new ArrayList<T>();
+		Deque<Node> pending = new ArrayDeque<Node>();
+		pending.push(root);
+		while (!pending.isEmpty()) {
+			Node node = pending.pop();
+			for (int i = 0; i < node.size; i++) {
+				Bounds child = node.children[i];
+				if (!child.intersects(minLat, minLon, maxLat, maxLon))
+					continue;
+
+				if (node.leaf)
+					result.add(value(child));
+				else
+					pending.push((Node) child);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the POIs at most at the given distance of a coordinate.
+	 * 
+	 * @param lat
+	 *            the latitude of the coordinate.
+	 * @param lon
+	 *            the longitude of the coordinate.
+	 * @param radius
+	 *            the distance, in meters.
+	 * @return the POIs found, in no particular order.
+	 */
+	public List<T> withinRadius(double lat, double lon, double radius) {
+		// the box around the circle rules out most children before measuring 
+		// their distance; near the poles or the antimeridian it spans all 
+		// longitudes
+		double angle = radius / GeoMath.EARTH_RADIUS;
+		double dLat = Math.toDegrees(angle);
+		double minLat = lat - dLat, maxLat = lat + dLat;
+		double minLon = -Double.MAX_VALUE, maxLon = Double.MAX_VALUE;
+		double sin = Math.sin(angle) / Math.cos(Math.toRadians(lat));
+		if (minLat > -90 && maxLat < 90 && angle < Math.PI / 2 && sin < 1) {
+			double dLon = Math.toDegrees(Math.asin(sin));
+			if (lon - dLon > -180 && lon + dLon < 180) {
+				minLon = lon - dLon;
+				maxLon = lon + dLon;
+			}
+		}
+
+		List<T> result = new ArrayList<T>();
+		Deque<Node> pending = new ArrayDeque<Node>();
+		pending.push(root);
+		while (!pending.isEmpty()) {
+			Node node = pending.pop();
+			for (int i = 0; i < node.size; i++) {
+				Bounds child = node.children[i];
+				if (!child.intersects(minLat, minLon, maxLat, maxLon) || child.distance(lat, lon) > radius)
+					continue;
+
+				if (node.leaf)
+					result.add(value(child));
+				else
+					pending.push((Node) child);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the POIs closest to a coordinate.
+	 * 
+	 * @param lat
+	 *            the latitude of the coordinate.
+	 * @param lon
+	 *            the longitude of the coordinate.
+	 * @param k
+	 *            the number of POIs to get.
+	 * @return up to <code>k</code> POIs, from the closest to the farthest.
+	 */
+	public List<T> nearest(double lat, double lon, int k) {
+		List<T> result = new ArrayList<T>(Math.min(Math.max(k, 0), size()));
+		if (k <= 0 || root.size == 0)
+			return result;
+
+		// best-first: a node is never closer than anything it contains, so 
+		// entries leave the queue in order of distance
+		PriorityQueue<Candidate> queue = new PriorityQueue<Candidate>();
+		queue.add(new Candidate(root, 0, false));
+		while (!queue.isEmpty() && result.size() < k) {
+			Candidate candidate = queue.poll();
+			if (candidate.entry) {
+				result.add(value(candidate.bounds));
+				continue;
+			}
+
+			Node node = (Node) candidate.bounds;
+			for (int i = 0; i < node.size; i++) {
+				Bounds child = node.children[i];
+				queue.add(new Candidate(child, child.distance(lat, lon), node.leaf));
+			}
+		}
+
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private T value(Bounds entry) {
+		return ((Entry<T>) entry).value;
+	}
+
+	/*
+	 * Sets the bounds of the entry to the box of all the geometries of the 
+	 * location.
+	 */
+	private static boolean bound(Bounds bounds, Location location) {
+		if (location == null)
+			return false;
+
+		bounds.minLat = bounds.minLon = Double.POSITIVE_INFINITY;
+		bounds.maxLat = bounds.maxLon = Double.NEGATIVE_INFINITY;
+		for (Point point : location.getPoint())
+			bound(bounds, point.getPoint());
+
+		for (Line line : location.getLine())
+			bound(bounds, line.getLineString());
+
+		for (Polygon polygon : location.getPolygon())
+			bound(bounds, polygon.getSimplePolygon());
+
+		return bounds.minLat <= bounds.maxLat;
+	}
+
+	private static void bound(Bounds bounds, Geometry geometry) {
+		if (geometry == null)
+			return;
+
+		for (int i = 0; i < geometry.getNumCoordinates(); i++) {
+			double lat = geometry.getLatitude(i);
+			double lon = geometry.getLongitude(i);
+			bounds.minLat = Math.min(bounds.minLat, lat);
+			bounds.minLon = Math.min(bounds.minLon, lon);
+			bounds.maxLat = Math.max(bounds.maxLat, lat);
+			bounds.maxLon = Math.max(bounds.maxLon, lon);
+		}
+	}
+
+	/*
+	 * Inserts the entry in the leaf that needs the least enlargement, 
+	 * splitting the nodes that overflow up to the root.
+	 */
+	private void insert(Entry<T> entry) {
+		Node node = root;
+		while (!node.leaf)
+			node = node.chooseSubtree(entry);
+
+		node.add(entry);
+		while (node != null) {
+			Node parent = node.parent;
+			if (node.size > maxEntries) {
+				Node sibling = split(node);
+				if (parent == null) {
+					root = new Node(false, maxEntries);
+					root.add(node);
+					root.add(sibling);
+					root.recompute();
+					return;
+				}
+
+				parent.add(sibling);
+			}
+
+			node.recompute();
+			node = parent;
+		}
+	}
+
+	/*
+	 * Splits an overflowing node with the R*-tree split: the children are 
+	 * sorted along the axis whose distributions have the smallest perimeter, 
+	 * and divided where the two groups overlap the least. Part of them then 
+	 * move to a new sibling.
+	 */
+	private Node split(Node node) {
+		Bounds[] children = Arrays.copyOf(node.children, node.size);
+		double latMargin = sortForSplit(children, BY_MIN_LAT, BY_MAX_LAT);
+		double lonMargin = sortForSplit(children, BY_MIN_LON, BY_MAX_LON);
+		if (latMargin < lonMargin)
+			sortForSplit(children, BY_MIN_LAT, BY_MAX_LAT);
+
+		int count = children.length;
+		Bounds[] before = cumulative(children, false);
+		Bounds[] after = cumulative(children, true);
+		int best = minEntries;
+		double bestOverlap = Double.POSITIVE_INFINITY, bestArea = Double.POSITIVE_INFINITY;
+		for (int k = minEntries; k <= count - minEntries; k++) {
+			Bounds left = before[k - 1], right = after[k];
+			double overlap = left.overlap(right), area = left.area() + right.area();
+			if (overlap < bestOverlap || (overlap == bestOverlap && area < bestArea)) {
+				best = k;
+				bestOverlap = overlap;
+				bestArea = area;
+			}
+		}
+
+		Node sibling = new Node(node.leaf, maxEntries);
+		node.clearChildren();
+		for (int i = 0; i < count; i++) {
+			if (i < best)
+				node.add(children[i]);
+			else
+				sibling.add(children[i]);
+		}
+
+		node.recompute();
+		sibling.recompute();
+		return sibling;
+	}
+
+	/*
+	 * Sorts the children along one axis, by the lower and then the upper 
+	 * bound, leaving them in the order whose distributions have the smallest 
+	 * sum of perimeters, and returns that sum.
+	 */
+	private double sortForSplit(Bounds[] children, Comparator<Bounds> byMin, Comparator<Bounds> byMax) {
+		Arrays.sort(children, byMax);
+		double maxMargin = margins(children);
+		Arrays.sort(children, byMin);
+		double minMargin = margins(children);
+		if (maxMargin < minMargin) {
+			Arrays.sort(children, byMax);
+			return maxMargin;
+		}
+
+		return minMargin;
+	}
+
+	private double margins(Bounds[] children) {
+		Bounds[] before = cumulative(children, false);
+		Bounds[] after = cumulative(children, true);
+		double margin = 0;
+		for (int k = minEntries; k <= children.length - minEntries; k++)
+			margin += before[k - 1].margin() + after[k].margin();
+
+		return margin;
+	}
+
+	/*
+	 * Gets the boxes of the first i + 1 children, or of the children from i 
+	 * to the end when reversed.
+	 */
+	private static Bounds[] cumulative(Bounds[] children, boolean reversed) {
+		int count = children.length;
+		Bounds[] boxes = new Bounds[count];
+		for (int n = 0; n < count; n++) {
+			int i = reversed ? count - 1 - n : n;
+			Box box = new Box(children[i]);
+			if (n > 0)
+				box.include(boxes[reversed ? i + 1 : i - 1]);
+
+			boxes[i] = box;
+		}
+
+		return boxes;
+	}
+
+	/*
+	 * Walks up from a leaf that lost an entry, removing the nodes left with 
+	 * too few children and inserting their entries again.
+	 */
+	private void condense(Node leaf) {
+		List<Entry<T>> orphans = new ArrayList<Entry<T>>();
+		Node node = leaf;
+		while (node.parent != null) {
+			Node parent = node.parent;
+			if (node.size < minEntries) {
+				parent.remove(node);
+				collect(node, orphans);
+			} else {
+				node.recompute();
+			}
+
+			node = parent;
+		}
+
+		root.recompute();
+		while (!root.leaf && root.size == 1) {
+			root = (Node) root.children[0];
+			root.parent = null;
+		}
+
+		if (!root.leaf && root.size == 0)
+			root = new Node(true, maxEntries);
+
+		for (Entry<T> orphan : orphans)
+			insert(orphan);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void collect(Node node, List<Entry<T>> orphans) {
+		for (int i = 0; i < node.size; i++) {
+			if (node.leaf)
+				orphans.add((Entry<T>) node.children[i]);
+			else
+				collect((Node) node.children[i], orphans);
+		}
+	}
+
+	/*
+	 * A latitude/longitude box of a node or an entry.
+	 */
+	private abstract static class Bounds {
+		double minLat, minLon, maxLat, maxLon;
+		Node parent;
+
+		final double area() {
+			return (maxLat - minLat) * (maxLon - minLon);
+		}
+
+		final double unionArea(Bounds other) {
+			return (Math.max(maxLat, other.maxLat) - Math.min(minLat, other.minLat))
+					* (Math.max(maxLon, other.maxLon) - Math.min(minLon, other.minLon));
+		}
+
+		final double margin() {
+			return (maxLat - minLat) + (maxLon - minLon);
+		}
+
+		final double overlap(Bounds other) {
+			double lat = Math.min(maxLat, other.maxLat) - Math.max(minLat, other.minLat);
+			double lon = Math.min(maxLon, other.maxLon) - Math.max(minLon, other.minLon);
+			return lat > 0 && lon > 0 ? lat * lon : 0;
+		}
+
+		final double enlargement(Bounds other) {
+			return unionArea(other) - area();
+		}
+
+		final void include(Bounds other) {
+			minLat = Math.min(minLat, other.minLat);
+			minLon = Math.min(minLon, other.minLon);
+			maxLat = Math.max(maxLat, other.maxLat);
+			maxLon = Math.max(maxLon, other.maxLon);
+		}
+
+		final boolean intersects(double minLat, double minLon, double maxLat, double maxLon) {
+			return this.minLat <= maxLat && this.maxLat >= minLat
+					&& this.minLon <= maxLon && this.maxLon >= minLon;
+		}
+
+		final double distance(double lat, double lon) {
+			return GeoMath.distanceToBox(lat, lon, minLat, minLon, maxLat, maxLon);
+		}
+	}
+
+	private static final class Box extends Bounds {
+		Box(Bounds bounds) {
+			minLat = bounds.minLat;
+			minLon = bounds.minLon;
+			maxLat = bounds.maxLat;
+			maxLon = bounds.maxLon;
+		}
+	}
+
+	private static final class Entry<T> extends Bounds {
+		final T value;
+
+		Entry(T value) {
+			this.value = value;
+		}
+	}
+
+	private static final class Node extends Bounds {
+		final boolean leaf;
+		Bounds[] children;
+		int size;
+
+		Node(boolean leaf, int maxEntries) {
+			this.leaf = leaf;
+			this.children = new Bounds[maxEntries + 1];
+		}
+
+		void add(Bounds child) {
+			children[size++] = child;
+			child.parent = this;
+		}
+
+		void remove(Bounds child) {
+			for (int i = 0; i < size; i++) {
+				if (children[i] == child) {
+					children[i] = children[--size];
+					children[size] = null;
+					child.parent = null;
+					return;
+				}
+			}
+		}
+
+		void clearChildren() {
+			for (int i = 0; i < size; i++)
+				children[i] = null;
+
+			size = 0;
+		}
+
+		Node chooseSubtree(Bounds entry) {
+			Node best = null;
+			double bestEnlargement = Double.POSITIVE_INFINITY, bestArea = Double.POSITIVE_INFINITY;
+			for (int i = 0; i < size; i++) {
+				Bounds child = children[i];
+				double enlargement = child.enlargement(entry), area = child.area();
+				if (enlargement < bestEnlargement || (enlargement == bestEnlargement && area < bestArea)) {
+					best = (Node) child;
+					bestEnlargement = enlargement;
+					bestArea = area;
+				}
+			}
+
+			return best;
+		}
+
+		void recompute() {
+			if (size == 0) {
+				minLat = minLon = maxLat = maxLon = 0;
+				return;
+			}
+
+			minLat = minLon = Double.POSITIVE_INFINITY;
+			maxLat = maxLon = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < size; i++)
+				include(children[i]);
+		}
+	}
+
+	private static final class Candidate implements Comparable<Candidate> {
+		final Bounds bounds;
+		final double distance;
+		final boolean entry;
+
+		Candidate(Bounds bounds, double distance, boolean entry) {
+			this.bounds = bounds;
+			this.distance = distance;
+			this.entry = entry;
+		}
+
+		@Override
+		public int compareTo(Candidate other) {
+			return Double.compare(distance, other.distance);
+		}
+	}
+}
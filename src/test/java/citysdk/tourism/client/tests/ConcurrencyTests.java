@@ -0,0 +1,619 @@
+/**
+ * COPYRIGHT NOTICE:
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import citysdk.tourism.client.exceptions.InvalidParameterException;
+import citysdk.tourism.client.exceptions.ServerErrorException;
+import citysdk.tourism.client.exceptions.VersionNotAvailableException;
+import citysdk.tourism.client.parser.DataReader;
+import citysdk.tourism.client.poi.lists.ListEvent;
+import citysdk.tourism.client.poi.lists.ListPointOfInterest;
+import citysdk.tourism.client.poi.single.Event;
+import citysdk.tourism.client.poi.single.PointOfInterest;
+import citysdk.tourism.client.poi.single.Route;
+import citysdk.tourism.client.requests.AsyncTourismClient;
+import citysdk.tourism.client.requests.BatchResult;
+import citysdk.tourism.client.requests.BulkFetcher;
+import citysdk.tourism.client.requests.Pager;
+import citysdk.tourism.client.requests.Parameter;
+import citysdk.tourism.client.requests.ParameterList;
+import citysdk.tourism.client.requests.PoiRef;
+import citysdk.tourism.client.requests.TourismClient;
+import citysdk.tourism.client.requests.TourismClientFactory;
+import citysdk.tourism.client.requests.cache.CacheStats;
+import citysdk.tourism.client.requests.cache.DiskCache;
+import citysdk.tourism.client.requests.cache.ResponseCache;
+import citysdk.tourism.client.terms.ParameterTerms;
+import citysdk.tourism.client.terms.ResourceTerms;
+import citysdk.tourism.client.terms.Term;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Concurrency tests, using a local server
+ *
+ * @author Pedro Cruz
+ *
+ */
+public class ConcurrencyTests {
+	private static final int THREADS = 16;
+	private static final int REQUESTS = 50;
+	private static final int TOTAL = 1000;
+
+	private static HttpServer server;
+	private static ExecutorService serverExecutor;
+	private static String homeUrl;
+	private static AtomicInteger poiRequests = new AtomicInteger();
+	private static Set<Integer> failed = Collections.synchronizedSet(new HashSet<Integer>());
+
+	@BeforeClass
+	public static void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		serverExecutor = Executors.newFixedThreadPool(THREADS);
+		final String base = "http://127.0.0.1:" + server.getAddress().getPort();
+		homeUrl = base + "/resources";
+
+		server.createContext("/resources", new JsonHandler() {
+			@Override
+			String json(HttpExchange exchange) {
+				return "{\"citysdk-tourism\":[{\"version\":\"1.0\",\"_links\":{"
+						+ "\"find-poi\":{\"href\":\"" + base + "/pois/search{?limit,offset}\",\"templated\":true},"
+						+ "\"find-event\":{\"href\":\"" + base + "/events/search{?limit,offset}\",\"templated\":true},"
+						+ "\"find-route\":{\"href\":\"" + base + "/routes/search{?limit,offset}\",\"templated\":true}}}]}";
+			}
+		});
+		server.createContext("/pois/search", new JsonHandler() {
+			@Override
+			String json(HttpExchange exchange) {
+				return list("poi", base + "/poi/", query(exchange));
+			}
+		});
+		server.createContext("/events/search", new JsonHandler() {
+			@Override
+			String json(HttpExchange exchange) {
+				Map<String, Integer> query = query(exchange);
+				if (query.get("offset") >= TOTAL)
+					return "null";
+
+				return list("event", base + "/event/", query);
+			}
+		});
+		server.createContext("/routes/search", new JsonHandler() {
+			@Override
+			String json(HttpExchange exchange) {
+				Map<String, Integer> query = query(exchange);
+				if (query.get("offset") % 100 == 0 && failed.add(query.get("offset")))
+					return null;
+
+				return list("routes", base + "/route/", query);
+			}
+		});
+		server.createContext("/poi/", new JsonHandler() {
+			@Override
+			String json(HttpExchange exchange) {
+				String path = exchange.getRequestURI().getPath();
+				int id = Integer.parseInt(path.substring(path.lastIndexOf('/') + 1));
+				poiRequests.incrementAndGet();
+				if (id < 0)
+					return null;
+				if (id >= TOTAL) {
+					try {
+						Thread.sleep(500);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+
+				return single(base + "/poi/", id);
+			}
+		});
+
+		server.setExecutor(serverExecutor);
+		server.start();
+	}
+
+	@AfterClass
+	public static void stopServer() {
+		server.stop(0);
+		serverExecutor.shutdownNow();
+	}
+
+	@Test
+	public void testSharedClient() throws Exception {
+		final TourismClient client = TourismClientFactory.getInstance().getClient(homeUrl);
+		client.useVersion("1.0");
+
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+		for (int t = 0; t < THREADS; t++) {
+			final int thread = t;
+			results.add(executor.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() throws Exception {
+					start.await();
+					for (int i = 0; i < REQUESTS; i++) {
+						int offset = thread * REQUESTS + i;
+						int limit = 1 + (offset % 5);
+						switch (i % 3) {
+						case 0:
+							assertPois(client.getPois(params(limit, offset)), limit, offset);
+							break;
+						case 1:
+							assertEvents(client.getEvents(params(limit, offset)), limit, offset);
+							break;
+						default:
+							PointOfInterest poi = client.getPoi(client.getPois(params(1, offset)).get(0).getBase(), "" + offset);
+							assertEquals("" + offset, poi.getId());
+							assertEquals("POI " + offset, DataReader.getLabel(poi, Term.LABEL_TERM_PRIMARY, Locale.ENGLISH));
+						}
+					}
+					return REQUESTS;
+				}
+			}));
+		}
+
+		start.countDown();
+		int total = 0;
+		for (Future<Integer> result : results)
+			total += result.get(60, TimeUnit.SECONDS);
+
+		executor.shutdown();
+		assertEquals(THREADS * REQUESTS, total);
+	}
+
+	@Test
+	public void testUrlBuilders() throws Exception {
+		TourismClient client = TourismClientFactory.getInstance().getClient(homeUrl);
+		client.useVersion("1.0");
+		assertTrue(client.hasResourceParameter(ResourceTerms.FIND_POI, ParameterTerms.LIMIT));
+		assertFalse(client.hasResourceParameter(ResourceTerms.FIND_POI, ParameterTerms.TAG));
+		assertFalse(client.hasResourceParameter(ResourceTerms.FIND_TAGS, ParameterTerms.LIMIT));
+
+		ParameterList list = params(10, 20);
+		list.add(new Parameter(ParameterTerms.TAG, "culture"));
+		try {
+			client.getPois(list);
+			fail("tag is not a parameter of find-poi");
+		} catch (InvalidParameterException e) {
+		}
+
+		list = new ParameterList();
+		list.add(new Parameter(ParameterTerms.CODE, "1"));
+		try {
+			client.getEvents(list);
+			fail("code is not a parameter of find-event");
+		} catch (InvalidParameterException e) {
+		}
+
+		client.useVersion("2.0");
+		try {
+			client.getPois(params(10, 0));
+			fail("version 2.0 is not available");
+		} catch (VersionNotAvailableException e) {
+		}
+	}
+
+	@Test
+	public void testAsyncClient() throws Exception {
+		TourismClient client = TourismClientFactory.getInstance().getClient(homeUrl);
+		client.useVersion("1.0");
+		String base = client.getPois(params(1, 0)).get(0).getBase();
+
+		// a direct executor runs the request before the call returns
+		AsyncTourismClient direct = new AsyncTourismClient(client, new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				command.run();
+			}
+		});
+		Future<PointOfInterest> poi = direct.getPoi(base, "7");
+		assertTrue(poi.isDone());
+		assertEquals("7", poi.get().getId());
+
+		final AtomicInteger executed = new AtomicInteger();
+		final ExecutorService pool = Executors.newFixedThreadPool(2);
+		try {
+			AsyncTourismClient async = new AsyncTourismClient(client, new Executor() {
+				@Override
+				public void execute(Runnable command) {
+					executed.incrementAndGet();
+					pool.execute(command);
+				}
+			});
+			Future<ListPointOfInterest> pois = async.getPois(params(5, 20));
+			Future<Event> event = async.getEvent(base, "3");
+			assertPois(pois.get(), 5, 20);
+			assertEquals("3", event.get().getId());
+			assertEquals(2, executed.get());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testAsyncFailure() throws Exception {
+		TourismClient client = TourismClientFactory.getInstance().getClient(homeUrl);
+		client.useVersion("1.0");
+		String base = client.getPois(params(1, 0)).get(0).getBase();
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		try {
+			Future<PointOfInterest> poi = new AsyncTourismClient(client, pool).getPoi(base, "-1");
+			try {
+				poi.get();
+				fail("The request should have failed");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause().toString(), e.getCause() instanceof ServerErrorException);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testAsyncCancel() throws Exception {
+		TourismClient client = TourismClientFactory.getInstance().getClient(homeUrl);
+		client.useVersion("1.0");
+		String base = client.getPois(params(1, 0)).get(0).getBase();
+		final AtomicBoolean interrupted = new AtomicBoolean();
+		final CountDownLatch done = new CountDownLatch(1);
+		AsyncTourismClient async = new AsyncTourismClient(client, new Executor() {
+			@Override
+			public void execute(final Runnable command) {
+				new Thread() {
+					@Override
+					public void run() {
+						command.run();
+						interrupted.set(Thread.interrupted());
+						done.countDown();
+					}
+				}.start();
+			}
+		});
+
+		// the server holds this POI for a while, so it is cancelled while the
+		// request is in progress
+		int requests = poiRequests.get();
+		Future<PointOfInterest> poi = async.getPoi(base, "" + (TOTAL + 1));
+		while (poiRequests.get() == requests)
+			Thread.sleep(5);
+
+		assertTrue(poi.cancel(true));
+		assertTrue(poi.isCancelled());
+		try {
+			poi.get();
+			fail("The request should have been cancelled");
+		} catch (CancellationException e) {
+		}
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertTrue(interrupted.get());
+	}
+
+	@Test
+	public void testPager() throws Exception {
+		TourismClient client = TourismClientFactory.getInstance().getClient(homeUrl);
+		client.useVersion("1.0");
+
+		ParameterList params = new ParameterList();
+		params.add(new Parameter(ParameterTerms.OFFSET, 10));
+		Pager<PointOfInterest> pager = client.pagePois(params, 64);
+		int id = 10;
+		while (pager.hasNext())
+			assertEquals("" + id++, pager.next().getId());
+
+		assertEquals(TOTAL, id);
+		assertEquals(970, pager.getOffset());
+	}
+
+	@Test
+	public void testPagerWithoutListing() throws Exception {
+		TourismClient client = TourismClientFactory.getInstance().getClient(homeUrl);
+		client.useVersion("1.0");
+
+		ParameterList params = new ParameterList();
+		params.add(new Parameter(ParameterTerms.OFFSET, TOTAL));
+		assertFalse(client.pageEvents(params, 64).hasNext());
+	}
+
+	@Test
+	public void testBulkFetch() throws Exception {
+		TourismClient client = TourismClientFactory.getInstance().getClient(homeUrl);
+		client.useVersion("1.0");
+
+		BulkFetcher<Route> ordered = client.bulkRoutes(new ParameterList(), 50, 4, true);
+		int id = 0;
+		while (ordered.hasNext())
+			assertEquals("" + id++, ordered.next().getId());
+
+		assertEquals(TOTAL, id);
+		assertTrue(ordered.getRetries() > 0);
+
+		Set<String> ids = new HashSet<String>();
+		BulkFetcher<Route> unordered = client.bulkRoutes(new ParameterList(), 30, 8, false);
+		while (unordered.hasNext())
+			assertTrue(ids.add(unordered.next().getId()));
+
+		assertEquals(TOTAL, ids.size());
+	}
+
+	@Test
+	public void testCache() throws Exception {
+		TourismClient client = TourismClientFactory.getInstance().getClient(homeUrl);
+		client.useVersion("1.0");
+		String base = client.getPois(params(1, 0)).get(0).getBase();
+
+		ResponseCache cache = new ResponseCache(2048);
+		client.setCache(cache);
+		int requests = poiRequests.get();
+		PointOfInterest poi = client.getPoi(base, "1");
+		assertSame(poi, client.getPoi(base, "1"));
+		assertEquals("1", client.getGeneric(base, "1").getId());
+		assertEquals(requests + 1, poiRequests.get());
+
+		for (int i = 2; i < 20; i++)
+			client.getPoi(base, "" + i);
+
+		CacheStats stats = cache.getStats();
+		assertEquals(2, stats.getHits());
+		assertEquals(19, stats.getMisses());
+		assertTrue(stats.getEvictions() > 0);
+		assertTrue(stats.getBytes() <= 2048);
+
+		cache.setTtl(ResourceTerms.RESOURCE_POIS, 0);
+		client.getPoi(base, "19");
+		assertEquals(requests + 20, poiRequests.get());
+	}
+
+	@Test
+	public void testRevalidation() throws Exception {
+		TourismClient client = TourismClientFactory.getInstance().getClient(homeUrl);
+		client.useVersion("1.0");
+		String base = client.getPois(params(1, 0)).get(0).getBase();
+
+		ResponseCache cache = new ResponseCache(1 << 20);
+		cache.setTtl(ResourceTerms.RESOURCE_POIS, 1);
+		client.setCache(cache);
+		PointOfInterest poi = client.getPoi(base, "7");
+		Thread.sleep(5);
+		assertSame(poi, client.getPoi(base, "7"));
+		assertEquals(1, cache.getStats().getRevalidations());
+		assertEquals(1, cache.getStats().getEntries());
+	}
+
+	@Test
+	public void testCoalescing() throws Exception {
+		final TourismClient client = TourismClientFactory.getInstance().getClient(homeUrl);
+		client.useVersion("1.0");
+		final String base = client.getPois(params(1, 0)).get(0).getBase();
+		final CountDownLatch start = new CountDownLatch(1);
+		List<Future<PointOfInterest>> results = new ArrayList<Future<PointOfInterest>>();
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			int requests = poiRequests.get();
+			for (int i = 0; i < THREADS; i++) {
+				final TourismClient copy = TourismClientFactory.getInstance().getClient(homeUrl);
+				copy.useVersion("1.0");
+				results.add(executor.submit(new Callable<PointOfInterest>() {
+					@Override
+					public PointOfInterest call() throws Exception {
+						start.await();
+						return copy.getPoi(base, "" + TOTAL);
+					}
+				}));
+			}
+
+			start.countDown();
+			PointOfInterest poi = results.get(0).get();
+			assertEquals("" + TOTAL, poi.getId());
+			for (Future<PointOfInterest> result : results)
+				assertSame(poi, result.get());
+			assertEquals(requests + 1, poiRequests.get());
+
+			assertEquals("" + TOTAL, client.getPoi(base, "" + TOTAL).getId());
+			assertEquals(requests + 2, poiRequests.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testBatch() throws Exception {
+		TourismClient client = TourismClientFactory.getInstance().getClient(homeUrl);
+		client.useVersion("1.0");
+		String base = client.getPois(params(1, 0)).get(0).getBase();
+
+		List<PoiRef> refs = new ArrayList<PoiRef>();
+		for (int i = 0; i < 40; i++)
+			refs.add(new PoiRef(base, "" + (i % 20)));
+		refs.add(5, new PoiRef(base, "-1"));
+
+		int requests = poiRequests.get();
+		BatchResult<PointOfInterest> result = client.getPoisByRef(refs, 4);
+		assertEquals(requests + 21, poiRequests.get());
+		assertEquals(41, result.size());
+		assertEquals(1, result.getErrorCount());
+		assertFalse(result.isSuccess(5));
+		assertTrue(result.getError(5) instanceof ServerErrorException);
+		assertEquals(null, result.get(5));
+		for (int i = 0; i < result.size(); i++) {
+			if (i != 5)
+				assertEquals(result.getRef(i).getId(), result.get(i).getId());
+		}
+		assertSame(result.get(0), result.get(21));
+		assertEquals(40, result.getValues().size());
+		assertEquals(0, client.getPoisByRef(new ArrayList<PoiRef>()).size());
+	}
+
+	@Test
+	public void testDiskCache() throws Exception {
+		TourismClient client = TourismClientFactory.getInstance().getClient(homeUrl);
+		client.useVersion("1.0");
+		String base = client.getPois(params(1, 0)).get(0).getBase();
+
+		File directory = Files.createTempDirectory("citysdk").toFile();
+		try {
+			ResponseCache cache = new ResponseCache(1 << 20);
+			cache.setDiskCache(new DiskCache(directory, 1 << 20));
+			client.setCache(cache);
+			for (int i = 0; i < 5; i++)
+				client.getPoi(base, "" + i);
+
+			int requests = poiRequests.get();
+			DiskCache disk = new DiskCache(directory, 1 << 20);
+			assertEquals(5, disk.size());
+
+			cache = new ResponseCache(1 << 20);
+			cache.setDiskCache(disk);
+			client.setCache(cache);
+			PointOfInterest poi = client.getPoi(base, "3");
+			assertEquals("3", poi.getId());
+			assertSame(poi, client.getPoi(base, "3"));
+			assertEquals(requests, poiRequests.get());
+			assertEquals(1, cache.getStats().getDiskHits());
+
+			disk = new DiskCache(directory, disk.getBytes() / 2);
+			assertTrue(disk.size() < 5);
+			assertEquals(disk.size(), directory.listFiles().length);
+		} finally {
+			for (File file : directory.listFiles())
+				file.delete();
+			directory.delete();
+		}
+	}
+
+	private static ParameterList params(int limit, int offset) throws Exception {
+		ParameterList params = new ParameterList();
+		params.add(new Parameter(ParameterTerms.LIMIT, limit));
+		params.add(new Parameter(ParameterTerms.OFFSET, offset));
+		return params;
+	}
+
+	private static void assertPois(ListPointOfInterest list, int limit, int offset) {
+		assertEquals(limit, list.getNumPois());
+		for (int i = 0; i < limit; i++) {
+			PointOfInterest poi = list.get(i);
+			assertEquals("" + (offset + i), poi.getId());
+			assertEquals("POI " + (offset + i), DataReader.getLabel(poi, Term.LABEL_TERM_PRIMARY, Locale.ENGLISH));
+		}
+	}
+
+	private static void assertEvents(ListEvent list, int limit, int offset) {
+		assertEquals(limit, list.getNumEvents());
+		for (int i = 0; i < limit; i++) {
+			Event event = list.get(i);
+			assertEquals("" + (offset + i), event.getId());
+		}
+	}
+
+	private static Map<String, Integer> query(HttpExchange exchange) {
+		Map<String, Integer> values = new HashMap<String, Integer>();
+		String query = exchange.getRequestURI().getQuery();
+		for (String pair : query.split("&")) {
+			String[] parts = pair.split("=");
+			values.put(parts[0], Integer.valueOf(parts[1]));
+		}
+		return values;
+	}
+
+	private static String list(String name, String base, Map<String, Integer> query) {
+		int limit = query.get("limit"), offset = query.get("offset");
+		StringBuilder json = new StringBuilder("{\"" + name + "\":[");
+		for (int i = offset; i < Math.min(offset + limit, TOTAL); i++) {
+			if (i > offset)
+				json.append(',');
+			json.append(single(base, i));
+		}
+		return json.append("]}").toString();
+	}
+
+	private static String single(String base, int id) {
+		return "{\"id\":\"" + id + "\",\"base\":\"" + base + "\",\"lang\":\"en-GB\","
+				+ "\"label\":[{\"term\":\"primary\",\"value\":\"POI " + id + "\"}],"
+				+ "\"location\":{\"point\":[{\"term\":\"center\",\"Point\":{\"posList\":\"38.7 -9.1\"}}]}}";
+	}
+
+	private static abstract class JsonHandler implements HttpHandler {
+		abstract String json(HttpExchange exchange);
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			String json = json(exchange);
+			if (json == null) {
+				exchange.sendResponseHeaders(503, -1);
+				exchange.close();
+				return;
+			}
+
+			byte[] body = json.getBytes("UTF-8");
+			String etag = "\"" + Integer.toHexString(json.hashCode()) + "\"";
+			exchange.getResponseHeaders().add("ETag", etag);
+			if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				exchange.sendResponseHeaders(304, -1);
+				exchange.close();
+				return;
+			}
+
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			OutputStream out = exchange.getResponseBody();
+			out.write(body);
+			out.close();
+		}
+	}
+}
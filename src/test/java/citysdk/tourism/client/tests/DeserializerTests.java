@@ -0,0 +1,397 @@
+/**
+ * COPYRIGHT NOTICE:
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.Test;
+
+import citysdk.tourism.client.parser.DataReader;
+import citysdk.tourism.client.parser.Field;
+import citysdk.tourism.client.parser.JsonParser;
+import citysdk.tourism.client.parser.POIIterator;
+import citysdk.tourism.client.parser.POIStreamDeserializer;
+import citysdk.tourism.client.parser.data.LineContent;
+import citysdk.tourism.client.parser.data.PointContent;
+import citysdk.tourism.client.poi.Deserializable;
+import citysdk.tourism.client.poi.MemoryFootprint;
+import citysdk.tourism.client.poi.base.Geometry;
+import citysdk.tourism.client.poi.base.LanguageIndex;
+import citysdk.tourism.client.poi.base.Line;
+import citysdk.tourism.client.poi.base.POIBaseType;
+import citysdk.tourism.client.poi.base.POITermType;
+import citysdk.tourism.client.poi.lists.ListEvent;
+import citysdk.tourism.client.poi.lists.ListPOIS;
+import citysdk.tourism.client.poi.lists.ListPointOfInterest;
+import citysdk.tourism.client.poi.lists.ListRoute;
+import citysdk.tourism.client.poi.lists.ListTag;
+import citysdk.tourism.client.poi.lists.Resources;
+import citysdk.tourism.client.poi.single.Category;
+import citysdk.tourism.client.poi.single.Event;
+import citysdk.tourism.client.poi.single.POI;
+import citysdk.tourism.client.poi.single.PointOfInterest;
+import citysdk.tourism.client.poi.single.Route;
+import citysdk.tourism.client.snapshot.Snapshot;
+import citysdk.tourism.client.snapshot.SnapshotRecord;
+import citysdk.tourism.client.snapshot.SnapshotWriter;
+import citysdk.tourism.client.terms.Term;
+
+/**
+ * Differential tests between the streaming and the tree-based deserializers
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public class DeserializerTests {
+	private static final String BASE = "'base':'http://tourism.citysdk.eu/pois/','lang':'pt-PT',"
+			+ "'created':'2013-04-10T10:18:31.000Z','updated':'2013-05-01T08:00:00.250Z',"
+			+ "'author':{'term':'primary','value':'CitySDK','href':'http://citysdk.eu'},"
+			+ "'license':{'term':'open-data','value':'CC-BY'}";
+
+	private static String poi(int id) {
+		return "{'id':'" + id + "'," + BASE + ",'unknown':{'ignored':[1,2,{'a':null}]},"
+				+ "'label':[{'term':'primary','value':'Torre de Belém " + id + "','lang':'pt-PT'},"
+				+ "{'term':'note','value':'Belem Tower','lang':'en-GB'}],"
+				+ "'description':[{'value':'Monumento','lang':'pt-PT','type':'text/plain'}],"
+				+ "'category':[{'term':'category','value':'Museum','lang':'en-GB','id':7}],"
+				+ "'location':{'point':[{'term':'entrance','Point':{'posList':'38.69 -9.21','srsName':'x'}}],"
+				+ "'line':[{'term':'path','LineString':{'posList':'38.69 -9.21,38.70 -9.22'}}],"
+				+ "'polygon':[{'term':'area','SimplePolygon':{'posList':'38.69 -9.21,38.70 -9.22,38.71 -9.21'}}],"
+				+ "'address':{'value':'BEGIN:VCARD\\nADR:;;Av. Brasilia\\nEND:VCARD','type':'text/vcard'},"
+				+ "'relationship':[{'term':'within','base':'http://tourism.citysdk.eu/pois/','targetPOI':'12'},"
+				+ "{'term':'equal','base':'http://tourism.citysdk.eu/events/','targetEVENT':'3'}]},"
+				+ "'time':[{'term':'open','value':'09:00','type':'text/icalendar','scheme':'iCal'}],"
+				+ "'link':[{'term':'related','href':'http://www.torrebelem.pt','type':'text/html','deleted':null}]}";
+	}
+
+	private static String list(String member, int size) {
+		StringBuilder json = new StringBuilder("{'" + member + "':[");
+		for (int i = 0; i < size; i++) {
+			if (i > 0)
+				json.append(',');
+			json.append(poi(i));
+		}
+		return json.append("]}").toString();
+	}
+
+	private static String route(int id) {
+		return poi(id).replaceFirst("\\{", "{'pois':[" + poi(id + 1) + "," + poi(id + 2) + "],");
+	}
+
+	@Test
+	public void testSinglePois() throws Exception {
+		compare(PointOfInterest.class, poi(1));
+		compare(Event.class, poi(2));
+		compare(Route.class, route(3));
+		compare(POI.class, poi(4));
+	}
+
+	@Test
+	public void testLists() throws Exception {
+		compare(ListPointOfInterest.class, list("poi", 10));
+		compare(ListEvent.class, list("event", 10));
+		compare(ListRoute.class, "{'routes':[" + route(1) + "," + route(5) + "]}");
+		compare(ListPointOfInterest.class, "{'poi':[]}");
+		compare(ListPOIS.class, "{'poi':[" + poi(1) + "],'event':[" + poi(2) + "],'routes':[" + route(3) + "]}");
+		compare(ListPOIS.class, "{'event':[" + poi(2) + "]}");
+	}
+
+	@Test
+	public void testCategoriesAndTags() throws Exception {
+		String leaf = "{'id':'3'," + BASE + ",'label':[{'term':'primary','value':'Museu','lang':'pt-PT'}]}";
+		String category = "{'id':'2'," + BASE + ",'label':[{'term':'primary','value':'Cultura','lang':'pt-PT'}],"
+				+ "'categories':[" + leaf + "," + leaf + "]}";
+		compare(Category.class, "{'categories':[" + category + "," + leaf + ",{'id':'4','categories':[]}]}");
+		compare(Category.class, leaf);
+
+		String tag = "{'id':'5','value':'culture','lang':'en-GB'}";
+		compare(ListTag.class, "{'tags':[{'lang':'en-GB','tag':[" + tag + "," + tag + "]},{'tag':[]}]}");
+	}
+
+	@Test
+	public void testResources() throws Exception {
+		compare(Resources.class, "{'citysdk-tourism':[{'version':'1.0','_links':{"
+				+ "'find-poi':{'href':'http://tourism.citysdk.eu/pois/search{?category,tag,limit,offset}','templated':true},"
+				+ "'find-poi-relation':{'href':'http://tourism.citysdk.eu/pois/{id}/relations{?relation}','templated':true},"
+				+ "'find-categories':{'href':'http://tourism.citysdk.eu/categories{?list}','templated':'false'}}},"
+				+ "{'version':'2.0','_links':{}}]}");
+	}
+
+	@Test
+	public void testLargeListFromStream() throws Exception {
+		String json = list("poi", 2000).replace('\'', '"');
+		ListPointOfInterest tree = parse(ListPointOfInterest.class, json, false);
+		ListPointOfInterest stream = new POIStreamDeserializer().deserialize(
+				new ByteArrayInputStream(json.getBytes("UTF-8")), ListPointOfInterest.class);
+
+		assertEquals(2000, stream.getNumPois());
+		assertEquals("Torre de Belém 1999", stream.get(1999).getLabel().get(0).getValue());
+		assertGraphEquals("list", tree, stream);
+	}
+
+	@Test
+	public void testIterator() throws Exception {
+		String json = ("{'before':{'poi':[1]},'routes':[" + route(1) + "," + route(4) + "],'after':[]}").replace('\'', '"');
+		ListRoute list = parse(ListRoute.class, json, true);
+		POIIterator<Route> iterator = JsonParser.iterateRoutes(new StringReader(json));
+		for (int i = 0; i < list.getNumRoutes(); i++) {
+			assertTrue(iterator.hasNext());
+			assertGraphEquals("routes[" + i + "]", list.get(i), iterator.next());
+		}
+
+		assertFalse(iterator.hasNext());
+		assertFalse(JsonParser.iteratePois(new StringReader("{'event':[]}")).hasNext());
+		assertFalse(JsonParser.iterateEvents(new StringReader("")).hasNext());
+	}
+
+	@Test
+	public void testDates() throws Exception {
+		for (boolean streaming : new boolean[] { true, false }) {
+			PointOfInterest poi = parse(PointOfInterest.class, poi(1).replace('\'', '"'), streaming);
+			assertEquals(1365589111000L, poi.getCreated().getTime());
+			assertEquals(1367395200250L, poi.getUpdated().getTime());
+		}
+
+		String[] dates = { "2013-04-10T10:18:31.250Z", "2013-04-10T11:18:31.25+01:00", "2013-04-10T10:18:31.2501Z" };
+		for (String date : dates) {
+			PointOfInterest poi = parse(PointOfInterest.class, "{\"created\":\"" + date + "\"}", true);
+			assertEquals(date, 1365589111250L, poi.getCreated().getTime());
+		}
+
+		String[] invalid = { "2013-02-29T10:18:31.000Z", "2013-04-10 10:18:31.000Z", "2013-04-10T10:18:31.Z", "2013-04-10T10:18" };
+		for (String date : invalid) {
+			PointOfInterest poi = parse(PointOfInterest.class, "{\"created\":\"" + date + "\"}", true);
+			assertNull(date, poi.getCreated());
+		}
+	}
+
+	@Test
+	public void testEmpty() throws Exception {
+		assertEquals(null, parse(PointOfInterest.class, "", true));
+		assertEquals(null, parse(PointOfInterest.class, "", false));
+		compare(PointOfInterest.class, "{}");
+	}
+
+	@Test
+	public void testGeometry() throws Exception {
+		PointOfInterest poi = parse(PointOfInterest.class, poi(1).replace('\'', '"'), true);
+		Geometry point = poi.getLocation().getPoint().get(0).getPoint();
+		assertEquals(1, point.getNumCoordinates());
+		assertEquals(38.69, point.getLatitude(0), 0);
+		assertEquals(-9.21, point.getLongitude(0), 0);
+
+		Geometry polygon = poi.getLocation().getPolygon().get(0).getSimplePolygon();
+		assertArrayEquals(new double[] { 38.69, -9.21, 38.70, -9.22, 38.71, -9.21 }, polygon.getCoordinates(), 0);
+
+		List<PointContent> points = DataReader.getLocationPoint(poi, Term.POINT_TERM_ENTRANCE);
+		assertEquals(1, points.size());
+		assertEquals(38.69, points.get(0).getLocation().getLatitudeValue(), 0);
+		assertEquals("-9.21", points.get(0).getLocation().getLongitude());
+
+		Line line = new Line();
+		line.setTerm(Term.POINT_TERM_CENTER.getTerm());
+		line.setLineString(new Geometry());
+		line.getLineString().setPosList(" 38.69 -9.21, 38.70 -9.22 ");
+		poi.getLocation().addLine(line);
+		List<LineContent> lines = DataReader.getLocationLine(poi, Term.POINT_TERM_CENTER);
+		assertEquals(1, lines.size());
+		assertEquals(38.70, lines.get(0).getPointTwo().getLatitudeValue(), 0);
+		assertEquals(-9.22, lines.get(0).getPointTwo().getLongitudeValue(), 0);
+
+		String[] malformed = { null, "", "38.69", "38.69 -9.21,38.70", "38.69 west" };
+		for (String posList : malformed) {
+			Geometry geometry = new Geometry();
+			geometry.setPosList(posList);
+			assertFalse(posList, geometry.hasCoordinates());
+			assertEquals(0, geometry.getCoordinates().length);
+		}
+	}
+
+	@Test
+	public void testFootprint() throws Exception {
+		PointOfInterest empty = new PointOfInterest();
+		assertSame(POIBaseType.EMPTY, empty.getId());
+		assertNull(empty.getCreated());
+		assertNull(empty.getLocation().getAddress());
+		assertFalse(empty.hasAddress());
+		assertEquals(null, DataReader.getContacts(empty));
+
+		List<POIBaseType> bases = new ArrayList<POIBaseType>();
+		for (int i = 0; i < 1000; i++)
+			bases.add(new POIBaseType());
+
+		// only the fields of each instance, the empty string is shared
+		assertEquals(56, MemoryFootprint.estimatePerElement(bases));
+
+		String json = list("poi", 100).replace('\'', '"');
+		ListPointOfInterest list = parse(ListPointOfInterest.class, json, true);
+		long perPoi = MemoryFootprint.estimatePerElement(list.getPois());
+		assertTrue(String.valueOf(perPoi), perPoi > 0);
+		assertTrue(MemoryFootprint.estimate(list) >= 100 * perPoi);
+	}
+
+	@Test
+	public void testAvailableLangs() throws Exception {
+		PointOfInterest poi = parse(PointOfInterest.class, poi(1).replace('\'', '"'), true);
+		assertEquals(new HashSet<String>(Arrays.asList("pt", "en")),
+				DataReader.getAvailableLangs(poi, Field.FIELD_LABEL).keySet());
+		assertEquals(new Locale("pt", "PT"), DataReader.getAvailableLangs(poi, Field.FIELD_DESCRIPTION).get("pt"));
+		assertEquals(new Locale("en", "GB"), DataReader.getAvailableLangs(poi, Field.FIELD_CATEGORY).get("en"));
+		assertEquals(1, DataReader.getAvailableLangs(poi, Field.FIELD_CATEGORY).size());
+		assertEquals(null, DataReader.getAvailableLangs(poi, null));
+	}
+
+	@Test
+	public void testLanguageIndex() throws Exception {
+		String json = poi(1).replace("'type':'text/plain'}]", "'type':'text/plain'},{'value':'Museum','lang':'en-GB'},"
+				+ "{'value':'10 EUR','lang':'en-GB','type':'X-citysdk/price'},"
+				+ "{'value':'10 euros','lang':'pt-PT','type':'X-citysdk/price'},{'value':'30','type':'X-citysdk/waiting-time'}]");
+		PointOfInterest poi = parse(PointOfInterest.class, json.replace('\'', '"'), true);
+		Locale pt = new Locale("pt", "PT"), fr = Locale.FRENCH;
+
+		assertEquals("Torre de Belém 1", DataReader.getLabel(poi, Term.LABEL_TERM_PRIMARY, pt));
+		assertEquals(null, DataReader.getLabel(poi, Term.LABEL_TERM_PRIMARY, fr));
+		assertEquals("Museum", DataReader.getDescription(poi, fr));
+		assertEquals("Monumento", DataReader.getDescription(poi, pt));
+		assertEquals("10 euros", DataReader.getPrice(poi, pt));
+		assertEquals("10 EUR", DataReader.getPrice(poi, fr));
+		assertEquals("30", DataReader.getWaitingTime(poi));
+		assertEquals(Arrays.asList("Museum"), DataReader.getCategories(poi, Locale.UK));
+		assertTrue(DataReader.getCategories(poi, pt).isEmpty());
+		assertSame(poi.getLanguageIndex(), poi.getLanguageIndex());
+		assertSame(LanguageIndex.toLocale("pt-PT"), LanguageIndex.toLocale("pt-PT"));
+
+		POITermType label = new POITermType();
+		label.setTerm(Term.LABEL_TERM_PRIMARY.getTerm());
+		label.setValue("Tour de Belém");
+		label.setLang("fr");
+		poi.addLabel(label);
+		assertEquals("Tour de Belém", DataReader.getLabel(poi, Term.LABEL_TERM_PRIMARY, fr));
+
+		LanguageIndex index = poi.getLanguageIndex();
+		poi.setLang("fr");
+		assertNotSame(index, poi.getLanguageIndex());
+	}
+
+	@Test
+	public void testSnapshot() throws Exception {
+		ListPointOfInterest pois = parse(ListPointOfInterest.class, list("poi", 100).replace('\'', '"'), true);
+		ListRoute routes = parse(ListRoute.class, ("{'routes':[" + route(1) + "," + route(5) + "]}").replace('\'', '"'), true);
+		File file = File.createTempFile("citysdk", ".snapshot");
+		try {
+			SnapshotWriter.write(file, pois);
+			Snapshot snapshot = Snapshot.open(file);
+			assertEquals(PointOfInterest.class, snapshot.getType());
+			assertEquals(100, snapshot.size());
+			for (SnapshotRecord record : snapshot) {
+				int i = record.getIndex();
+				assertEquals("" + i, record.getId());
+				assertEquals("Torre de Belém " + i, record.getLabel());
+				assertEquals(38.69, record.getLatitude(), 0);
+				assertEquals(-9.21, record.getLongitude(), 0);
+				assertGraphEquals("poi[" + i + "]", pois.get(i), record.toPoi());
+			}
+
+			SnapshotWriter.write(file, routes);
+			snapshot = Snapshot.open(file);
+			assertEquals(Route.class, snapshot.getType());
+			for (int i = 0; i < routes.getNumRoutes(); i++)
+				assertGraphEquals("routes[" + i + "]", routes.get(i), snapshot.getPoi(i));
+
+			SnapshotWriter.write(file, new ListEvent());
+			assertEquals(0, Snapshot.open(file).size());
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static <T extends Deserializable> void compare(Class<T> clazz, String json) throws Exception {
+		json = json.replace('\'', '"');
+		T tree = parse(clazz, json, false);
+		T stream = parse(clazz, json, true);
+		assertNotNull(tree);
+		assertGraphEquals(clazz.getSimpleName(), tree, stream);
+	}
+
+	private static <T extends Deserializable> T parse(Class<T> clazz, String json, boolean streaming)
+			throws Exception {
+		JsonParser parser = new JsonParser(json);
+		parser.setStreaming(streaming);
+		return parser.parseJsonAs(clazz);
+	}
+
+	/*
+	 * Compares two object graphs field by field.
+	 */
+	private static void assertGraphEquals(String path, Object expected, Object actual) throws Exception {
+		if (expected == null || actual == null) {
+			assertEquals(path, expected, actual);
+			return;
+		}
+
+		assertEquals(path, expected.getClass(), actual.getClass());
+		if (expected instanceof Date || expected instanceof String || expected instanceof Number
+				|| expected instanceof Boolean) {
+			assertEquals(path, expected, actual);
+		} else if (expected instanceof double[]) {
+			assertArrayEquals(path, (double[]) expected, (double[]) actual, 0);
+		} else if (expected instanceof List) {
+			List<?> e = (List<?>) expected, a = (List<?>) actual;
+			assertEquals(path + ".size", e.size(), a.size());
+			for (int i = 0; i < e.size(); i++)
+				assertGraphEquals(path + "[" + i + "]", e.get(i), a.get(i));
+		} else if (expected instanceof Map) {
+			Map<?, ?> e = (Map<?, ?>) expected, a = (Map<?, ?>) actual;
+			assertEquals(path + ".keys", e.keySet(), a.keySet());
+			for (Object key : e.keySet())
+				assertGraphEquals(path + "[" + key + "]", e.get(key), a.get(key));
+		} else {
+			for (Class<?> c = expected.getClass(); c != Object.class; c = c.getSuperclass()) {
+				for (java.lang.reflect.Field field : c.getDeclaredFields()) {
+					if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers()))
+						continue;
+
+					field.setAccessible(true);
+					assertGraphEquals(path + "." + field.getName(), field.get(expected), field.get(actual));
+				}
+			}
+		}
+	}
+}
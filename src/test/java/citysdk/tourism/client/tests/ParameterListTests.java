@@ -0,0 +1,109 @@
+/**
+ * COPYRIGHT NOTICE:
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import citysdk.tourism.client.requests.Parameter;
+import citysdk.tourism.client.requests.ParameterList;
+import citysdk.tourism.client.terms.ParameterTerms;
+
+/**
+ * Tests for the lists of parameters.
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public class ParameterListTests {
+
+	@Test
+	public void testAddAndReplace() throws Exception {
+		ParameterList list = new ParameterList();
+		list.add(new Parameter(ParameterTerms.OFFSET, 10));
+		list.add(new Parameter(ParameterTerms.LIMIT, 5));
+		list.add(new Parameter(ParameterTerms.LIMIT, 50));
+		assertEquals(2, list.size());
+		assertEquals(5, list.getWithTerm(ParameterTerms.LIMIT).getValue());
+
+		list.replace(new Parameter(ParameterTerms.LIMIT, 20));
+		list.replace(new Parameter(ParameterTerms.OFFSET, 30));
+		assertEquals(2, list.size());
+		assertEquals(20, list.getWithTerm(ParameterTerms.LIMIT).getValue());
+		assertEquals(30, list.getWithTerm(ParameterTerms.OFFSET).getValue());
+
+		assertTrue(list.contains(ParameterTerms.OFFSET));
+		assertEquals(30, list.remove(ParameterTerms.OFFSET).getValue());
+		assertFalse(list.contains(ParameterTerms.OFFSET));
+		assertNull(list.remove(ParameterTerms.OFFSET));
+		assertNull(list.get(1));
+
+		list.removeAll();
+		assertEquals(0, list.size());
+		assertNull(list.get(0));
+	}
+
+	@Test
+	public void testOrder() throws Exception {
+		ParameterList list = new ParameterList();
+		list.add(new Parameter(ParameterTerms.OFFSET, 0));
+		list.add(new Parameter(ParameterTerms.CATEGORY, "museum"));
+		list.add(new Parameter(ParameterTerms.LIMIT, 10));
+
+		List<ParameterTerms> terms = new ArrayList<ParameterTerms>();
+		for (Parameter parameter : list)
+			terms.add(parameter.getParameterTerm());
+
+		for (int i = 0; i < list.size(); i++)
+			assertEquals(terms.get(i), list.get(i).getParameterTerm());
+		assertEquals(terms.size(), list.toArray().length);
+		for (int i = 1; i < terms.size(); i++)
+			assertTrue(terms.get(i - 1).ordinal() < terms.get(i).ordinal());
+	}
+
+	@Test
+	public void testBuilder() throws Exception {
+		ParameterList.Builder builder = ParameterList.builder()
+				.set(ParameterTerms.CATEGORY, Arrays.asList("museum", "garden"))
+				.set(ParameterTerms.LIMIT, 10);
+
+		List<ParameterList> pages = new ArrayList<ParameterList>();
+		for (int offset = 0; offset < 30; offset += 10)
+			pages.add(builder.set(ParameterTerms.OFFSET, offset).build());
+
+		for (int i = 0; i < pages.size(); i++) {
+			assertEquals(3, pages.get(i).size());
+			assertEquals(i * 10, pages.get(i).getWithTerm(ParameterTerms.OFFSET).getValue());
+		}
+
+		ParameterList copy = new ParameterList(builder.remove(ParameterTerms.CATEGORY).build());
+		assertEquals(2, copy.size());
+		assertEquals(0, builder.clear().build().size());
+	}
+}
@@ -0,0 +1,303 @@
+/**
+ * COPYRIGHT NOTICE:
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import citysdk.tourism.client.requests.transport.HttpResponse;
+import citysdk.tourism.client.requests.transport.PoolStats;
+import citysdk.tourism.client.requests.transport.PooledTransport;
+
+/**
+ * Tests of the pooled transport against a local server writing raw HTTP
+ * responses
+ *
+ * @author Pedro Cruz
+ *
+ */
+public class PooledTransportTests {
+	private PooledTransport transport;
+	private RawServer server;
+
+	@Before
+	public void createTransport() {
+		transport = new PooledTransport(2, 30000, 2000, 2000);
+	}
+
+	@After
+	public void shutdown() throws IOException {
+		transport.shutdown();
+		if (server != null)
+			server.close();
+	}
+
+	@Test
+	public void testContentLength() throws Exception {
+		server = new RawServer() {
+			@Override
+			boolean respond(String path, OutputStream out) throws IOException {
+				write(out, "HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nhello");
+				return true;
+			}
+		};
+
+		for (int i = 0; i < 3; i++)
+			assertEquals("hello", read(transport.get(server.url("/"), null)));
+
+		PoolStats stats = transport.getStats();
+		assertEquals(1, server.connections.get());
+		assertEquals(1, stats.getCreated());
+		assertEquals(2, stats.getReused());
+		assertEquals(1, stats.getIdle());
+		assertEquals(0, stats.getLeased());
+	}
+
+	@Test
+	public void testChunked() throws Exception {
+		server = new RawServer() {
+			@Override
+			boolean respond(String path, OutputStream out) throws IOException {
+				write(out, "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+						+ "5;name=value\r\nhello\r\n7\r\n, world\r\n0\r\nX-Trailer: 1\r\n\r\n");
+				return true;
+			}
+		};
+
+		assertEquals("hello, world", read(transport.get(server.url("/"), null)));
+		assertEquals("hello, world", read(transport.get(server.url("/"), null)));
+		assertEquals(1, server.connections.get());
+		assertEquals(1, transport.getStats().getReused());
+	}
+
+	@Test
+	public void testRedirect() throws Exception {
+		server = new RawServer() {
+			@Override
+			boolean respond(String path, OutputStream out) throws IOException {
+				if (path.equals("/old"))
+					write(out, "HTTP/1.1 302 Found\r\nLocation: /new\r\nContent-Length: 3\r\n\r\nold");
+				else
+					write(out, "HTTP/1.1 200 OK\r\nContent-Length: 3\r\n\r\nnew");
+				return true;
+			}
+		};
+
+		HttpResponse response = transport.get(server.url("/old"), null);
+		assertEquals(200, response.getCode());
+		assertEquals("new", read(response));
+		assertEquals(Arrays.asList("/old", "/new"), server.requests);
+		// the body of the redirect is drained, so its connection is reused
+		assertEquals(1, server.connections.get());
+	}
+
+	@Test
+	public void testRetryOnReusedConnection() throws Exception {
+		// the server closes every connection after its first response, 
+		// without saying so
+		server = new RawServer() {
+			@Override
+			boolean respond(String path, OutputStream out) throws IOException {
+				write(out, "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok");
+				return false;
+			}
+		};
+
+		assertEquals("ok", read(transport.get(server.url("/"), null)));
+		// reused before it is checked, failing and being retried on a new one
+		assertEquals("ok", read(transport.get(server.url("/"), null)));
+		assertEquals(2, server.connections.get());
+		assertEquals(2, transport.getStats().getCreated());
+		assertEquals(1, transport.getStats().getReused());
+	}
+
+	@Test
+	public void testStaleConnection() throws Exception {
+		server = new RawServer() {
+			@Override
+			boolean respond(String path, OutputStream out) throws IOException {
+				write(out, "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok");
+				return false;
+			}
+		};
+
+		assertEquals("ok", read(transport.get(server.url("/"), null)));
+		// idle long enough to be checked, and found closed before it is used
+		Thread.sleep(2500);
+		assertEquals("ok", read(transport.get(server.url("/"), null)));
+		assertEquals(2, server.connections.get());
+		assertEquals(2, transport.getStats().getCreated());
+		assertEquals(0, transport.getStats().getReused());
+		assertEquals(1, transport.getStats().getClosed());
+	}
+
+	@Test
+	public void testDrainOnClose() throws Exception {
+		final char[] large = new char[100000];
+		Arrays.fill(large, 'x');
+		server = new RawServer() {
+			@Override
+			boolean respond(String path, OutputStream out) throws IOException {
+				int length = path.equals("/large") ? large.length : 1000;
+				write(out, "HTTP/1.1 200 OK\r\nContent-Length: " + length + "\r\n\r\n");
+				write(out, new String(large, 0, length));
+				return true;
+			}
+		};
+
+		// a small leftover is read on close, keeping the connection
+		HttpResponse response = transport.get(server.url("/small"), null);
+		assertEquals(10, response.getBody().read(new byte[10]));
+		response.close();
+		assertEquals(1, transport.getStats().getIdle());
+
+		// a large one is not, and the connection is closed
+		response = transport.get(server.url("/large"), null);
+		assertEquals(1, transport.getStats().getReused());
+		assertEquals(10, response.getBody().read(new byte[10]));
+		response.close();
+		assertEquals(0, transport.getStats().getIdle());
+
+		assertEquals(1000, read(transport.get(server.url("/small"), null)).length());
+		assertEquals(2, server.connections.get());
+	}
+
+	private static String read(HttpResponse response) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		InputStream in = response.getBody();
+		byte[] buffer = new byte[4096];
+		for (int count; (count = in.read(buffer)) != -1;)
+			out.write(buffer, 0, count);
+
+		response.close();
+		return out.toString("ISO-8859-1");
+	}
+
+	private static void write(OutputStream out, String text) throws IOException {
+		out.write(text.getBytes("ISO-8859-1"));
+		out.flush();
+	}
+
+	/*
+	 * A server answering each request with the raw bytes written by respond
+	 */
+	private static abstract class RawServer {
+		final ServerSocket socket;
+		final AtomicInteger connections = new AtomicInteger();
+		final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+
+		RawServer() throws IOException {
+			socket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+			Thread acceptor = new Thread() {
+				@Override
+				public void run() {
+					try {
+						while (true) {
+							final Socket client = socket.accept();
+							connections.incrementAndGet();
+							Thread handler = new Thread() {
+								@Override
+								public void run() {
+									serve(client);
+								}
+							};
+							handler.setDaemon(true);
+							handler.start();
+						}
+					} catch (IOException e) {
+						// closed
+					}
+				}
+			};
+			acceptor.setDaemon(true);
+			acceptor.start();
+		}
+
+		/*
+		 * Writes the response, returning false to close the connection 
+		 * after it
+		 */
+		abstract boolean respond(String path, OutputStream out) throws IOException;
+
+		String url(String path) {
+			return "http://127.0.0.1:" + socket.getLocalPort() + path;
+		}
+
+		void close() throws IOException {
+			socket.close();
+		}
+
+		private void serve(Socket client) {
+			try {
+				InputStream in = new BufferedInputStream(client.getInputStream());
+				OutputStream out = client.getOutputStream();
+				String line;
+				while ((line = readLine(in)) != null) {
+					String path = line.split(" ")[1];
+					while ((line = readLine(in)) != null && line.length() > 0)
+						;
+
+					requests.add(path);
+					if (!respond(path, out))
+						break;
+				}
+			} catch (IOException e) {
+				// the client went away
+			} finally {
+				try {
+					client.close();
+				} catch (IOException ignored) {
+				}
+			}
+		}
+
+		private static String readLine(InputStream in) throws IOException {
+			StringBuilder line = new StringBuilder();
+			int c;
+			while ((c = in.read()) != '\n') {
+				if (c == -1)
+					return line.length() == 0 ? null : line.toString();
+
+				if (c != '\r')
+					line.append((char) c);
+			}
+
+			return line.toString();
+		}
+	}
+}
@@ -0,0 +1,188 @@
+/**
+ * COPYRIGHT NOTICE:
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Test;
+
+import citysdk.tourism.client.poi.base.POIBaseType;
+import citysdk.tourism.client.poi.base.POITermType;
+import citysdk.tourism.client.poi.lists.ListTag;
+import citysdk.tourism.client.poi.single.PointOfInterest;
+import citysdk.tourism.client.poi.single.Tag;
+import citysdk.tourism.client.search.SearchIndex;
+
+/**
+ * Tests for the local full-text index.
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public class SearchIndexTests {
+	private static final Locale PT = new Locale("pt", "PT");
+
+	@Test
+	public void testFolding() {
+		PointOfInterest belem = poi("Torre de Belém", "pt-PT");
+		PointOfInterest ajuda = poi("Palácio Nacional d'Ajuda", "pt-PT");
+		SearchIndex<PointOfInterest> index = new SearchIndex<PointOfInterest>();
+		assertEquals(2, index.addAll(Arrays.asList(belem, ajuda)));
+
+		assertEquals(Arrays.asList(belem), index.suggest("belem", 10));
+		assertEquals(Arrays.asList(belem), index.suggest("BELÉ", PT, 10));
+		assertEquals(Arrays.asList(belem), index.suggest("torre bel", 10));
+		assertEquals(Arrays.asList(belem), index.suggest("  bel, torr", 10));
+		assertEquals(Arrays.asList(ajuda), index.suggest("ajud", 10));
+		assertEquals(Arrays.asList(ajuda), index.suggest("palacio", 10));
+		assertTrue(index.suggest("torre ajuda", 10).isEmpty());
+		assertTrue(index.suggest("", 10).isEmpty());
+		assertTrue(index.suggest("- ,", 10).isEmpty());
+		assertTrue(index.suggest("torre", 0).isEmpty());
+	}
+
+	@Test
+	public void testRanking() {
+		PointOfInterest mosteiro = poi("Mosteiro dos Jerónimos", "pt-PT");
+		PointOfInterest monastery = poi("Jeronimos Monastery", "en-GB");
+		PointOfInterest category = new PointOfInterest();
+		category.addCategory(term("museu", "pt-PT"));
+		PointOfInterest description = new PointOfInterest();
+		description.addDescription(base("Um museu de arte", "pt-PT"));
+		PointOfInterest museum = poi("Museum of Modern Art", "en-GB");
+
+		SearchIndex<PointOfInterest> index = new SearchIndex<PointOfInterest>();
+		index.addAll(Arrays.asList(mosteiro, monastery, category, description, museum));
+
+		assertEquals(Arrays.asList(monastery, mosteiro), index.suggest("jeronimos", Locale.UK, 10));
+		assertEquals(Arrays.asList(mosteiro, monastery), index.suggest("jeronimos", PT, 10));
+		assertEquals(Arrays.asList(mosteiro, monastery), index.suggest("jer", 10));
+		assertEquals(Arrays.asList(category, description, museum), index.suggest("museu", PT, 10));
+		assertEquals(Arrays.asList(museum, category, description), index.suggest("muse", 10));
+		assertEquals(Arrays.asList(museum), index.suggest("muse", 1));
+		assertEquals(Arrays.asList(museum, description), index.suggest("art", 10));
+	}
+
+	@Test
+	public void testUpdates() {
+		List<PointOfInterest> pois = new ArrayList<PointOfInterest>();
+		SearchIndex<PointOfInterest> index = new SearchIndex<PointOfInterest>();
+		for (int i = 0; i < 1000; i++) {
+			PointOfInterest poi = poi("Ponto " + i, null);
+			pois.add(poi);
+			assertTrue(index.add(poi));
+		}
+
+		assertFalse(index.add(pois.get(0)));
+		assertFalse(index.add(new PointOfInterest()));
+		assertEquals(1000, index.size());
+		assertEquals(Arrays.asList(pois.get(12)), index.suggest("ponto 12", 1));
+		assertEquals(pois.subList(0, 5), index.suggest("p", 5));
+
+		// removed POIs leave no terms behind, and their ids are reused
+		int terms = index.getNumTerms();
+		for (PointOfInterest poi : pois.subList(0, 500))
+			assertTrue(index.remove(poi));
+
+		assertFalse(index.remove(pois.get(0)));
+		assertFalse(index.contains(pois.get(0)));
+		assertEquals(500, index.size());
+		assertEquals(terms - 500, index.getNumTerms());
+		assertTrue(index.suggest("ponto 12", 10).isEmpty());
+		assertEquals(pois.subList(500, 505), index.suggest("p", 5));
+
+		// a POI added in the place of a removed one still comes after the 
+		// POIs added before it
+		PointOfInterest added = poi("Padrão dos Descobrimentos", null);
+		index.add(added);
+		assertEquals(Arrays.asList(pois.get(500)), index.suggest("p", 1));
+		assertEquals(added, index.suggest("p", 501).get(500));
+
+		pois.get(600).getLabel().get(0).setValue("Castelo de São Jorge");
+		assertTrue(index.update(pois.get(600)));
+		assertEquals(Arrays.asList(pois.get(600)), index.suggest("sao jorge", 10));
+		assertTrue(index.suggest("ponto 600", 10).isEmpty());
+		pois.get(600).getLabel().get(0).setValue("Ponto 600");
+		assertTrue(index.update(pois.get(600)));
+		assertEquals(pois.get(600), index.suggest("p", 501).get(100));
+
+		index.clear();
+		assertEquals(0, index.size());
+		assertEquals(0, index.getNumTerms());
+		assertTrue(index.suggest("p", 5).isEmpty());
+	}
+
+	@Test
+	public void testTags() {
+		Tag group = new Tag();
+		Tag culture = tag("Cultura", "pt-PT");
+		Tag cuisine = tag("Culinária", "pt-PT");
+		Tag cultureEn = tag("Culture", "en-GB");
+		for (Tag tag : Arrays.asList(culture, cuisine, cultureEn))
+			group.addTag(tag);
+
+		ListTag list = new ListTag();
+		list.addTag(group);
+		list.addTag(new Tag());
+		SearchIndex<Tag> index = SearchIndex.forTags(list);
+		assertEquals(3, index.size());
+		assertEquals(Arrays.asList(culture, cuisine, cultureEn), index.suggest("cul", PT, 10));
+		assertEquals(Arrays.asList(cultureEn, culture, cuisine), index.suggest("cul", Locale.UK, 10));
+		assertEquals(Collections.singletonList(cuisine), index.suggest("culina", 10));
+	}
+
+	private static PointOfInterest poi(String label, String lang) {
+		PointOfInterest poi = new PointOfInterest();
+		poi.addLabel(term(label, lang));
+		return poi;
+	}
+
+	private static POITermType term(String value, String lang) {
+		POITermType term = new POITermType();
+		term.setValue(value);
+		if (lang != null)
+			term.setLang(lang);
+
+		return term;
+	}
+
+	private static POIBaseType base(String value, String lang) {
+		POIBaseType base = new POIBaseType();
+		base.setValue(value);
+		base.setLang(lang);
+		return base;
+	}
+
+	private static Tag tag(String value, String lang) {
+		Tag tag = new Tag();
+		tag.setValue(value);
+		tag.setLang(lang);
+		return tag;
+	}
+}
@@ -0,0 +1,181 @@
+/**
+ * COPYRIGHT NOTICE:
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import citysdk.tourism.client.poi.base.Geometry;
+import citysdk.tourism.client.poi.base.Line;
+import citysdk.tourism.client.poi.base.Point;
+import citysdk.tourism.client.poi.single.PointOfInterest;
+import citysdk.tourism.client.spatial.GeoMath;
+import citysdk.tourism.client.spatial.SpatialIndex;
+
+/**
+ * Tests the spatial index against a linear scan of the same POIs.
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public class SpatialIndexTests {
+	private static final int TOTAL = 5000;
+
+	@Test
+	public void testDistance() {
+		assertEquals(111195, GeoMath.distance(0, 0, 0, 1), 1);
+		assertEquals(111195, GeoMath.distance(38.7, -9.1, 39.7, -9.1), 1);
+		assertEquals(0, GeoMath.distance(38.7, -9.1, 38.7, -9.1), 0);
+		assertEquals(Math.PI * GeoMath.EARTH_RADIUS, GeoMath.distance(0, 0, 0, 180), 1);
+	}
+
+	@Test
+	public void testQueries() {
+		Random random = new Random(42);
+		List<PointOfInterest> pois = new ArrayList<PointOfInterest>();
+		SpatialIndex<PointOfInterest> index = new SpatialIndex<PointOfInterest>(8);
+		for (int i = 0; i < TOTAL; i++) {
+			PointOfInterest poi = point(38.6 + random.nextDouble() * 0.2, -9.3 + random.nextDouble() * 0.2);
+			pois.add(poi);
+			assertTrue(index.add(poi));
+		}
+
+		assertFalse(index.add(pois.get(0)));
+		assertFalse(index.add(new PointOfInterest()));
+		assertEquals(TOTAL, index.size());
+		check(index, pois, random);
+
+		Collections.shuffle(pois, random);
+		for (PointOfInterest poi : pois.subList(0, TOTAL / 2 + 7))
+			assertTrue(index.remove(poi));
+
+		List<PointOfInterest> remaining = new ArrayList<PointOfInterest>(pois.subList(TOTAL / 2 + 7, TOTAL));
+		assertFalse(index.remove(pois.get(0)));
+		assertFalse(index.contains(pois.get(0)));
+		assertEquals(remaining.size(), index.size());
+		check(index, remaining, random);
+
+		for (PointOfInterest poi : remaining)
+			assertTrue(index.remove(poi));
+
+		assertEquals(0, index.size());
+		assertTrue(index.nearest(38.7, -9.2, 3).isEmpty());
+		assertEquals(100, index.addAll(remaining.subList(0, 100)));
+		check(index, remaining.subList(0, 100), random);
+	}
+
+	@Test
+	public void testExtendedGeometries() {
+		PointOfInterest route = new PointOfInterest();
+		Line line = new Line();
+		line.setLineString(geometry("38.70 -9.20,38.80 -9.10"));
+		route.getLocation().addLine(line);
+		PointOfInterest far = point(40, -8);
+
+		SpatialIndex<PointOfInterest> index = new SpatialIndex<PointOfInterest>();
+		index.addAll(Arrays.asList(route, far));
+		assertEquals(Arrays.asList(route), index.search(38.74, -9.16, 38.76, -9.14));
+		assertEquals(Arrays.asList(route), index.withinRadius(38.75, -9.15, 1));
+		assertEquals(Arrays.asList(route, far), index.nearest(38.9, -9.15, 5));
+	}
+
+	@Test
+	public void testAntimeridianAndPoles() {
+		PointOfInterest east = point(0, 179.995), west = point(0, -179.995), pole = point(89.999, 45);
+		SpatialIndex<PointOfInterest> index = new SpatialIndex<PointOfInterest>();
+		index.addAll(Arrays.asList(east, west, pole));
+		assertEquals(new HashSet<PointOfInterest>(Arrays.asList(east, west)),
+				new HashSet<PointOfInterest>(index.withinRadius(0, 179.999, 2000)));
+		assertEquals(Arrays.asList(pole), index.withinRadius(89.999, -135, 500));
+		assertEquals(Arrays.asList(west, east), index.nearest(0, -179.999, 2));
+	}
+
+	/*
+	 * Compares the results of random queries to a linear scan.
+	 */
+	private static void check(SpatialIndex<PointOfInterest> index, List<PointOfInterest> pois, Random random) {
+		for (int q = 0; q < 50; q++) {
+			double lat = 38.55 + random.nextDouble() * 0.3;
+			double lon = -9.35 + random.nextDouble() * 0.3;
+
+			double radius = random.nextDouble() * 3000;
+			List<PointOfInterest> expected = new ArrayList<PointOfInterest>();
+			for (PointOfInterest poi : pois) {
+				if (distance(poi, lat, lon) <= radius)
+					expected.add(poi);
+			}
+
+			assertEquals(new HashSet<PointOfInterest>(expected),
+					new HashSet<PointOfInterest>(index.withinRadius(lat, lon, radius)));
+
+			double size = random.nextDouble() * 0.05;
+			expected.clear();
+			for (PointOfInterest poi : pois) {
+				double[] c = poi.getLocation().getPoint().get(0).getPoint().getCoordinates();
+				if (c[0] >= lat && c[0] <= lat + size && c[1] >= lon && c[1] <= lon + size)
+					expected.add(poi);
+			}
+
+			assertEquals(new HashSet<PointOfInterest>(expected),
+					new HashSet<PointOfInterest>(index.search(lat, lon, lat + size, lon + size)));
+
+			int k = 1 + random.nextInt(20);
+			List<Double> distances = new ArrayList<Double>();
+			for (PointOfInterest poi : pois)
+				distances.add(distance(poi, lat, lon));
+
+			Collections.sort(distances);
+			List<PointOfInterest> nearest = index.nearest(lat, lon, k);
+			assertEquals(Math.min(k, pois.size()), nearest.size());
+			for (int i = 0; i < nearest.size(); i++)
+				assertEquals(distances.get(i), distance(nearest.get(i), lat, lon), 1e-6);
+		}
+	}
+
+	private static double distance(PointOfInterest poi, double lat, double lon) {
+		Geometry point = poi.getLocation().getPoint().get(0).getPoint();
+		return GeoMath.distance(lat, lon, point.getLatitude(0), point.getLongitude(0));
+	}
+
+	private static PointOfInterest point(double lat, double lon) {
+		Point point = new Point();
+		point.setPoint(geometry(lat + " " + lon));
+		PointOfInterest poi = new PointOfInterest();
+		poi.getLocation().addPoint(point);
+		return poi;
+	}
+
+	private static Geometry geometry(String posList) {
+		Geometry geometry = new Geometry();
+		geometry.setPosList(posList);
+		return geometry;
+	}
+}
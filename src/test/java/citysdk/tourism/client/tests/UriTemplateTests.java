@@ -0,0 +1,147 @@
+/**
+ * COPYRIGHT NOTICE:
+ *
+ * This file is part of CitySDK WP5 Tourism Java Library.
+ *
+ * CitySDK WP5 Tourism Java Library is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * CitySDK WP5 Tourism Java Library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with CitySDK WP5 Tourism Java Library. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2013, IST
+ */
+package citysdk.tourism.client.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import citysdk.tourism.client.requests.uri.CompiledUriTemplate;
+import citysdk.tourism.client.requests.uri.UriTemplate;
+
+/**
+ * Tests for the expansion of URI Templates.
+ * 
+ * @author Pedro Cruz
+ *
+ */
+public class UriTemplateTests {
+	private static final String SEARCH = "http://tourism.citysdk.eu/pois/search{?category,tag,limit,offset}";
+
+	@Test
+	public void testExpansion() {
+		Map<String, Object> values = new HashMap<String, Object>();
+		values.put("var", "value");
+		values.put("hello", "Hello World!");
+		values.put("x", "1024");
+		values.put("y", "768");
+		values.put("list", Arrays.asList("red", "green", "blue"));
+		Map<String, String> keys = new LinkedHashMap<String, String>();
+		keys.put("semi", ";");
+		keys.put("dot", ".");
+		values.put("keys", keys);
+
+		assertEquals("value", expand("{var}", values));
+		assertEquals("Hello%20World%21", expand("{hello}", values));
+		assertEquals("1024,768", expand("{x,y}", values));
+		assertEquals("?x=1024&y=768", expand("{?x,y,undef}", values));
+		assertEquals("", expand("{?undef}", values));
+		assertEquals("/value/1024", expand("{/var,x}", values));
+		assertEquals("red,green,blue", expand("{list}", values));
+		assertEquals("?list=red&list=green&list=blue", expand("{?list*}", values));
+		assertEquals("semi,%3B,dot,.", expand("{keys}", values));
+		assertEquals(";semi=%3B;dot=.", expand("{;keys*}", values));
+		assertEquals("val", expand("{var:3}", values));
+		assertEquals("value", expand("{var:30}", values));
+		assertEquals("a{}c{", expand("a{}{b}c{", values));
+		assertEquals("caf%C3%A9", CompiledUriTemplate.compile("{v}").expand(singleton("v", "café")));
+	}
+
+	@Test
+	public void testEncoding() throws Exception {
+		// values are encoded as URLEncoder did, with spaces as %20, since the
+		// URLs are also the keys of the caches
+		String value = "a~b*c+d e/f?g&h=i";
+		assertEquals("a%7Eb*c%2Bd%20e%2Ff%3Fg%26h%3Di", CompiledUriTemplate.compile("{v}").expand(singleton("v", value)));
+		assertEquals("?v=" + URLEncoder.encode(value, "UTF-8").replace("+", "%20"),
+				CompiledUriTemplate.compile("{?v}").expand(singleton("v", value)));
+	}
+
+	@Test
+	public void testBuilder() {
+		UriTemplate template = UriTemplate.fromTemplate(SEARCH);
+		assertTrue(template.hasParameter("limit"));
+		assertFalse(template.hasParameter("id"));
+
+		template.set("limit", 10).set("limit", 20).set("category", Arrays.asList("museum", "garden"));
+		assertEquals("http://tourism.citysdk.eu/pois/search?category=museum,garden&limit=20", template.build());
+		assertEquals("http://tourism.citysdk.eu/pois/search", template.build());
+		assertSame(CompiledUriTemplate.compile(SEARCH), CompiledUriTemplate.compile(SEARCH));
+		assertEquals(Arrays.asList("category", "tag", "limit", "offset"),
+				new ArrayList<String>(CompiledUriTemplate.compile(SEARCH).getVariableNames()));
+	}
+
+	@Test
+	public void testConcurrentExpansion() throws Exception {
+		final CompiledUriTemplate template = CompiledUriTemplate.compile(SEARCH);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int i = 0; i < 8; i++) {
+				final int thread = i;
+				results.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() {
+						for (int j = 0; j < 1000; j++) {
+							Map<String, Object> values = new HashMap<String, Object>();
+							values.put("limit", thread);
+							values.put("offset", j);
+							String expected = "http://tourism.citysdk.eu/pois/search?limit=" + thread + "&offset=" + j;
+							if (!expected.equals(template.expand(values)))
+								return false;
+						}
+						return true;
+					}
+				}));
+			}
+
+			for (Future<Boolean> result : results)
+				assertTrue(result.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static String expand(String template, Map<String, Object> values) {
+		return CompiledUriTemplate.compile(template).expand(values);
+	}
+
+	private static Map<String, Object> singleton(String name, Object value) {
+		Map<String, Object> values = new HashMap<String, Object>();
+		values.put(name, value);
+		return values;
+	}
+}